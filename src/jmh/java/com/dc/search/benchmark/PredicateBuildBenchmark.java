@@ -0,0 +1,67 @@
+package com.dc.search.benchmark;
+
+import com.dc.search.application.entity.Person;
+import com.dc.search.implementation.SearchCriteria;
+import com.dc.search.implementation.person.PersonSpecificationProvider;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Predicate construction through {@code BasicSearchSpecification.toPredicateBasic} against Hibernate's criteria
+ * builder. A fresh query root is created per invocation, as it is for every executed search.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PredicateBuildBenchmark {
+
+	@Param({"firstName~like~ann", "age~gt~30", "birthdate~lte~1990-01-01", "country.name~eq~Croatia", "id~in~1,2,3,4,5,6,7,8,9,10"})
+	private String criterion;
+
+	private EntityManager entityManager;
+	private CriteriaBuilder cb;
+	private Specification<Person> specification;
+
+	@Setup
+	public void setUp(SearchApplicationState application) {
+		entityManager = application.getBean(EntityManagerFactory.class).createEntityManager();
+		cb = entityManager.getCriteriaBuilder();
+		String[] parts = criterion.split("~");
+		specification = application.getBean(PersonSpecificationProvider.class)
+				.getNewInstance(new SearchCriteria(parts[0], parts[1], parts[2]));
+	}
+
+	@TearDown
+	public void tearDown() {
+		entityManager.close();
+	}
+
+	@Benchmark
+	public Predicate toPredicate() {
+		CriteriaQuery<Person> query = cb.createQuery(Person.class);
+		Root<Person> root = query.from(Person.class);
+		return specification.toPredicate(root, query, cb);
+	}
+}
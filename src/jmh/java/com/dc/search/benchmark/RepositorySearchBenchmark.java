@@ -0,0 +1,56 @@
+package com.dc.search.benchmark;
+
+import com.dc.search.application.entity.Person;
+import com.dc.search.application.repository.PersonRepository;
+import com.dc.search.implementation.person.PersonSearchCompiler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end search through {@code PersonRepository.findAll(spec)} against the in-memory H2 database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositorySearchBenchmark {
+
+	@Param({"FLAT", "NESTED", "WIDE_IN", "COUNTRY"})
+	private SearchStrings searchString;
+
+	private PersonRepository personRepository;
+	private PersonSearchCompiler compiler;
+	private Specification<Person> specification;
+
+	@Setup
+	public void setUp(SearchApplicationState application) {
+		personRepository = application.getBean(PersonRepository.class);
+		compiler = application.getBean(PersonSearchCompiler.class);
+		specification = compiler.compile(searchString.search()).getSpecification();
+	}
+
+	@Benchmark
+	public List<Person> findAll() {
+		return personRepository.findAll(specification);
+	}
+
+	@Benchmark
+	public List<Person> compileAndFindAll() {
+		return personRepository.findAll(compiler.compile(searchString.search()).getSpecification());
+	}
+}
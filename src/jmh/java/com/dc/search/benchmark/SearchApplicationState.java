@@ -0,0 +1,48 @@
+package com.dc.search.benchmark;
+
+import com.dc.search.SearchApplication;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Boots the application without the web layer once per benchmark run, backed by the in-memory H2 database
+ * populated from data-dev.sql. With {@code -Dbenchmark.persons=N} N synthetic persons are generated in addition,
+ * see {@code search.generator.*}.
+ */
+@State(Scope.Benchmark)
+public class SearchApplicationState {
+
+	private ConfigurableApplicationContext context;
+
+	private static final long PERSONS = Long.getLong("benchmark.persons", 0);
+
+	@Setup(Level.Trial)
+	public void start() {
+		context = new SpringApplicationBuilder(SearchApplication.class)
+				.web(WebApplicationType.NONE)
+				.properties(
+						"spring.datasource.url=jdbc:h2:mem:benchmark",
+						"spring.sql.init.data-locations=classpath:data-dev.sql",
+						"spring.jpa.show-sql=false",
+						"spring.main.banner-mode=off",
+						"logging.level.root=WARN",
+						"search.generator.enabled=" + (PERSONS > 0),
+						"search.generator.persons=" + PERSONS)
+				.run();
+	}
+
+	@TearDown(Level.Trial)
+	public void stop() {
+		context.close();
+	}
+
+	public <B> B getBean(Class<B> type) {
+		return context.getBean(type);
+	}
+}
@@ -0,0 +1,58 @@
+package com.dc.search.benchmark;
+
+import com.dc.search.application.entity.Person;
+import com.dc.search.implementation.SearchCompiler;
+import com.dc.search.implementation.SpecificationBuilder;
+import com.dc.search.implementation.person.PersonSpecificationProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing and specification assembly, including criteria resolution against the attribute index, without running
+ * any query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchParseBenchmark {
+
+	@Param({"FLAT", "NESTED", "WIDE_IN"})
+	private SearchStrings searchString;
+
+	private String search;
+	private SpecificationBuilder<Person> builder;
+	private SearchCompiler<Person> compiler;
+
+	@Setup
+	public void setUp(SearchApplicationState application) {
+		search = searchString.search();
+		PersonSpecificationProvider provider = application.getBean(PersonSpecificationProvider.class);
+		builder = new SpecificationBuilder<>(provider);
+		compiler = new SearchCompiler<>(provider, 100);
+	}
+
+	@Benchmark
+	public Specification<Person> parse() {
+		return builder.parse(search);
+	}
+
+	@Benchmark
+	public Specification<Person> compileCached() {
+		return compiler.compile(search).getSpecification();
+	}
+}
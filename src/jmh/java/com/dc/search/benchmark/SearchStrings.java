@@ -0,0 +1,40 @@
+package com.dc.search.benchmark;
+
+import java.util.StringJoiner;
+
+/**
+ * Search strings shared by the benchmarks, covering flat, deeply nested and wide IN searches.
+ */
+public enum SearchStrings {
+
+	FLAT("firstName~like~an~and~lastName~like~e~and~gender~eq~Female~and~birthdate~gt~1980-01-01~and~email~like~com"),
+	NESTED(nested(32)),
+	WIDE_IN("id~in~" + range(1000)),
+	COUNTRY("country.name~eq~Croatia~or~country.code~eq~USA~and~age~gt~3");
+
+	private final String search;
+
+	SearchStrings(String search) {
+		this.search = search;
+	}
+
+	public String search() {
+		return search;
+	}
+
+	private static String nested(int depth) {
+		String search = "firstName~like~a";
+		for (int i = 0; i < depth; i++) {
+			search = "(" + search + "~" + (i % 2 == 0 ? "or" : "and") + "~lastName~like~" + (char) ('a' + i % 26) + ")";
+		}
+		return search;
+	}
+
+	private static String range(int size) {
+		StringJoiner joiner = new StringJoiner(",");
+		for (int i = 1; i <= size; i++) {
+			joiner.add(Integer.toString(i));
+		}
+		return joiner.toString();
+	}
+}
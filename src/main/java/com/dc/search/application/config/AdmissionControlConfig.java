@@ -0,0 +1,40 @@
+package com.dc.search.application.config;
+
+import com.dc.search.implementation.budget.ConcurrencyBulkhead;
+import com.dc.search.implementation.budget.SearchBudget;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class AdmissionControlConfig implements WebMvcConfigurer {
+
+	private final SearchProperties properties;
+	private final ConcurrencyBulkhead bulkhead;
+
+	public AdmissionControlConfig(SearchProperties properties, ObjectMapper objectMapper) {
+		this.properties = properties;
+		this.bulkhead = new ConcurrencyBulkhead(properties.getBulkhead().getMaxConcurrent(),
+				properties.getBulkhead().getMaxWait(), objectMapper);
+	}
+
+	@Bean
+	public SearchBudget searchBudget() {
+		return new SearchBudget(properties.getBudget().getMaxCost(), properties.getBudget().getMode());
+	}
+
+	@Bean
+	public ConcurrencyBulkhead searchBulkhead() {
+		return bulkhead;
+	}
+
+	/**
+	 * The bulkhead covers the endpoints of PersonController and ViewController, which run searches.
+	 */
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(bulkhead).addPathPatterns("/", "/persons", "/persons/**");
+	}
+}
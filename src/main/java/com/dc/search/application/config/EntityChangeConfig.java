@@ -0,0 +1,24 @@
+package com.dc.search.application.config;
+
+import com.dc.search.implementation.change.EntityChangeListener;
+import com.dc.search.implementation.change.EntityChangeObserver;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class EntityChangeConfig {
+
+	/**
+	 * Passes committed entity changes to all {@link EntityChangeObserver} beans, which are looked up on every change so
+	 * that observers can depend on the entity manager factory themselves.
+	 */
+	@Bean
+	public EntityChangeListener entityChangeListener(EntityManagerFactory entityManagerFactory,
+													 ObjectProvider<EntityChangeObserver> observers) {
+		EntityChangeListener listener = new EntityChangeListener(observers);
+		listener.register(entityManagerFactory);
+		return listener;
+	}
+}
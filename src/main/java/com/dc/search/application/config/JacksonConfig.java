@@ -0,0 +1,18 @@
+package com.dc.search.application.config;
+
+import com.dc.search.implementation.fetch.FetchPlan;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JacksonConfig {
+
+	/**
+	 * Entities are written with all their associations unless the response sets the filters of a fetch plan.
+	 */
+	@Bean
+	public Jackson2ObjectMapperBuilderCustomizer fetchPlanFilters() {
+		return builder -> builder.filters(FetchPlan.ALL_ASSOCIATIONS);
+	}
+}
@@ -0,0 +1,23 @@
+package com.dc.search.application.config;
+
+import com.dc.search.application.entity.Person;
+import com.dc.search.implementation.SearchExecutor;
+import com.dc.search.implementation.person.PersonColumnarSearchExecutor;
+import com.dc.search.implementation.person.PersonSearchResultCache;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+@Configuration
+public class SearchExecutorConfig {
+
+	/**
+	 * Backend of {@code GET /persons}: the cached JPA search, or the columnar snapshot if it is enabled.
+	 */
+	@Bean
+	@Primary
+	public SearchExecutor<Person> personSearchExecutor(SearchProperties properties, PersonSearchResultCache resultCache,
+													   PersonColumnarSearchExecutor columnarExecutor) {
+		return properties.getColumnar().isEnabled() ? columnarExecutor : resultCache;
+	}
+}
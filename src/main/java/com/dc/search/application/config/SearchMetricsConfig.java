@@ -0,0 +1,60 @@
+package com.dc.search.application.config;
+
+import com.dc.search.implementation.metrics.SearchMetrics;
+import com.dc.search.implementation.metrics.SearchTraceInterceptor;
+import com.dc.search.implementation.metrics.SlowSearchEndpoint;
+import com.dc.search.implementation.metrics.SqlCaptureInspector;
+import com.dc.search.implementation.metrics.TimedJacksonHttpMessageConverter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class SearchMetricsConfig implements WebMvcConfigurer {
+
+	private final SearchProperties properties;
+	private final SearchMetrics metrics;
+
+	public SearchMetricsConfig(SearchProperties properties, MeterRegistry registry) {
+		this.properties = properties;
+		this.metrics = new SearchMetrics(registry, properties.getSlowLog().getThreshold(),
+				properties.getSlowLog().getMaxEntries());
+	}
+
+	@Bean
+	public SearchMetrics searchMetrics() {
+		return metrics;
+	}
+
+	@Bean
+	public SlowSearchEndpoint slowSearchEndpoint() {
+		return new SlowSearchEndpoint(metrics);
+	}
+
+	/**
+	 * Replaces the default JSON converter, so that response serialization shows up in the search traces.
+	 */
+	@Bean
+	public TimedJacksonHttpMessageConverter timedJacksonHttpMessageConverter(ObjectMapper objectMapper) {
+		return new TimedJacksonHttpMessageConverter(objectMapper);
+	}
+
+	@Bean
+	public HibernatePropertiesCustomizer sqlCaptureCustomizer() {
+		return hibernateProperties -> hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, new SqlCaptureInspector());
+	}
+
+	/**
+	 * Traces the same endpoints as the bulkhead, see {@link AdmissionControlConfig}.
+	 */
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(new SearchTraceInterceptor(metrics, properties.getSlowLog().getMaxStatements()))
+				.addPathPatterns("/", "/persons", "/persons/**");
+	}
+}
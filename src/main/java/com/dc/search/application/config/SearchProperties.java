@@ -0,0 +1,259 @@
+package com.dc.search.application.config;
+
+import com.dc.search.implementation.budget.SearchBudget;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "search")
+public class SearchProperties {
+
+	private final CompiledCache compiledCache = new CompiledCache();
+	private final ResultCache resultCache = new ResultCache();
+	private final Page page = new Page();
+	private final Stream stream = new Stream();
+	private final Facets facets = new Facets();
+	private final Budget budget = new Budget();
+	private final Bulkhead bulkhead = new Bulkhead();
+	private final Trigram trigram = new Trigram();
+	private final Columnar columnar = new Columnar();
+	private final Bitmap bitmap = new Bitmap();
+	private final Batch batch = new Batch();
+	private final Etag etag = new Etag();
+	private final SlowLog slowLog = new SlowLog();
+	private final Advisor advisor = new Advisor();
+	private final Generator generator = new Generator();
+
+	@Getter
+	@Setter
+	public static class CompiledCache {
+		/**
+		 * Maximum number of distinct compiled searches kept in memory.
+		 */
+		private long maximumSize = 1000;
+	}
+
+	@Getter
+	@Setter
+	public static class ResultCache {
+		/**
+		 * Maximum number of distinct search results kept in memory, 0 disables the cache.
+		 */
+		private long maximumSize = 500;
+		/**
+		 * Time after which a cached result is loaded again, even if no change invalidated it.
+		 */
+		private Duration timeToLive = Duration.ofMinutes(10);
+	}
+
+	@Getter
+	@Setter
+	public static class Page {
+		/**
+		 * Largest page size accepted by keyset paginated searches.
+		 */
+		private int maxLimit = 1000;
+	}
+
+	@Getter
+	@Setter
+	public static class Stream {
+		/**
+		 * JDBC fetch size used when streaming search results.
+		 */
+		private int fetchSize = 500;
+		/**
+		 * Number of streamed rows after which the persistence context is cleared.
+		 */
+		private int clearInterval = 500;
+	}
+
+	@Getter
+	@Setter
+	public static class Facets {
+		/**
+		 * Largest number of facet fields counted in one request, all of them are grouped together in one query.
+		 */
+		private int maxFields = 5;
+	}
+
+	@Getter
+	@Setter
+	public static class Budget {
+		/**
+		 * Highest estimated cost of a search that is run in full, see SearchCost for the weights.
+		 */
+		private int maxCost = 100;
+		/**
+		 * What happens to searches over budget, REJECT answers 400, DOWNGRADE returns at most downgrade-limit rows
+		 * from the list endpoints and rejects the others.
+		 */
+		private SearchBudget.Mode mode = SearchBudget.Mode.REJECT;
+		/**
+		 * Number of rows returned for a downgraded search.
+		 */
+		private int downgradeLimit = 100;
+	}
+
+	@Getter
+	@Setter
+	public static class Bulkhead {
+		/**
+		 * Number of search requests handled at once, further requests are answered with 429.
+		 */
+		private int maxConcurrent = 16;
+		/**
+		 * Time a request waits for a free slot before it is rejected.
+		 */
+		private Duration maxWait = Duration.ofMillis(50);
+	}
+
+	@Getter
+	@Setter
+	public static class Trigram {
+		/**
+		 * Whether LIKE criteria on the indexed fields are narrowed down with an in-memory trigram index.
+		 */
+		private boolean enabled = false;
+		/**
+		 * String attributes of Person that are indexed.
+		 */
+		private List<String> fields = List.of("firstName", "lastName", "email");
+		/**
+		 * Largest candidate set passed to the database as an id filter, LIKEs with more candidates run unfiltered.
+		 */
+		private int maxCandidates = 1000;
+	}
+
+	@Getter
+	@Setter
+	public static class Columnar {
+		/**
+		 * Whether GET /persons is answered from an in-memory columnar snapshot instead of the database.
+		 */
+		private boolean enabled = false;
+		/**
+		 * Rows filtered on the calling thread, larger snapshots are split across the fork/join pool.
+		 */
+		private int parallelThreshold = 16384;
+	}
+
+	@Getter
+	@Setter
+	public static class Bitmap {
+		/**
+		 * Whether EQ, NOT_EQ, IN and NOT_IN criteria on the indexed fields are evaluated with in-memory bitmaps.
+		 */
+		private boolean enabled = false;
+		/**
+		 * Low cardinality attribute paths of Person that are indexed.
+		 */
+		private List<String> fields = List.of("gender", "country.id");
+		/**
+		 * Largest id set passed to the database, larger results of the bitmaps fall back to the SQL criteria.
+		 */
+		private int maxIds = 1000;
+	}
+
+	@Getter
+	@Setter
+	public static class Batch {
+		/**
+		 * Most searches accepted in one batch request.
+		 */
+		private int maxSearches = 50;
+		/**
+		 * Threads running the searches of all batches, and so the most connections batches use at once.
+		 */
+		private int parallelism = 4;
+	}
+
+	@Getter
+	@Setter
+	public static class Etag {
+		/**
+		 * Whether search responses carry an ETag and conditional requests with If-None-Match are answered with 304.
+		 */
+		private boolean enabled = true;
+	}
+
+	@Getter
+	@Setter
+	public static class SlowLog {
+		/**
+		 * Search requests taking at least this long are logged and kept for /actuator/slowsearches.
+		 */
+		private Duration threshold = Duration.ofMillis(500);
+		/**
+		 * Latest slow searches that are kept.
+		 */
+		private int maxEntries = 100;
+		/**
+		 * SQL statements kept per traced request.
+		 */
+		private int maxStatements = 20;
+	}
+
+	@Getter
+	@Setter
+	public static class Advisor {
+		/**
+		 * Distinct normalized searches the index advisor keeps statistics for.
+		 */
+		private int maxSearches = 10_000;
+		/**
+		 * Indexes estimated to match a larger fraction of the rows are not recommended.
+		 */
+		private double maxSelectivity = 0.2;
+		private int maxRecommendations = 10;
+		/**
+		 * Allows POST /search/advisor/apply to create the recommended indexes, only on H2.
+		 */
+		private boolean applyEnabled = false;
+		/**
+		 * Runs of the sample search timed before and after applying an index, the median is reported.
+		 */
+		private int timingRuns = 5;
+	}
+
+	@Getter
+	@Setter
+	public static class Generator {
+		/**
+		 * Generates synthetic data on startup, in addition to the data loaded from SQL scripts.
+		 */
+		private boolean enabled = false;
+		private long persons = 100_000;
+		private int countries = 40;
+		/**
+		 * Distinct first names and distinct last names.
+		 */
+		private int nameCardinality = 1000;
+		/**
+		 * Zipf exponent of the country and name distributions, 0 is uniform.
+		 */
+		private double skew = 1.0;
+		/**
+		 * Mean of the Poisson distributed number of addresses per person, at most 8.
+		 */
+		private double addressesPerPerson = 1.2;
+		private long seed = 42;
+		/**
+		 * Rows per multi-row INSERT statement.
+		 */
+		private int rowsPerInsert = 100;
+		/**
+		 * INSERT statements per JDBC batch and transaction.
+		 */
+		private int batchSize = 50;
+		/**
+		 * Connections loading persons in parallel.
+		 */
+		private int parallelism = 4;
+	}
+}
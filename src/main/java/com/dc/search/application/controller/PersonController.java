@@ -1,32 +1,240 @@
 package com.dc.search.application.controller;
 
+import com.dc.search.application.config.SearchProperties;
 import com.dc.search.application.entity.Person;
 import com.dc.search.application.repository.PersonRepository;
-import com.dc.search.implementation.SpecificationBuilder;
-import com.dc.search.implementation.person.PersonSpecificationProvider;
+import com.dc.search.implementation.CompiledSearch;
+import com.dc.search.implementation.InvalidSearchException;
+import com.dc.search.implementation.SearchExecutor;
+import com.dc.search.implementation.batch.BatchResult;
+import com.dc.search.implementation.batch.BatchSearch;
+import com.dc.search.implementation.budget.SearchBudget;
+import com.dc.search.implementation.facet.FacetValue;
+import com.dc.search.implementation.keyset.KeysetPage;
+import com.dc.search.implementation.keyset.KeysetPageRequest;
+import com.dc.search.implementation.metrics.SearchTrace;
+import com.dc.search.implementation.person.PersonDataVersion;
+import com.dc.search.implementation.person.PersonFetchPlan;
+import com.dc.search.implementation.person.PersonSearchBatch;
+import com.dc.search.implementation.person.PersonSearchCompiler;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @RequiredArgsConstructor
 @RestController
 @RequestMapping("/persons")
 public class PersonController {
 
+	public static final String DOWNGRADED_HEADER = "X-Search-Downgraded";
+
 	private final PersonRepository personRepository;
-	private final PersonSpecificationProvider provider;
+	private final PersonSearchCompiler searchCompiler;
+	private final SearchExecutor<Person> searchExecutor;
+	private final SearchBudget searchBudget;
+	private final PersonSearchBatch searchBatch;
+	private final SearchProperties properties;
+	private final ObjectMapper objectMapper;
+	private final PersonDataVersion dataVersion;
+	private final PersonFetchPlan fetchPlan;
 
+	/**
+	 * Returns all matches. Over budget searches are rejected, or downgraded to the first matches by id, which is
+	 * flagged with the {@value #DOWNGRADED_HEADER} header.
+	 * <p>
+	 * With {@code fields}, e.g. {@code fields=id,firstName,country.name}, only those fields are selected from the
+	 * database and returned, without loading entities.
+	 * <p>
+	 * With {@code expand}, e.g. {@code expand=country}, only those associations are loaded and returned, all of them
+	 * without it and none for an empty one. See {@link com.dc.search.implementation.fetch.FetchPlan}.
+	 * <p>
+	 * The JSON endpoints answer conditional requests, see {@link #notModified(WebRequest, Object...)}.
+	 */
 	@GetMapping
-	public List<Person> getAll(@RequestParam(required = false) String search) {
-		if (search != null) {
-			SpecificationBuilder<Person> builder = new SpecificationBuilder<>(provider);
-			return personRepository.findAll(builder.parse(search));
+	public ResponseEntity<Object> getAll(@RequestParam(required = false) String search,
+										 @RequestParam(required = false) List<String> fields,
+										 @RequestParam(required = false) List<String> expand,
+										 WebRequest webRequest) {
+		CompiledSearch<Person> compiled = searchCompiler.compile(search);
+		Set<String> expanded = fetchPlan.resolve(expand);
+		if (notModified(webRequest, compiled.getCanonicalKey(), fields, expanded)) {
+			return null;
+		}
+		if (searchBudget.admit(compiled) == SearchBudget.Admission.DOWNGRADE) {
+			int limit = properties.getBudget().getDowngradeLimit();
+			Object results = fields != null ? findFields(compiled, fields, limit)
+					: expanded(findPage(compiled, new KeysetPageRequest("id", Sort.Direction.ASC, limit, null), expanded)
+					.items(), expanded);
+			return ResponseEntity.ok().header(DOWNGRADED_HEADER, "limit=" + limit).body(results);
+		}
+		if (fields != null) {
+			return ResponseEntity.ok(findFields(compiled, fields, 0));
+		}
+		return ResponseEntity.ok(expanded(SearchTrace.time(SearchTrace.Phase.EXECUTE,
+				() -> searchExecutor.findAll(compiled, expanded)), expanded));
+	}
+
+	private List<Map<String, Object>> findFields(CompiledSearch<Person> compiled, List<String> fields, int limit) {
+		if (compiled.matchesNothing()) {
+			return List.of();
+		}
+		return SearchTrace.time(SearchTrace.Phase.EXECUTE,
+				() -> personRepository.findFields(compiled.getSpecification(), fields, limit));
+	}
+
+	@GetMapping(params = "limit")
+	public MappingJacksonValue getPage(@RequestParam(required = false) String search,
+									   @RequestParam int limit,
+									   @RequestParam(required = false) String cursor,
+									   @RequestParam(defaultValue = "id") String sort,
+									   @RequestParam(defaultValue = "ASC") String direction,
+									   @RequestParam(required = false) List<String> expand,
+									   WebRequest webRequest) {
+		if (limit > properties.getPage().getMaxLimit()) {
+			throw new InvalidSearchException("Page limit can not exceed " + properties.getPage().getMaxLimit() + ".");
+		}
+		CompiledSearch<Person> compiled = searchCompiler.compile(search);
+		Set<String> expanded = fetchPlan.resolve(expand);
+		if (notModified(webRequest, compiled.getCanonicalKey(), limit, cursor, sort, direction, expanded)) {
+			return null;
+		}
+		if (searchBudget.admit(compiled) == SearchBudget.Admission.DOWNGRADE) {
+			limit = Math.min(limit, properties.getBudget().getDowngradeLimit());
+		}
+		KeysetPageRequest request = new KeysetPageRequest(sort, direction(direction), limit, cursor);
+		return expanded(findPage(compiled, request, expanded), expanded);
+	}
+
+	private static Sort.Direction direction(String direction) {
+		try {
+			return Sort.Direction.fromString(direction);
+		} catch (IllegalArgumentException e) {
+			throw new InvalidSearchException("Invalid sort direction '" + direction + "', expected ASC or DESC.", e);
 		}
+	}
 
-		return personRepository.findAll();
+	/**
+	 * Loads a page of matches with the expanded associations, to-one associations are fetched with the page and
+	 * collections initialized in batches after it.
+	 */
+	private KeysetPage<Person> findPage(CompiledSearch<Person> compiled, KeysetPageRequest request, Set<String> expand) {
+		if (compiled.matchesNothing()) {
+			return new KeysetPage<>(List.of(), null);
+		}
+		return SearchTrace.time(SearchTrace.Phase.EXECUTE, () -> {
+			KeysetPage<Person> page = personRepository.findPage(
+					fetchPlan.fetching(compiled.getSpecification(), expand), request);
+			fetchPlan.initialize(page.items(), expand);
+			return page;
+		});
+	}
+
+	private MappingJacksonValue expanded(Object body, Set<String> expand) {
+		MappingJacksonValue value = new MappingJacksonValue(body);
+		value.setFilters(fetchPlan.filters(expand));
+		return value;
+	}
+
+	/**
+	 * Counts the matches of the search per value of each facet field, e.g. {@code facets=gender,country.name,age:10}.
+	 */
+	@GetMapping("/facets")
+	public Map<String, List<FacetValue>> getFacets(@RequestParam(required = false) String search,
+												   @RequestParam List<String> facets, WebRequest webRequest) {
+		CompiledSearch<Person> compiled = searchCompiler.compile(search);
+		if (notModified(webRequest, compiled.getCanonicalKey(), facets)) {
+			return null;
+		}
+		searchBudget.check(compiled);
+		return SearchTrace.time(SearchTrace.Phase.EXECUTE,
+				() -> personRepository.countFacets(compiled.getSpecification(), facets));
+	}
+
+	/**
+	 * Runs a list of named searches in one request, e.g.
+	 * {@code [{"name": "adults", "search": "age~gte~18", "countOnly": true}, {"name": "recent", "limit": 10}]}, and
+	 * returns their results by name.
+	 */
+	@PostMapping("/batch")
+	public Map<String, BatchResult<Person>> batch(@RequestBody List<BatchSearch> searches) {
+		return searchBatch.run(searches);
+	}
+
+	/**
+	 * Streams all matches as newline delimited JSON, without loading the whole result into memory. Expanded to-one
+	 * associations are fetched with the rows, expanded collections are loaded in batches for blocks of rows.
+	 */
+	@GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public ResponseEntity<StreamingResponseBody> stream(@RequestParam(required = false) String search,
+														@RequestParam(required = false) List<String> expand) {
+		// compiled before the response is committed, so that invalid searches are still rejected with 400
+		final CompiledSearch<Person> compiled = searchCompiler.compile(search);
+		final Set<String> expanded = fetchPlan.resolve(expand);
+		searchBudget.check(compiled);
+		if (compiled.matchesNothing()) {
+			return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(outputStream -> {
+			});
+		}
+		final Specification<Person> specification = compiled.getSpecification();
+		final ObjectWriter writer = objectMapper.writerFor(Person.class)
+				.with(fetchPlan.filters(expanded))
+				.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+		StreamingResponseBody body = outputStream -> {
+			try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+				generator.setRootValueSeparator(null);
+				personRepository.streamAll(specification, expanded, person -> {
+					try {
+						writer.writeValue(generator, person);
+						generator.writeRaw('\n');
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+			}
+		};
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+	}
+
+	/**
+	 * Sets a strong ETag on the response and returns true, with the status set to 304, if the If-None-Match header of
+	 * the request has it. The handler then returns without running the search or serializing anything.
+	 * <p>
+	 * The ETag is the data version of persons, countries and addresses with a hash of the normalized search and the
+	 * other parameters, so equivalent searches share it and any committed change gives all responses a new one.
+	 */
+	private boolean notModified(WebRequest webRequest, Object... parameters) {
+		if (!properties.getEtag().isEnabled()) {
+			return false;
+		}
+		StringBuilder key = new StringBuilder();
+		for (Object parameter : parameters) {
+			key.append(parameter).append('\n');
+		}
+		String hash = DigestUtils.md5DigestAsHex(key.toString().getBytes(StandardCharsets.UTF_8));
+		return webRequest.checkNotModified('"' + dataVersion.current() + '-' + hash + '"');
 	}
 }
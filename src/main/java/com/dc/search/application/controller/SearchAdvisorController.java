@@ -0,0 +1,52 @@
+package com.dc.search.application.controller;
+
+import com.dc.search.implementation.advisor.AdvisorReport;
+import com.dc.search.implementation.advisor.AppliedIndex;
+import com.dc.search.implementation.person.PersonIndexAdvisor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/search/advisor")
+public class SearchAdvisorController {
+
+	private final PersonIndexAdvisor indexAdvisor;
+
+	/**
+	 * Reports how often each field was searched per operation and the indexes recommended for the recorded searches.
+	 */
+	@GetMapping
+	public AdvisorReport getReport() {
+		return indexAdvisor.advise();
+	}
+
+	/**
+	 * Creates the recommended indexes, only if {@code search.advisor.apply-enabled} is set.
+	 */
+	@PostMapping("/apply")
+	public List<AppliedIndex> apply() {
+		if (!indexAdvisor.isApplyEnabled()) {
+			throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Applying indexes is disabled.");
+		}
+		return indexAdvisor.apply();
+	}
+
+	/**
+	 * Forgets the recorded searches, e.g. after indexes were applied.
+	 */
+	@DeleteMapping
+	@ResponseStatus(HttpStatus.NO_CONTENT)
+	public void reset() {
+		indexAdvisor.getWorkload().clear();
+	}
+}
@@ -0,0 +1,48 @@
+package com.dc.search.application.controller;
+
+import com.dc.search.implementation.InvalidSearchException;
+import com.dc.search.implementation.batch.SearchBatchRejectedException;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+@Log4j2
+@RestControllerAdvice(annotations = RestController.class)
+public class SearchExceptionHandler {
+
+	@ExceptionHandler(InvalidSearchException.class)
+	public ProblemDetail handleInvalidSearch(InvalidSearchException e) {
+		log.debug("Rejected search request: {}", e.getMessage());
+		return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage());
+	}
+
+	/**
+	 * Repositories translate an {@link InvalidSearchException} raised while building the query, other API usage errors
+	 * are server errors and rethrown.
+	 */
+	@ExceptionHandler(InvalidDataAccessApiUsageException.class)
+	public ProblemDetail handleInvalidQuery(InvalidDataAccessApiUsageException e) {
+		if (!(e.getCause() instanceof InvalidSearchException invalid)) {
+			throw e;
+		}
+		log.debug("Rejected search query: {}", invalid.getMessage());
+		return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, invalid.getMessage());
+	}
+
+	/**
+	 * Saturated batch pool, answered like the concurrency bulkhead.
+	 */
+	@ExceptionHandler(SearchBatchRejectedException.class)
+	public ResponseEntity<ProblemDetail> handleRejectedBatch(SearchBatchRejectedException e) {
+		log.debug("Rejected search batch: {}", e.getMessage());
+		return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+				.header(HttpHeaders.RETRY_AFTER, "1")
+				.body(ProblemDetail.forStatusAndDetail(HttpStatus.TOO_MANY_REQUESTS, e.getMessage()));
+	}
+}
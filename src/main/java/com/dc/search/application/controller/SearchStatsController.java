@@ -0,0 +1,53 @@
+package com.dc.search.application.controller;
+
+import com.dc.search.application.config.SearchProperties;
+import com.dc.search.implementation.person.PersonBitmapIndex;
+import com.dc.search.implementation.person.PersonColumnarSearchExecutor;
+import com.dc.search.implementation.person.PersonSearchCompiler;
+import com.dc.search.implementation.person.PersonSearchResultCache;
+import com.dc.search.implementation.person.PersonTrigramIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/search/stats")
+public class SearchStatsController {
+
+	private final PersonSearchCompiler searchCompiler;
+	private final PersonSearchResultCache resultCache;
+	private final PersonTrigramIndex trigramIndex;
+	private final PersonBitmapIndex bitmapIndex;
+	private final PersonColumnarSearchExecutor columnarExecutor;
+	private final SearchProperties properties;
+
+	@GetMapping
+	public Map<String, Object> getStats() {
+		Map<String, Object> stats = new LinkedHashMap<>();
+		stats.put("compiledSearches", Map.of(
+				"size", searchCompiler.size(),
+				"hitRate", searchCompiler.stats().hitRate()));
+		stats.put("results", resultCache.stats());
+		if (properties.getColumnar().isEnabled()) {
+			stats.put("columnar", columnarExecutor.stats());
+		}
+		if (trigramIndex.isEnabled()) {
+			stats.put("trigramIndex", Map.of(
+					"ready", trigramIndex.getIndex().isReady(),
+					"entities", trigramIndex.getIndex().size(),
+					"trigrams", trigramIndex.getIndex().trigramCount()));
+		}
+		if (bitmapIndex.isEnabled()) {
+			stats.put("bitmapIndex", Map.of(
+					"ready", bitmapIndex.getIndex().isReady(),
+					"entities", bitmapIndex.getIndex().size(),
+					"distinctValues", bitmapIndex.getIndex().cardinalities()));
+		}
+		return stats;
+	}
+}
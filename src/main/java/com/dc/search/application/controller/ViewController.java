@@ -1,27 +1,49 @@
 package com.dc.search.application.controller;
 
+import com.dc.search.application.config.SearchProperties;
 import com.dc.search.application.entity.Person;
 import com.dc.search.application.repository.PersonRepository;
-import com.dc.search.implementation.SpecificationBuilder;
-import com.dc.search.implementation.person.PersonSpecificationProvider;
+import com.dc.search.implementation.CompiledSearch;
+import com.dc.search.implementation.budget.SearchBudget;
+import com.dc.search.implementation.keyset.KeysetPageRequest;
+import com.dc.search.implementation.metrics.SearchTrace;
+import com.dc.search.implementation.person.PersonSearchCompiler;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 
+import java.util.List;
+
 @Controller
 @RequiredArgsConstructor
 public class ViewController {
 
 	private final PersonRepository personRepository;
 
-	private final PersonSpecificationProvider provider;
+	private final PersonSearchCompiler searchCompiler;
+
+	private final SearchBudget searchBudget;
+
+	private final SearchProperties properties;
 
 	@GetMapping(value = "/")
 	private String listPersons(Model model, String search){
 		if (search != null) {
-			SpecificationBuilder<Person> builder = new SpecificationBuilder<>(provider);
-			model.addAttribute("persons", personRepository.findAll(builder.parse(search)));
+			CompiledSearch<Person> compiled = searchCompiler.compile(search);
+			List<Person> persons;
+			if (searchBudget.admit(compiled) == SearchBudget.Admission.DOWNGRADE) {
+				int limit = properties.getBudget().getDowngradeLimit();
+				persons = SearchTrace.time(SearchTrace.Phase.EXECUTE, () -> personRepository.findPage(
+						compiled.getSpecification(), new KeysetPageRequest("id", Sort.Direction.ASC, limit, null)).items());
+				model.addAttribute("downgradeLimit", limit);
+			} else {
+				persons = SearchTrace.time(SearchTrace.Phase.EXECUTE,
+						() -> personRepository.findAll(compiled.getSpecification()));
+			}
+			SearchTrace.rows(persons.size());
+			model.addAttribute("persons", persons);
 			model.addAttribute("search", search);
 		} else {
 			model.addAttribute("persons", personRepository.findAll());
@@ -0,0 +1,250 @@
+package com.dc.search.application.data;
+
+import com.dc.search.application.config.SearchProperties;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Generates synthetic countries, persons and addresses and loads them with batched multi-row JDBC inserts, bypassing
+ * JPA. Rows are appended after the highest existing ids.
+ * <p>
+ * Countries, first and last names are drawn from Zipf distributions with the configured skew, so a few values are
+ * very common and most are rare, like in real data. The number of distinct names and countries is configurable.
+ * Persons are generated in chunks on parallel connections, every chunk has its own random generator derived from the
+ * seed, so the same settings always produce the same data regardless of the parallelism.
+ */
+@Log4j2
+@Component
+public class DataGenerator {
+
+	/**
+	 * Fixed reference date for ages, so that generated data does not depend on when it is generated.
+	 */
+	static final LocalDate REFERENCE_DATE = LocalDate.of(2024, 1, 1);
+
+	/**
+	 * Upper bound of addresses per person, address ids are allocated in blocks of this size per person.
+	 */
+	static final int MAX_ADDRESSES = 8;
+
+	private static final int CHUNK_SIZE = 50_000;
+	private static final String[] COUNTRY_COLUMNS = {"id", "name", "code"};
+	private static final String[] PERSON_COLUMNS = {"id", "first_name", "last_name", "gender", "age",
+			"height_in_meters", "email", "ip_address", "birthdate", "country_id"};
+	private static final String[] ADDRESS_COLUMNS = {"id", "line1", "line2", "number", "person_id"};
+
+	public record Result(int countries, long persons, long addresses, long millis) {
+	}
+
+	private final DataSource dataSource;
+	private final JdbcTemplate jdbcTemplate;
+
+	public DataGenerator(DataSource dataSource) {
+		this.dataSource = dataSource;
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+	}
+
+	public Result generate(SearchProperties.Generator settings) {
+		if (settings.getPersons() < 0 || settings.getCountries() < 1 || settings.getNameCardinality() < 1
+				|| settings.getAddressesPerPerson() < 0 || settings.getAddressesPerPerson() > MAX_ADDRESSES) {
+			throw new IllegalArgumentException("Invalid data generator settings.");
+		}
+		final long start = System.currentTimeMillis();
+		final int countryBase = maxId("country");
+		final int personBase = maxId("person");
+		final int addressBase = maxId("address");
+		if ((long) personBase + settings.getPersons() > Integer.MAX_VALUE
+				|| addressBase + (long) settings.getPersons() * MAX_ADDRESSES > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Too many persons to generate, ids would overflow.");
+		}
+		log.info("Generating {} countries and {} persons", settings.getCountries(), settings.getPersons());
+		write(connection -> {
+			try (MultiRowInsert countries = insert(connection, "country", COUNTRY_COLUMNS, settings)) {
+				for (int i = 0; i < settings.getCountries(); i++) {
+					String[] country = SyntheticValues.country(i);
+					countries.add(countryBase + i + 1, country[0], country[1]);
+				}
+				countries.flush();
+				return countries.rows();
+			}
+		});
+
+		final Dictionaries dictionaries = new Dictionaries(settings);
+		final int chunks = (int) ((settings.getPersons() + CHUNK_SIZE - 1) / CHUNK_SIZE);
+		final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, settings.getParallelism()));
+		long persons = 0;
+		long addresses = 0;
+		try {
+			List<Future<long[]>> loaded = new ArrayList<>(chunks);
+			for (int chunk = 0; chunk < chunks; chunk++) {
+				final int from = chunk * CHUNK_SIZE;
+				final int to = (int) Math.min(settings.getPersons(), (long) from + CHUNK_SIZE);
+				final long seed = settings.getSeed() * 31 + chunk;
+				loaded.add(executor.submit(() -> write(connection -> new long[]{
+						loadPersons(connection, settings, dictionaries, new SplittableRandom(seed), from, to,
+								countryBase, personBase),
+						loadAddresses(connection, settings, new SplittableRandom(~seed), from, to, personBase,
+								addressBase)})));
+			}
+			for (Future<long[]> chunk : loaded) {
+				long[] rows = chunk.get();
+				persons += rows[0];
+				addresses += rows[1];
+				if (chunks > 1) {
+					log.info("Loaded {} of {} persons", persons, settings.getPersons());
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Data generation was interrupted.", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Data generation failed: " + e.getCause().getMessage(), e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+		Result result = new Result(settings.getCountries(), persons, addresses, System.currentTimeMillis() - start);
+		log.info("Generated {}", result);
+		return result;
+	}
+
+	private long loadPersons(Connection connection, SearchProperties.Generator settings, Dictionaries dictionaries,
+							 SplittableRandom random, int from, int to, int countryBase, int personBase)
+			throws SQLException {
+		try (MultiRowInsert persons = insert(connection, "person", PERSON_COLUMNS, settings)) {
+			for (int i = from; i < to; i++) {
+				final int id = personBase + i + 1;
+				final String firstName = dictionaries.firstNames.get(dictionaries.firstNameRanks.sample(random));
+				final String lastName = dictionaries.lastNames.get(dictionaries.lastNameRanks.sample(random));
+				final boolean male = random.nextBoolean();
+				// ages of adults, more young than old ones
+				final int age = 18 + (int) (72 * Math.pow(random.nextDouble(), 1.4));
+				final double height = (male ? 1.78 : 1.65) + random.nextGaussian() * 0.07;
+				final String domain = SyntheticValues.DOMAINS.get(dictionaries.domainRanks.sample(random));
+				final Integer country = random.nextInt(100) == 0 ? null
+						: countryBase + dictionaries.countryRanks.sample(random) + 1;
+				persons.add(id, firstName, lastName, male ? "Male" : "Female", age,
+						BigDecimal.valueOf(height).setScale(2, RoundingMode.HALF_UP),
+						(firstName.charAt(0) + lastName + id + "@" + domain).toLowerCase(Locale.ROOT),
+						ipAddress(random),
+						REFERENCE_DATE.minusYears(age).minusDays(random.nextInt(365)),
+						country);
+			}
+			persons.flush();
+			return persons.rows();
+		}
+	}
+
+	/**
+	 * Loads the addresses of the persons of a chunk, after the persons they reference were committed.
+	 */
+	private long loadAddresses(Connection connection, SearchProperties.Generator settings, SplittableRandom random,
+							   int from, int to, int personBase, int addressBase) throws SQLException {
+		try (MultiRowInsert addresses = insert(connection, "address", ADDRESS_COLUMNS, settings)) {
+			for (int i = from; i < to; i++) {
+				final int count = addressCount(random, settings.getAddressesPerPerson());
+				for (int k = 0; k < count; k++) {
+					addresses.add(addressBase + i * MAX_ADDRESSES + k + 1,
+							street(random),
+							random.nextInt(5) < 3 ? null : (random.nextBoolean() ? "Apt " : "Unit ") + random.nextInt(1, 500),
+							random.nextInt(1, 1000),
+							personBase + i + 1);
+				}
+			}
+			addresses.flush();
+			return addresses.rows();
+		}
+	}
+
+	private static String ipAddress(SplittableRandom random) {
+		return random.nextInt(1, 224) + "." + random.nextInt(256) + "." + random.nextInt(256) + "." + random.nextInt(1, 255);
+	}
+
+	private static String street(SplittableRandom random) {
+		return random.nextInt(1, 10_000) + " " + SyntheticValues.STREETS.get(random.nextInt(SyntheticValues.STREETS.size()))
+				+ " " + SyntheticValues.STREET_TYPES.get(random.nextInt(SyntheticValues.STREET_TYPES.size()));
+	}
+
+	/**
+	 * Poisson distributed number of addresses with the given mean, capped at {@link #MAX_ADDRESSES}.
+	 */
+	static int addressCount(SplittableRandom random, double mean) {
+		final double limit = Math.exp(-mean);
+		double product = random.nextDouble();
+		int count = 0;
+		while (product > limit && count < MAX_ADDRESSES) {
+			count++;
+			product *= random.nextDouble();
+		}
+		return count;
+	}
+
+	private int maxId(String table) {
+		Integer max = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from " + table, Integer.class);
+		return max == null ? 0 : max;
+	}
+
+	private static MultiRowInsert insert(Connection connection, String table, String[] columns,
+										 SearchProperties.Generator settings) throws SQLException {
+		return new MultiRowInsert(connection, table, columns, settings.getRowsPerInsert(), settings.getBatchSize());
+	}
+
+	@FunctionalInterface
+	private interface Load<R> {
+		R run(Connection connection) throws SQLException;
+	}
+
+	private <R> R write(Load<R> load) {
+		try (Connection connection = dataSource.getConnection()) {
+			boolean autoCommit = connection.getAutoCommit();
+			connection.setAutoCommit(false);
+			try {
+				return load.run(connection);
+			} catch (SQLException | RuntimeException e) {
+				connection.rollback();
+				throw e;
+			} finally {
+				connection.setAutoCommit(autoCommit);
+			}
+		} catch (SQLException e) {
+			throw new IllegalStateException("Could not load generated data: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Values and their Zipf samplers, shared by the loading threads.
+	 */
+	private static final class Dictionaries {
+
+		final List<String> firstNames;
+		final List<String> lastNames;
+		final ZipfSampler firstNameRanks;
+		final ZipfSampler lastNameRanks;
+		final ZipfSampler countryRanks;
+		final ZipfSampler domainRanks;
+
+		Dictionaries(SearchProperties.Generator settings) {
+			firstNames = SyntheticValues.firstNames(settings.getNameCardinality());
+			lastNames = SyntheticValues.lastNames(settings.getNameCardinality());
+			firstNameRanks = new ZipfSampler(firstNames.size(), settings.getSkew());
+			lastNameRanks = new ZipfSampler(lastNames.size(), settings.getSkew());
+			countryRanks = new ZipfSampler(settings.getCountries(), settings.getSkew());
+			domainRanks = new ZipfSampler(SyntheticValues.DOMAINS.size(), 1);
+		}
+	}
+}
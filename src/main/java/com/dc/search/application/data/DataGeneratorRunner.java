@@ -0,0 +1,26 @@
+package com.dc.search.application.data;
+
+import com.dc.search.application.config.SearchProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Generates the configured synthetic data on startup if {@code search.generator.enabled} is set. Runners are called
+ * before the application is ready, so the in-memory indexes built on ready include the generated rows.
+ */
+@Component
+@RequiredArgsConstructor
+public class DataGeneratorRunner implements ApplicationRunner {
+
+	private final DataGenerator dataGenerator;
+	private final SearchProperties properties;
+
+	@Override
+	public void run(ApplicationArguments args) {
+		if (properties.getGenerator().isEnabled()) {
+			dataGenerator.generate(properties.getGenerator());
+		}
+	}
+}
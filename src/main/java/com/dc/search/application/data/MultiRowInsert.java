@@ -0,0 +1,95 @@
+package com.dc.search.application.data;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Writes rows into one table with multi-row {@code INSERT ... VALUES (...), (...)} statements, executed in JDBC
+ * batches and committed per batch. Not thread safe, every loading thread uses its own connection and instances.
+ */
+final class MultiRowInsert implements AutoCloseable {
+
+	private final Connection connection;
+	private final String table;
+	private final String[] columns;
+	private final int rowsPerStatement;
+	private final int statementsPerBatch;
+	private final PreparedStatement statement;
+	private final Object[] pending;
+	private int pendingRows;
+	private int batchedStatements;
+	private long rows;
+
+	MultiRowInsert(Connection connection, String table, String[] columns, int rowsPerStatement,
+				   int statementsPerBatch) throws SQLException {
+		this.connection = connection;
+		this.table = table;
+		this.columns = columns;
+		this.rowsPerStatement = rowsPerStatement;
+		this.statementsPerBatch = statementsPerBatch;
+		this.statement = connection.prepareStatement(sql(rowsPerStatement));
+		this.pending = new Object[rowsPerStatement * columns.length];
+	}
+
+	void add(Object... values) throws SQLException {
+		System.arraycopy(values, 0, pending, pendingRows * columns.length, columns.length);
+		if (++pendingRows == rowsPerStatement) {
+			bind(statement, rowsPerStatement);
+			statement.addBatch();
+			pendingRows = 0;
+			if (++batchedStatements == statementsPerBatch) {
+				executeBatch();
+			}
+		}
+	}
+
+	/**
+	 * Writes and commits all pending rows.
+	 */
+	void flush() throws SQLException {
+		executeBatch();
+		if (pendingRows > 0) {
+			try (PreparedStatement remainder = connection.prepareStatement(sql(pendingRows))) {
+				bind(remainder, pendingRows);
+				remainder.executeUpdate();
+			}
+			rows += pendingRows;
+			pendingRows = 0;
+		}
+		connection.commit();
+	}
+
+	long rows() {
+		return rows;
+	}
+
+	@Override
+	public void close() throws SQLException {
+		statement.close();
+	}
+
+	private void executeBatch() throws SQLException {
+		if (batchedStatements > 0) {
+			statement.executeBatch();
+			connection.commit();
+			rows += (long) batchedStatements * rowsPerStatement;
+			batchedStatements = 0;
+		}
+	}
+
+	private void bind(PreparedStatement target, int rowCount) throws SQLException {
+		for (int i = 0; i < rowCount * columns.length; i++) {
+			target.setObject(i + 1, pending[i]);
+		}
+		Arrays.fill(pending, null);
+	}
+
+	private String sql(int rowCount) {
+		String row = "(" + "?, ".repeat(columns.length - 1) + "?)";
+		return "insert into " + table + " (" + String.join(", ", columns) + ") values "
+				+ String.join(", ", Collections.nCopies(rowCount, row));
+	}
+}
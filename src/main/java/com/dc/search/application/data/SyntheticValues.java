@@ -0,0 +1,92 @@
+package com.dc.search.application.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Dictionaries of realistic values. Real names come first, larger cardinalities are filled with names built from
+ * syllables.
+ */
+final class SyntheticValues {
+
+	private static final List<String> FIRST_NAMES = List.of("James", "Mary", "John", "Patricia", "Robert", "Jennifer",
+			"Michael", "Linda", "William", "Elizabeth", "David", "Barbara", "Richard", "Susan", "Joseph", "Jessica",
+			"Thomas", "Sarah", "Charles", "Karen", "Daniel", "Nancy", "Matthew", "Lisa", "Anthony", "Betty", "Mark",
+			"Sandra", "Paul", "Ashley", "Steven", "Emily", "Andrew", "Donna", "Kenneth", "Michelle", "Joshua", "Carol",
+			"Kevin", "Amanda", "Brian", "Melissa", "George", "Deborah", "Timothy", "Stephanie", "Ronald", "Rebecca",
+			"Jason", "Laura", "Luka", "Ana", "Ivan", "Marija", "Arjun", "Priya", "Wei", "Mei", "Hans", "Sophie");
+
+	private static final List<String> LAST_NAMES = List.of("Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia",
+			"Miller", "Davis", "Rodriguez", "Martinez", "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas",
+			"Taylor", "Moore", "Jackson", "Martin", "Lee", "Perez", "Thompson", "White", "Harris", "Sanchez", "Clark",
+			"Ramirez", "Lewis", "Robinson", "Walker", "Young", "Allen", "King", "Wright", "Scott", "Torres", "Nguyen",
+			"Hill", "Flores", "Horvat", "Kovacic", "Babic", "Sharma", "Patel", "Singh", "Wang", "Li", "Zhang", "Muller",
+			"Schmidt", "Schneider", "Fischer", "Weber", "Dubois", "Martin", "Bernard", "Rossi", "Russo", "Ferrari");
+
+	private static final String[][] COUNTRIES = {
+			{"United States of America", "USA"}, {"India", "IND"}, {"China", "CHN"}, {"Brazil", "BRA"},
+			{"Germany", "DEU"}, {"United Kingdom", "GBR"}, {"France", "FRA"}, {"Indonesia", "IDN"}, {"Mexico", "MEX"},
+			{"Japan", "JPN"}, {"Nigeria", "NGA"}, {"Russia", "RUS"}, {"Philippines", "PHL"}, {"Canada", "CAN"},
+			{"Italy", "ITA"}, {"Spain", "ESP"}, {"Poland", "POL"}, {"Argentina", "ARG"}, {"Croatia", "HRV"},
+			{"Sweden", "SWE"}, {"Netherlands", "NLD"}, {"Portugal", "PRT"}, {"Greece", "GRC"}, {"Egypt", "EGY"},
+			{"Kenya", "KEN"}, {"Australia", "AUS"}, {"South Africa", "ZAF"}, {"Turkey", "TUR"}, {"Vietnam", "VNM"},
+			{"Thailand", "THA"}, {"Norway", "NOR"}, {"Finland", "FIN"}, {"Ireland", "IRL"}, {"Austria", "AUT"},
+			{"Switzerland", "CHE"}, {"Chile", "CHL"}, {"Peru", "PER"}, {"Colombia", "COL"}, {"Morocco", "MAR"},
+			{"Pakistan", "PAK"}};
+
+	static final List<String> DOMAINS = List.of("gmail.com", "yahoo.com", "outlook.com", "hotmail.com", "icloud.com",
+			"proton.me", "mail.com", "gmx.de", "yandex.ru", "example.com");
+
+	static final List<String> STREETS = List.of("Main", "Oak", "Pine", "Maple", "Cedar", "Elm", "Washington", "Lake",
+			"Hill", "Park", "Church", "High", "Mill", "River", "Station", "Spring", "North", "South", "Sunset", "Forest");
+
+	static final List<String> STREET_TYPES = List.of("St", "Ave", "Rd", "Blvd", "Ln", "Dr", "Way", "Ct");
+
+	private static final String[] SYLLABLES = {"ka", "ren", "mi", "lo", "sa", "an", "tor", "el", "vi", "na", "ro",
+			"bel", "da", "ni", "ja", "mar", "li", "so", "ter", "ra", "ko", "ve", "lin", "do", "ha", "zu", "pe", "gor"};
+
+	private SyntheticValues() {
+	}
+
+	static List<String> firstNames(int cardinality) {
+		return names(FIRST_NAMES, cardinality);
+	}
+
+	static List<String> lastNames(int cardinality) {
+		return names(LAST_NAMES, cardinality);
+	}
+
+	/**
+	 * Returns the name and code of the country with the given index, real ones first.
+	 */
+	static String[] country(int index) {
+		if (index < COUNTRIES.length) {
+			return COUNTRIES[index];
+		}
+		String name = syllables(index);
+		return new String[]{name, name.substring(0, 3).toUpperCase(Locale.ROOT) + index};
+	}
+
+	private static List<String> names(List<String> real, int cardinality) {
+		List<String> names = new ArrayList<>(cardinality);
+		for (int i = 0; i < cardinality; i++) {
+			names.add(i < real.size() ? real.get(i) : syllables(i));
+		}
+		return names;
+	}
+
+	/**
+	 * Builds a capitalized name from the digits of the index in base of the syllable count.
+	 */
+	private static String syllables(int index) {
+		StringBuilder name = new StringBuilder();
+		int remaining = index;
+		do {
+			name.append(SYLLABLES[remaining % SYLLABLES.length]);
+			remaining /= SYLLABLES.length;
+		} while (remaining > 0 || name.length() < 4);
+		name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+		return name.toString();
+	}
+}
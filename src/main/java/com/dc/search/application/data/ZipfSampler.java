@@ -0,0 +1,37 @@
+package com.dc.search.application.data;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Samples ranks 0..size-1 from a Zipf distribution, rank k is drawn with a probability proportional to
+ * 1 / (k + 1)^exponent. An exponent of 0 is uniform, 1 is the classic Zipf skew of natural data.
+ */
+final class ZipfSampler {
+
+	private final double[] cumulative;
+
+	ZipfSampler(int size, double exponent) {
+		if (size < 1) {
+			throw new IllegalArgumentException("Zipf distribution needs at least one value.");
+		}
+		cumulative = new double[size];
+		double sum = 0;
+		for (int i = 0; i < size; i++) {
+			sum += 1 / Math.pow(i + 1, exponent);
+			cumulative[i] = sum;
+		}
+		for (int i = 0; i < size; i++) {
+			cumulative[i] /= sum;
+		}
+	}
+
+	int sample(SplittableRandom random) {
+		int index = Arrays.binarySearch(cumulative, random.nextDouble());
+		return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+	}
+
+	int size() {
+		return cumulative.length;
+	}
+}
@@ -1,5 +1,6 @@
 package com.dc.search.application.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -24,6 +25,7 @@ public class Address {
 	private String line2;
 	private Integer number;
 
+	@JsonIgnore
 	@ManyToOne
 	@JoinColumn(name = "person_id", referencedColumnName = "id")
 	private Person person;
@@ -1,6 +1,9 @@
 package com.dc.search.application.entity;
 
+import com.dc.search.implementation.fetch.FetchPlan;
+import com.fasterxml.jackson.annotation.JsonFilter;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
@@ -9,6 +12,7 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -20,6 +24,7 @@ import java.util.List;
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
+@JsonFilter(FetchPlan.JSON_FILTER)
 public class Person {
 
 	@Id
@@ -33,10 +38,11 @@ public class Person {
 	private String ipAddress;
 	private LocalDate birthdate;
 
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "country_id")
 	private Country country;
 
+	@BatchSize(size = 100)
 	@OneToMany(mappedBy = "person")
 	private List<Address> address = new ArrayList<>();
 
@@ -0,0 +1,39 @@
+package com.dc.search.application.repository;
+
+import com.dc.search.application.entity.Person;
+import com.dc.search.implementation.facet.FacetValue;
+import com.dc.search.implementation.keyset.KeysetPage;
+import com.dc.search.implementation.keyset.KeysetPageRequest;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Search queries on {@link Person} that go beyond {@link org.springframework.data.jpa.repository.JpaSpecificationExecutor}.
+ */
+public interface PersonSearchRepository {
+
+	KeysetPage<Person> findPage(Specification<Person> specification, KeysetPageRequest request);
+
+	/**
+	 * Streams all matches to the action in a read only transaction without collecting them, returns the match count.
+	 * The expanded associations are loaded for blocks of rows at a time, see
+	 * {@link com.dc.search.implementation.stream.ScrollingSearch}.
+	 */
+	long streamAll(Specification<Person> specification, Set<String> expand, Consumer<? super Person> action);
+
+	/**
+	 * Counts the matches per value of every facet field in one aggregate query, see
+	 * {@link com.dc.search.implementation.facet.FacetQuery}.
+	 */
+	Map<String, List<FacetValue>> countFacets(Specification<Person> specification, List<String> facets);
+
+	/**
+	 * Loads only the given fields of the matches, all of them or the first {@code limit} by id if the limit is
+	 * positive, see {@link com.dc.search.implementation.projection.ProjectionQuery}.
+	 */
+	List<Map<String, Object>> findFields(Specification<Person> specification, List<String> fields, int limit);
+}
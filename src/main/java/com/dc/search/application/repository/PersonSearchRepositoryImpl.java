@@ -0,0 +1,69 @@
+package com.dc.search.application.repository;
+
+import com.dc.search.application.config.SearchProperties;
+import com.dc.search.application.entity.Person;
+import com.dc.search.implementation.facet.FacetQuery;
+import com.dc.search.implementation.facet.FacetValue;
+import com.dc.search.implementation.keyset.KeysetPage;
+import com.dc.search.implementation.keyset.KeysetPageRequest;
+import com.dc.search.implementation.keyset.KeysetPagination;
+import com.dc.search.implementation.person.PersonAttributeIndex;
+import com.dc.search.implementation.person.PersonFetchPlan;
+import com.dc.search.implementation.projection.ProjectionQuery;
+import com.dc.search.implementation.stream.ScrollingSearch;
+import jakarta.persistence.EntityManager;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+@Transactional(readOnly = true)
+public class PersonSearchRepositoryImpl implements PersonSearchRepository {
+
+	private final KeysetPagination<Person> keysetPagination;
+	private final ScrollingSearch<Person> scrollingSearch;
+	private final FacetQuery<Person> facetQuery;
+	private final ProjectionQuery<Person> projectionQuery;
+	private final PersonFetchPlan fetchPlan;
+	private final TransactionTemplate readOnlyTransaction;
+
+	public PersonSearchRepositoryImpl(EntityManager entityManager, PlatformTransactionManager transactionManager,
+									  SearchProperties properties, PersonAttributeIndex attributeIndex,
+									  PersonFetchPlan fetchPlan) {
+		this.keysetPagination = new KeysetPagination<>(entityManager, Person.class);
+		this.scrollingSearch = new ScrollingSearch<>(entityManager, Person.class,
+				properties.getStream().getFetchSize(), properties.getStream().getClearInterval());
+		this.facetQuery = new FacetQuery<>(entityManager, attributeIndex, properties.getFacets().getMaxFields());
+		this.projectionQuery = new ProjectionQuery<>(entityManager, attributeIndex);
+		this.fetchPlan = fetchPlan;
+		this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+		this.readOnlyTransaction.setReadOnly(true);
+	}
+
+	@Override
+	public KeysetPage<Person> findPage(Specification<Person> specification, KeysetPageRequest request) {
+		return keysetPagination.findPage(specification, request);
+	}
+
+	@Override
+	public long streamAll(Specification<Person> specification, Set<String> expand, Consumer<? super Person> action) {
+		// streaming responses are written outside of the request thread, so the transaction is opened explicitly
+		return readOnlyTransaction.execute(status -> scrollingSearch.forEach(fetchPlan.fetching(specification, expand),
+				block -> fetchPlan.initialize(block, expand), action));
+	}
+
+	@Override
+	public Map<String, List<FacetValue>> countFacets(Specification<Person> specification, List<String> facets) {
+		return facetQuery.count(specification, facets);
+	}
+
+	@Override
+	public List<Map<String, Object>> findFields(Specification<Person> specification, List<String> fields, int limit) {
+		return projectionQuery.findAll(specification, fields, limit);
+	}
+}
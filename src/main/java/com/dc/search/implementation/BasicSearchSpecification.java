@@ -1,20 +1,21 @@
 package com.dc.search.implementation;
 
+import com.dc.search.implementation.metamodel.SearchAttribute;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
 import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
 
-import java.math.BigDecimal;
-import java.time.LocalDate;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
 import java.util.Set;
-import java.util.UUID;
-import java.util.stream.Collectors;
 
 public abstract class BasicSearchSpecification {
 
@@ -27,141 +28,213 @@ public abstract class BasicSearchSpecification {
 	public static final String GREATER_OR_EQUALS = "GTE";
 	public static final String IN = "IN";
 	public static final String NOT_IN = "NOT_IN";
-
-
+	public static final String STARTS_WITH = "STARTS_WITH";
+	public static final String ENDS_WITH = "ENDS_WITH";
+	public static final String ILIKE = "ILIKE";
+	public static final String EQUALS_IGNORE_CASE = "EQ_IGNORE_CASE";
+
+	/**
+	 * Text operations that no b-tree index on the column can serve, so the database has to check every row. STARTS_WITH
+	 * is not one of them, its LIKE 'value%' becomes a range scan on an index of the column. A case-insensitive match
+	 * can use an index on lower(column) on databases with expression indexes, H2 has none.
+	 */
+	public static final Set<String> TEXT_SCAN_OPERATIONS = Set.of(LIKE, ILIKE, ENDS_WITH, EQUALS_IGNORE_CASE);
+
+	private static final char ESCAPE = '\\';
+
+	/**
+	 * Builds the predicate for criteria resolved by the attribute index. Field, operation and value were validated
+	 * when the search was compiled, so this only navigates the precomputed path and binds the converted value.
+	 * <p>
+	 * Criteria on a path through a to-many association, e.g. "address.line1", become a correlated EXISTS subquery
+	 * instead of a join, so every entity is returned once and the database can stop at the first matching element.
+	 * Each such criterion has its own subquery, two criteria on "address" may be matched by different addresses.
+	 */
 	public <T> Predicate toPredicateBasic(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder cb,
-									  SearchCriteria criteria) {
-		final String key = criteria.getKey();
-		final Object value = getValue(root, key, criteria.getValue());
-
-		final String operation = criteria.getOperation().toUpperCase();
-		return switch (operation) {
-			case GREATER -> withGreater(key, value, root, cb);
-			case GREATER_OR_EQUALS -> withGreaterOrEquals(key, value, root, cb);
-			case LESS -> withLess(key, value, root, cb);
-			case LESS_OR_EQUALS -> withLessOrEquals(key, value, root, cb);
-			case LIKE -> withLike(key, value, root, cb);
-			case IN -> withIn(key, value, root, cb);
-			case NOT_IN -> withNotIn(key, value, root, cb);
-			case EQUALS -> withEquals(key, value, root, cb);
-			case NOT_EQUALS -> withNotEquals(key, value, root, cb);
-			default -> throw new RuntimeException("Unsupported search operation: " + operation);
-		};
+										  ResolvedCriteria criteria) {
+		return toPredicateBasic(root, query, cb, criteria, null);
 	}
 
-	private <T> Object getValue(Root<T> root, String key, String value) {
-		Class<?> javaType = extractEntity(key, root).getJavaType();
-
-		if (value.contains(",") && javaType != Collection.class) {
-			return Arrays.stream(value.split(","))
-					.map(i -> getValue(root, key, i))
-					.collect(Collectors.toList());
+	/**
+	 * Same as {@link #toPredicateBasic(Root, CriteriaQuery, CriteriaBuilder, ResolvedCriteria)}, criteria with a
+	 * {@link #TEXT_SCAN_OPERATIONS text scan operation} are additionally restricted to the candidates of the accelerator
+	 * if it has any.
+	 */
+	public <T> Predicate toPredicateBasic(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder cb,
+										  ResolvedCriteria criteria, LikeAccelerator likeAccelerator) {
+		final SearchAttribute attribute = criteria.attribute();
+		final From<?, ?> from = joinAssociations(attribute, root);
+		if (!attribute.isCollectionValued()) {
+			final Predicate predicate = toPredicate(extractEntity(attribute, from, attribute.getJoinPaths().size()), criteria, cb);
+			if (likeAccelerator != null && TEXT_SCAN_OPERATIONS.contains(criteria.operation())) {
+				final Predicate candidates = likeAccelerator.candidates(root, cb, attribute, criteria.value().toString());
+				if (candidates != null) {
+					return cb.and(candidates, predicate);
+				}
+			}
+			return predicate;
 		}
 
-		if (javaType == Boolean.class || javaType.getTypeName().equals("boolean")) {
-			return Boolean.parseBoolean(value);
-		} else if (Number.class.isAssignableFrom(javaType)) {
-			return BigDecimal.valueOf(Double.parseDouble(value));
-		} else if (javaType == UUID.class) {
-			return UUID.fromString(value);
-		} else if (javaType == LocalDate.class) {
-			return Utils.parseDateFromString(value);
-		} else if (javaType == List.class) {
-			return Arrays.asList(value.split(","));
-		} else if (javaType == Set.class) {
-			return Set.of(value.split(","));
-		} else {
-			return value;
+		final Subquery<Integer> subquery = query.subquery(Integer.class);
+		From<?, ?> correlated = from instanceof Root<?> correlatedRoot
+				? subquery.correlate(correlatedRoot)
+				: subquery.correlate((Join<?, ?>) from);
+		final List<SearchAttribute.Segment> segments = attribute.getSegments();
+		int index = attribute.getJoinPaths().size();
+		while (segments.get(index).kind() == SearchAttribute.Kind.SINGULAR_ASSOCIATION
+				|| segments.get(index).kind() == SearchAttribute.Kind.PLURAL_ASSOCIATION) {
+			correlated = correlated.join(segments.get(index++).name());
 		}
+		subquery.select(cb.literal(1))
+				.where(toPredicate(extractEntity(attribute, correlated, index), criteria, cb));
+		return cb.exists(subquery);
+	}
+
+	private Predicate toPredicate(Expression<Object> expression, ResolvedCriteria criteria, CriteriaBuilder cb) {
+		final Object value = criteria.value();
+
+		return switch (criteria.operation()) {
+			case GREATER -> withGreater(expression, value, cb);
+			case GREATER_OR_EQUALS -> withGreaterOrEquals(expression, value, cb);
+			case LESS -> withLess(expression, value, cb);
+			case LESS_OR_EQUALS -> withLessOrEquals(expression, value, cb);
+			case LIKE -> withLike(expression, value, cb);
+			case STARTS_WITH -> withStartsWith(expression, value, cb);
+			case ENDS_WITH -> withEndsWith(expression, value, cb);
+			case ILIKE -> withIlike(expression, value, cb);
+			case EQUALS_IGNORE_CASE -> withEqualsIgnoreCase(expression, value, cb);
+			case IN -> withIn(expression, value, cb);
+			case NOT_IN -> withNotIn(expression, value, cb);
+			case EQUALS -> withEquals(expression, value, cb);
+			case NOT_EQUALS -> withNotEquals(expression, value, cb);
+			default -> throw new RuntimeException("Unsupported search operation: " + criteria.operation());
+		};
 	}
 
-	private <T> Predicate withLike(String key, Object value, Root<T> root, CriteriaBuilder cb) {
+	private Predicate withLike(Expression<Object> expression, Object value, CriteriaBuilder cb) {
 		// TODO: add formatting for local date
-		return cb.like(extractEntity(key, root).as(String.class), "%" + value.toString() + "%");
+		return cb.like(expression.as(String.class), "%" + value.toString() + "%");
 	}
 
-	private <T> Predicate withEquals(String key, Object value, Root<T> root, CriteriaBuilder cb) {
-		return cb.equal(extractEntity(key, root), value);
+	/*
+	 * The following operations are only allowed on string attributes, so they compare the column itself instead of a
+	 * cast. Their values are literal text, wildcards in them are escaped.
+	 */
+
+	private Predicate withStartsWith(Expression<Object> expression, Object value, CriteriaBuilder cb) {
+		return cb.like(text(expression), escape(value) + "%", ESCAPE);
 	}
 
-	private <T> Predicate withNotEquals(String key, Object value, Root<T> root, CriteriaBuilder cb) {
-		return cb.notEqual(extractEntity(key, root), value);
+	private Predicate withEndsWith(Expression<Object> expression, Object value, CriteriaBuilder cb) {
+		return cb.like(text(expression), "%" + escape(value), ESCAPE);
 	}
 
-	private <T> Predicate withGreater(String key, Object value, Root<T> root, CriteriaBuilder cb) {
-		final Expression<Object> expression = extractEntity(key, root);
-		final Class<?> javaType = expression.getJavaType();
-		if (javaType == LocalDate.class) {
-			return cb.greaterThan(expression.as(LocalDate.class), (LocalDate) value);
-		} else if (Number.class.isAssignableFrom(javaType)) {
-			return cb.greaterThan(expression.as(BigDecimal.class), (BigDecimal) value);
-		} else if (javaType == String.class) {
-			return cb.greaterThan(expression.as(String.class), (String) value);
-		} else {
-			throw new RuntimeException("Unsupported java type ({" + javaType.getTypeName() + "}) for GR operation");
-		}
+	/**
+	 * Case-insensitive LIKE, the value may contain wildcards like the one of LIKE.
+	 */
+	private Predicate withIlike(Expression<Object> expression, Object value, CriteriaBuilder cb) {
+		return cb.like(cb.lower(text(expression)), "%" + value.toString().toLowerCase(Locale.ROOT) + "%");
 	}
 
-	private <T> Predicate withGreaterOrEquals(String key, Object value, Root<T> root, CriteriaBuilder cb) {
-		final Expression<Object> expression = extractEntity(key, root);
-		final Class<?> javaType = expression.getJavaType();
-		if (javaType == LocalDate.class) {
-			return cb.greaterThanOrEqualTo(expression.as(LocalDate.class), (LocalDate) value);
-		} else if (Number.class.isAssignableFrom(javaType)) {
-			return cb.greaterThanOrEqualTo(expression.as(BigDecimal.class), (BigDecimal) value);
-		} else if (javaType == String.class) {
-			return cb.greaterThanOrEqualTo(expression.as(String.class), (String) value);
-		} else {
-			throw new RuntimeException("Unsupported java type ({" + javaType.getTypeName() + "}) for GRE operation");
-		}
+	private Predicate withEqualsIgnoreCase(Expression<Object> expression, Object value, CriteriaBuilder cb) {
+		return cb.equal(cb.lower(text(expression)), value.toString().toLowerCase(Locale.ROOT));
 	}
 
-	private <T> Predicate withLess(String key, Object value, Root<T> root, CriteriaBuilder cb) {
-		final Expression<Object> expression = extractEntity(key, root);
-		final Class<?> javaType = expression.getJavaType();
-		if (javaType == LocalDate.class) {
-			return cb.lessThan(expression.as(LocalDate.class), (LocalDate) value);
-		} else if (Number.class.isAssignableFrom(javaType)) {
-			return cb.lessThan(expression.as(BigDecimal.class), (BigDecimal) value);
-		} else if (javaType == String.class) {
-			return cb.lessThan(expression.as(String.class), (String) value);
-		} else {
-			throw new RuntimeException("Unsupported java type ({" + javaType.getTypeName() + "}) for LS operation");
+	private static String escape(Object value) {
+		final String text = value.toString();
+		final StringBuilder escaped = new StringBuilder(text.length() + 4);
+		for (int i = 0; i < text.length(); i++) {
+			final char ch = text.charAt(i);
+			if (ch == '%' || ch == '_' || ch == ESCAPE) {
+				escaped.append(ESCAPE);
+			}
+			escaped.append(ch);
 		}
+		return escaped.toString();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Expression<String> text(Expression<Object> expression) {
+		return (Expression<String>) (Expression<?>) expression;
+	}
+
+	private Predicate withEquals(Expression<Object> expression, Object value, CriteriaBuilder cb) {
+		return cb.equal(expression, value);
+	}
+
+	private Predicate withNotEquals(Expression<Object> expression, Object value, CriteriaBuilder cb) {
+		return cb.notEqual(expression, value);
+	}
+
+	/*
+	 * Comparisons are made on the attribute in its mapped type, without a cast, so the database can use an index on
+	 * the column. The attribute index only allows them on comparable types and converts values into the same type.
+	 */
+
+	private Predicate withGreater(Expression<Object> expression, Object value, CriteriaBuilder cb) {
+		return cb.greaterThan(comparable(expression), comparable(value));
+	}
+
+	private Predicate withGreaterOrEquals(Expression<Object> expression, Object value, CriteriaBuilder cb) {
+		return cb.greaterThanOrEqualTo(comparable(expression), comparable(value));
+	}
+
+	private Predicate withLess(Expression<Object> expression, Object value, CriteriaBuilder cb) {
+		return cb.lessThan(comparable(expression), comparable(value));
 	}
 
-	private <T> Predicate withLessOrEquals(String key, Object value, Root<T> root, CriteriaBuilder cb) {
-		final Expression<Object> expression = this.extractEntity(key, root);
-		final Class<?> javaType = expression.getJavaType();
-		if (javaType == LocalDate.class) {
-			return cb.lessThanOrEqualTo(expression.as(LocalDate.class), (LocalDate) value);
-		} else if (Number.class.isAssignableFrom(javaType)) {
-			return cb.lessThanOrEqualTo(expression.as(BigDecimal.class), (BigDecimal) value);
-		} else if (javaType == String.class) {
-			return cb.lessThanOrEqualTo(expression.as(String.class), (String) value);
+	private Predicate withLessOrEquals(Expression<Object> expression, Object value, CriteriaBuilder cb) {
+		return cb.lessThanOrEqualTo(comparable(expression), comparable(value));
+	}
+
+	private Predicate withIn(Expression<Object> expression, Object value, CriteriaBuilder cb) {
+		return inValues(cb.in(expression), value);
+	}
+
+	private Predicate withNotIn(Expression<Object> expression, Object value, CriteriaBuilder cb) {
+		return cb.not(inValues(cb.in(expression), value));
+	}
+
+	private static CriteriaBuilder.In<Object> inValues(CriteriaBuilder.In<Object> in, Object value) {
+		if (value instanceof Collection<?> values) {
+			values.forEach(in::value);
 		} else {
-			throw new RuntimeException("Unsupported java type ({" + javaType.getTypeName() + "}) for LSE operation");
+			in.value(value);
 		}
+		return in;
 	}
 
-	private <T> Predicate withIn(String key, Object value, Root<T> root, CriteriaBuilder cb) {
-		return cb.in(extractEntity(key, root)).value(value);
+	@SuppressWarnings("unchecked")
+	private static Expression<Comparable<Object>> comparable(Expression<Object> expression) {
+		return (Expression<Comparable<Object>>) (Expression<?>) expression;
 	}
 
-	private <T> Predicate withNotIn(String key, Object value, Root<T> root, CriteriaBuilder cb) {
-		return cb.not(cb.in(extractEntity(key, root)).value(value));
+	@SuppressWarnings("unchecked")
+	private static Comparable<Object> comparable(Object value) {
+		return (Comparable<Object>) value;
 	}
 
-	private <T> Expression<Object> extractEntity(String key, Root<T> root) {
-		if (key.contains(".")) {
-			String[] sections = key.split("\\.");
-			Path<Object> path = root.get(sections[0]);
-			for(int i=1; i<sections.length; i++) {
-				path = path.get(sections[i]);
-			}
-			return path;
+	/**
+	 * Joins the association paths of the attribute in the main query. Joins planned by the
+	 * {@link SpecificationBuilder} are already on the root and get reused, otherwise an inner join is created once
+	 * and shared with the following criteria of the query.
+	 */
+	private <T> From<?, ?> joinAssociations(SearchAttribute attribute, Root<T> root) {
+		final List<SearchAttribute.Segment> segments = attribute.getSegments();
+		From<?, ?> from = root;
+		for (int i = 0; i < attribute.getJoinPaths().size(); i++) {
+			from = JoinPlan.join(from, segments.get(i).name(), JoinType.INNER);
+		}
+		return from;
+	}
+
+	private Expression<Object> extractEntity(SearchAttribute attribute, From<?, ?> from, int index) {
+		final List<SearchAttribute.Segment> segments = attribute.getSegments();
+		Path<Object> path = from.get(segments.get(index).name());
+		for (int i = index + 1; i < segments.size(); i++) {
+			path = path.get(segments.get(i).name());
 		}
-		return root.get(key);
+		return path;
 	}
 
 }
@@ -0,0 +1,46 @@
+package com.dc.search.implementation;
+
+import com.dc.search.implementation.budget.SearchCost;
+import com.dc.search.implementation.parser.SearchExpression;
+import lombok.Getter;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Immutable result of parsing a search string, normalizing it and assembling its specification. Instances hold no
+ * per query state and are shared between requests through the {@link SearchCompiler} cache.
+ * <p>
+ * The key is the search string without insignificant whitespace, the canonical key is the text of the normalized
+ * expression and is the same for all equivalent searches.
+ */
+@Getter
+public final class CompiledSearch<T> {
+
+	private final String key;
+	private final String canonicalKey;
+	private final SearchExpression expression;
+	private final Specification<T> specification;
+	private final SearchCost cost;
+
+	CompiledSearch(String key, SearchExpression expression, Specification<T> specification, SearchCost cost) {
+		this.key = key;
+		this.canonicalKey = expression == null ? "" : expression.toString();
+		this.expression = expression;
+		this.specification = specification;
+		this.cost = cost;
+	}
+
+	/**
+	 * Returns true if the search has no criteria and matches all entities.
+	 */
+	public boolean isUnrestricted() {
+		return expression == null;
+	}
+
+	/**
+	 * Returns true if the search was normalized into a contradiction, its results are known to be empty without
+	 * querying the database.
+	 */
+	public boolean matchesNothing() {
+		return expression instanceof SearchExpression.MatchNone;
+	}
+}
@@ -0,0 +1,25 @@
+package com.dc.search.implementation;
+
+import com.dc.search.implementation.parser.SearchExpression;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.util.function.Function;
+
+/**
+ * In-memory index that evaluates some criteria into the ids of the matching entities, so the database only has to
+ * filter on the ids. The {@link SpecificationBuilder} hands over every part of a search whose criteria are all
+ * covered by the index.
+ */
+public interface CriteriaIdIndex {
+
+	boolean covers(ResolvedCriteria criteria);
+
+	/**
+	 * Returns the predicate on the ids of the entities matching the expression, whose criteria are all covered, or
+	 * null if the index can not narrow them down and the criteria have to be applied by the database.
+	 */
+	Predicate matching(Root<?> root, CriteriaBuilder cb, SearchExpression expression,
+					   Function<SearchExpression.Criterion, ResolvedCriteria> resolved);
+}
@@ -0,0 +1,16 @@
+package com.dc.search.implementation;
+
+/**
+ * Thrown for invalid input of a search request, e.g. a malformed search string, an unknown field, a bad cursor or an
+ * out of range parameter. Answered with 400, unlike other exceptions, which are server errors.
+ */
+public class InvalidSearchException extends IllegalArgumentException {
+
+	public InvalidSearchException(String message) {
+		super(message);
+	}
+
+	public InvalidSearchException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
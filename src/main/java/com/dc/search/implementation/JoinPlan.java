@@ -0,0 +1,127 @@
+package com.dc.search.implementation;
+
+import com.dc.search.implementation.parser.LogicalOperator;
+import jakarta.persistence.criteria.Fetch;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Root;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Association paths a search has to join, each with the join type it needs. A path is joined with INNER JOIN when
+ * every match of the search has to satisfy a criterion on it, which is the case unless the only criteria on the path
+ * sit in an OR branch. Other paths are joined with LEFT JOIN, so rows without the association can still match the
+ * other branches.
+ * <p>
+ * Plans are immutable and built once per compiled search. {@link #apply} creates the joins on a query root and the
+ * criteria specifications find them again through {@link #join}, so every criterion on one association shares a
+ * single join.
+ */
+public final class JoinPlan {
+
+	public static final JoinPlan EMPTY = new JoinPlan(Set.of(), Set.of());
+
+	/** all referenced paths, parents before children */
+	private final Set<String> referenced;
+	/** paths every match has to have */
+	private final Set<String> required;
+
+	private JoinPlan(Set<String> referenced, Set<String> required) {
+		this.referenced = referenced;
+		this.required = required;
+	}
+
+	/**
+	 * Plan of a single criterion, it needs all of its paths since a criterion never matches a missing association.
+	 */
+	public static JoinPlan of(List<String> paths) {
+		if (paths.isEmpty()) {
+			return EMPTY;
+		}
+		Set<String> set = new LinkedHashSet<>(paths);
+		return new JoinPlan(set, set);
+	}
+
+	public static JoinPlan combine(LogicalOperator operator, Collection<JoinPlan> children) {
+		Set<String> referenced = new LinkedHashSet<>();
+		Set<String> required = null;
+		for (JoinPlan child : children) {
+			referenced.addAll(child.referenced);
+			if (required == null) {
+				required = new HashSet<>(child.required);
+			} else if (operator == LogicalOperator.AND) {
+				required.addAll(child.required);
+			} else {
+				required.retainAll(child.required);
+			}
+		}
+		if (referenced.isEmpty()) {
+			return EMPTY;
+		}
+		return new JoinPlan(referenced, required);
+	}
+
+	public boolean isEmpty() {
+		return referenced.isEmpty();
+	}
+
+	public Map<String, JoinType> getJoins() {
+		Map<String, JoinType> joins = new LinkedHashMap<>();
+		for (String path : referenced) {
+			joins.put(path, joinType(path));
+		}
+		return joins;
+	}
+
+	public JoinType joinType(String path) {
+		return required.contains(path) ? JoinType.INNER : JoinType.LEFT;
+	}
+
+	/**
+	 * Creates the planned joins on the root, reusing joins and fetches that are already there.
+	 */
+	public void apply(Root<?> root) {
+		for (String path : referenced) {
+			From<?, ?> from = root;
+			int start = 0;
+			int end;
+			do {
+				end = path.indexOf('.', start);
+				String name = end < 0 ? path.substring(start) : path.substring(start, end);
+				from = join(from, name, joinType(end < 0 ? path : path.substring(0, end)));
+				start = end + 1;
+			} while (end >= 0);
+		}
+	}
+
+	/**
+	 * Returns the join of the attribute on {@code from}, creating it with the given type if there is none yet. Fetch
+	 * joins are reused as well, a fetched to-one association filters the same as a plain join.
+	 */
+	public static Join<?, ?> join(From<?, ?> from, String attribute, JoinType type) {
+		for (Join<?, ?> join : from.getJoins()) {
+			if (join.getAttribute().getName().equals(attribute)) {
+				return join;
+			}
+		}
+		for (Fetch<?, ?> fetch : from.getFetches()) {
+			if (fetch instanceof Join<?, ?> join && fetch.getAttribute().getName().equals(attribute)) {
+				return join;
+			}
+		}
+		return from.join(attribute, type);
+	}
+
+	@Override
+	public String toString() {
+		return getJoins().toString();
+	}
+}
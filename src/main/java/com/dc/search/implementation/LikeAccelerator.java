@@ -0,0 +1,20 @@
+package com.dc.search.implementation;
+
+import com.dc.search.implementation.metamodel.SearchAttribute;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+/**
+ * Narrows LIKE criteria down to candidate entities found outside the database, e.g. in a trigram index. The
+ * candidate predicate is combined with the LIKE, so candidates only have to be a superset of the matches. It is also
+ * used for the other {@link BasicSearchSpecification#TEXT_SCAN_OPERATIONS}, whose matches contain their value as well.
+ */
+public interface LikeAccelerator {
+
+	/**
+	 * Returns a predicate restricting the root to the candidates for the LIKE value, or null if the attribute or
+	 * value can not be narrowed down.
+	 */
+	Predicate candidates(Root<?> root, CriteriaBuilder cb, SearchAttribute attribute, String value);
+}
@@ -0,0 +1,129 @@
+package com.dc.search.implementation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Thread safe in memory index over fields of entities with int ids, whose entries are held by the {@link IndexData}
+ * of the subclass. The index is rebuilt from a full scan, changes made while the scan runs are replayed onto the
+ * rebuilt index before it replaces the old one.
+ *
+ * @param <V> type of the indexed field values
+ * @param <D> data holding the entries of the index
+ */
+public abstract class RebuildableIndex<V, D extends RebuildableIndex.IndexData<V>> {
+
+	private final List<String> fields;
+	private final IntFunction<D> dataFactory;
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private D data;
+	private List<Consumer<D>> pending;
+	private volatile boolean ready;
+
+	/**
+	 * @param dataFactory creates empty data for the given number of fields
+	 */
+	protected RebuildableIndex(List<String> fields, IntFunction<D> dataFactory) {
+		this.fields = List.copyOf(fields);
+		this.dataFactory = dataFactory;
+		this.data = dataFactory.apply(this.fields.size());
+	}
+
+	public List<String> getFields() {
+		return fields;
+	}
+
+	/**
+	 * Returns true once the index was built, before that it can not answer queries.
+	 */
+	public boolean isReady() {
+		return ready;
+	}
+
+	/**
+	 * Indexes the values of the entity, in the order of the fields, replacing what was indexed for it before.
+	 */
+	public void put(int id, List<V> values) {
+		apply(data -> data.put(id, values));
+	}
+
+	public void remove(int id) {
+		apply(data -> data.remove(id));
+	}
+
+	/**
+	 * Replaces the index with the entities passed to the consumer by the loader.
+	 */
+	public void rebuild(Consumer<BiConsumer<Integer, List<V>>> loader) {
+		final D rebuilt = dataFactory.apply(fields.size());
+		lock.writeLock().lock();
+		try {
+			pending = new ArrayList<>();
+		} finally {
+			lock.writeLock().unlock();
+		}
+
+		try {
+			loader.accept(rebuilt::put);
+		} finally {
+			lock.writeLock().lock();
+			try {
+				pending.forEach(change -> change.accept(rebuilt));
+				pending = null;
+				data = rebuilt;
+				ready = true;
+			} finally {
+				lock.writeLock().unlock();
+			}
+		}
+	}
+
+	/**
+	 * Number of indexed entities.
+	 */
+	public int size() {
+		return read(IndexData::size);
+	}
+
+	/**
+	 * Runs the query on the current data while holding the read lock.
+	 */
+	protected <R> R read(Function<D, R> query) {
+		lock.readLock().lock();
+		try {
+			return query.apply(data);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private void apply(Consumer<D> change) {
+		lock.writeLock().lock();
+		try {
+			change.accept(data);
+			if (pending != null) {
+				pending.add(change);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Entries of an index, only accessed under the lock of the index.
+	 */
+	protected interface IndexData<V> {
+
+		void put(int id, List<V> values);
+
+		void remove(int id);
+
+		int size();
+	}
+}
@@ -0,0 +1,14 @@
+package com.dc.search.implementation;
+
+import com.dc.search.implementation.metamodel.SearchAttribute;
+
+/**
+ * Search criteria validated against the attribute index, with the operation normalized to upper case and the value
+ * already converted into the attribute type.
+ */
+public record ResolvedCriteria(SearchAttribute attribute, String operation, Object value) {
+
+	public String key() {
+		return attribute.getPath();
+	}
+}
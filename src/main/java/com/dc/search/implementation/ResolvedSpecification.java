@@ -0,0 +1,12 @@
+package com.dc.search.implementation;
+
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Specification of a single resolved criteria. The {@link SpecificationBuilder} reads the criteria to plan the joins
+ * of the whole search before any predicate is built.
+ */
+public interface ResolvedSpecification<T> extends Specification<T> {
+
+	ResolvedCriteria getCriteria();
+}
@@ -0,0 +1,81 @@
+package com.dc.search.implementation;
+
+import com.dc.search.implementation.advisor.SearchWorkload;
+import com.dc.search.implementation.budget.SearchCostModel;
+import com.dc.search.implementation.metrics.SearchTrace;
+import com.dc.search.implementation.parser.SearchExpression;
+import com.dc.search.implementation.parser.SearchParser;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.Builder;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Thread safe factory of {@link CompiledSearch} instances. Parsed searches are rewritten by the
+ * {@link SearchNormalizer} before their specification is assembled and their cost is estimated. Compiled searches are
+ * kept in a bounded cache keyed by the search string without insignificant whitespace, so repeated searches skip
+ * parsing, normalization and specification assembly.
+ */
+@Log4j2
+public class SearchCompiler<T> {
+
+	private final SpecificationBuilder<T> builder;
+	private final SearchNormalizer normalizer;
+	private final SearchCostModel costModel;
+	private final SearchWorkload workload;
+	private final Cache<String, CompiledSearch<T>> cache;
+
+	public SearchCompiler(Providable<T> specProvider, long maximumSize) {
+		this(specProvider, null, null, null, null, maximumSize);
+	}
+
+	/**
+	 * Also available as {@link #builder()} for callers that only set some of the optional collaborators.
+	 *
+	 * @param idIndex    optional index that resolves supported criteria to entity ids
+	 * @param normalizer optional normalizer, defaults to one without attribute resolution
+	 * @param costModel  optional cost model, defaults to one without collection or trigram knowledge
+	 * @param workload   optional workload that every compiled search is recorded in, including cache hits
+	 */
+	@Builder
+	public SearchCompiler(Providable<T> specProvider, CriteriaIdIndex idIndex, SearchNormalizer normalizer,
+						  SearchCostModel costModel, SearchWorkload workload, long maximumSize) {
+		this.builder = new SpecificationBuilder<>(specProvider, idIndex);
+		this.normalizer = normalizer != null ? normalizer : new SearchNormalizer();
+		this.costModel = costModel != null ? costModel : new SearchCostModel();
+		this.workload = workload;
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.recordStats()
+				.build();
+	}
+
+	public CompiledSearch<T> compile(String search) {
+		CompiledSearch<T> compiled = SearchTrace.time(SearchTrace.Phase.COMPILE,
+				() -> cache.get(SearchParser.normalize(search), this::compileUncached));
+		SearchTrace.searched(compiled);
+		if (workload != null) {
+			workload.record(compiled);
+		}
+		return compiled;
+	}
+
+	public CacheStats stats() {
+		return cache.stats();
+	}
+
+	public long size() {
+		return cache.estimatedSize();
+	}
+
+	public void invalidateAll() {
+		cache.invalidateAll();
+	}
+
+	private CompiledSearch<T> compileUncached(String key) {
+		SearchExpression expression = normalizer.normalize(SearchParser.parse(key));
+		log.debug("compiled search '{}' into: {}", key, expression);
+		return new CompiledSearch<>(key, expression, builder.build(expression), costModel.cost(expression));
+	}
+}
@@ -0,0 +1,20 @@
+package com.dc.search.implementation;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Runs compiled searches against a backend, e.g. the database through JPA or an in-memory snapshot.
+ */
+public interface SearchExecutor<T> {
+
+	List<T> findAll(CompiledSearch<T> search);
+
+	/**
+	 * Returns the matches with only the named associations loaded. Backends that hold all associations in memory
+	 * anyway return them as they are.
+	 */
+	default List<T> findAll(CompiledSearch<T> search, Set<String> expand) {
+		return findAll(search);
+	}
+}
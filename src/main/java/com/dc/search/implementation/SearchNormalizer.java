@@ -0,0 +1,396 @@
+package com.dc.search.implementation;
+
+import com.dc.search.implementation.parser.LogicalOperator;
+import com.dc.search.implementation.parser.SearchExpression;
+
+import java.math.BigDecimal;
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static com.dc.search.implementation.BasicSearchSpecification.EQUALS;
+import static com.dc.search.implementation.BasicSearchSpecification.GREATER;
+import static com.dc.search.implementation.BasicSearchSpecification.GREATER_OR_EQUALS;
+import static com.dc.search.implementation.BasicSearchSpecification.IN;
+import static com.dc.search.implementation.BasicSearchSpecification.LESS;
+import static com.dc.search.implementation.BasicSearchSpecification.LESS_OR_EQUALS;
+import static com.dc.search.implementation.BasicSearchSpecification.NOT_EQUALS;
+import static com.dc.search.implementation.BasicSearchSpecification.NOT_IN;
+
+/**
+ * Rewrites a parsed search into a simpler expression that matches the same entities:
+ * <ul>
+ *     <li>nested groups with the same operator are flattened and duplicate children removed</li>
+ *     <li>EQ and IN criteria on one field are merged into a single IN when combined with OR, and intersected when
+ *     combined with AND</li>
+ *     <li>GT/GTE and LT/LTE bounds on one field are reduced to the tightest bounds under AND and the loosest under
+ *     OR</li>
+ *     <li>contradictions, like "age~gt~50~and~age~lt~10" or "gender~eq~Male~and~gender~eq~Female", become
+ *     {@link SearchExpression.MatchNone}, which is answered without querying the database</li>
+ * </ul>
+ * Children are ordered by their text, so equivalent searches normalize to the same expression and its text can be
+ * used as a canonical key.
+ * <p>
+ * Values are compared in the attribute type using the resolver of the attribute index, without a resolver only the
+ * structural rewrites and the merging of EQ into IN are done. Criteria on collection fields are not merged under
+ * AND, each of them is matched by any element of the collection.
+ */
+public class SearchNormalizer {
+
+	private static final SearchExpression MATCH_NONE = new SearchExpression.MatchNone();
+	private static final char VALUE_SEPARATOR = ',';
+
+	private final Function<SearchCriteria, ResolvedCriteria> resolver;
+
+	public SearchNormalizer() {
+		this(null);
+	}
+
+	public SearchNormalizer(Function<SearchCriteria, ResolvedCriteria> resolver) {
+		this.resolver = resolver;
+	}
+
+	public SearchExpression normalize(SearchExpression expression) {
+		if (expression == null || expression instanceof SearchExpression.MatchNone) {
+			return expression;
+		}
+		if (expression instanceof SearchExpression.Criterion criterion) {
+			return term(criterion).toCriterion();
+		}
+
+		SearchExpression.Group group = (SearchExpression.Group) expression;
+		List<SearchExpression> children = new ArrayList<>(group.children().size());
+		for (SearchExpression child : group.children()) {
+			SearchExpression normalized = normalize(child);
+			if (normalized instanceof SearchExpression.Group nested && nested.operator() == group.operator()) {
+				children.addAll(nested.children());
+			} else {
+				children.add(normalized);
+			}
+		}
+		return group.operator() == LogicalOperator.AND ? and(children) : or(children);
+	}
+
+	private SearchExpression and(List<SearchExpression> children) {
+		Map<String, List<Term>> byKey = new LinkedHashMap<>();
+		List<SearchExpression> result = new ArrayList<>(children.size());
+		for (SearchExpression child : children) {
+			if (child instanceof SearchExpression.MatchNone) {
+				return MATCH_NONE;
+			}
+			if (child instanceof SearchExpression.Criterion criterion) {
+				Term term = term(criterion);
+				if (term.typed() && !term.collectionValued()) {
+					byKey.computeIfAbsent(term.key(), key -> new ArrayList<>()).add(term);
+					continue;
+				}
+			}
+			result.add(child);
+		}
+		for (List<Term> terms : byKey.values()) {
+			List<SearchExpression> merged = mergeAnd(terms);
+			if (merged == null) {
+				return MATCH_NONE;
+			}
+			result.addAll(merged);
+		}
+		return combine(LogicalOperator.AND, result);
+	}
+
+	private SearchExpression or(List<SearchExpression> children) {
+		Map<String, List<Term>> byKey = new LinkedHashMap<>();
+		List<SearchExpression> result = new ArrayList<>(children.size());
+		for (SearchExpression child : children) {
+			if (child instanceof SearchExpression.MatchNone) {
+				continue;
+			}
+			if (child instanceof SearchExpression.Criterion criterion) {
+				Term term = term(criterion);
+				byKey.computeIfAbsent(term.key(), key -> new ArrayList<>()).add(term);
+			} else {
+				result.add(child);
+			}
+		}
+		for (List<Term> terms : byKey.values()) {
+			result.addAll(mergeOr(terms));
+		}
+		if (result.isEmpty()) {
+			return MATCH_NONE;
+		}
+		return combine(LogicalOperator.OR, result);
+	}
+
+	/**
+	 * Merges the criteria of one field combined with AND, returns null if they contradict each other.
+	 */
+	private List<SearchExpression> mergeAnd(List<Term> terms) {
+		final Term first = terms.get(0);
+		Map<Object, Value> allowed = null;
+		Map<Object, Value> excluded = new LinkedHashMap<>();
+		Bound lower = null;
+		Bound upper = null;
+		List<SearchExpression> others = new ArrayList<>();
+		for (Term term : terms) {
+			switch (term.operation()) {
+				case EQUALS, IN -> {
+					if (term.splittable()) {
+						allowed = allowed == null ? term.values() : intersect(allowed, term.values());
+					} else {
+						others.add(term.toCriterion());
+					}
+				}
+				case NOT_EQUALS, NOT_IN -> {
+					if (term.splittable()) {
+						excluded.putAll(term.values());
+					} else {
+						others.add(term.toCriterion());
+					}
+				}
+				case GREATER, GREATER_OR_EQUALS -> lower = tighter(lower, term.bound(), 1);
+				case LESS, LESS_OR_EQUALS -> upper = tighter(upper, term.bound(), -1);
+				default -> others.add(term.toCriterion());
+			}
+		}
+
+		List<SearchExpression> result = new ArrayList<>(others);
+		if (allowed != null) {
+			// bounds and exclusions only filter the allowed values
+			Map<Object, Value> remaining = new LinkedHashMap<>();
+			for (Map.Entry<Object, Value> entry : allowed.entrySet()) {
+				if (!excluded.containsKey(entry.getKey()) && within(entry.getValue(), lower, upper)) {
+					remaining.put(entry.getKey(), entry.getValue());
+				}
+			}
+			if (remaining.isEmpty()) {
+				return null;
+			}
+			result.add(first.withValues(EQUALS, IN, remaining.values()));
+			return result;
+		}
+		if (lower != null && upper != null) {
+			int comparison = compare(lower.value(), upper.value());
+			if (comparison > 0 || (comparison == 0 && (lower.strict() || upper.strict()))) {
+				return null;
+			}
+		}
+		if (lower != null) {
+			result.add(first.withOperation(lower.strict() ? GREATER : GREATER_OR_EQUALS, lower.value()));
+		}
+		if (upper != null) {
+			result.add(first.withOperation(upper.strict() ? LESS : LESS_OR_EQUALS, upper.value()));
+		}
+		if (!excluded.isEmpty()) {
+			result.add(first.withValues(NOT_EQUALS, NOT_IN, excluded.values()));
+		}
+		return result;
+	}
+
+	/**
+	 * Merges the criteria of one field combined with OR.
+	 */
+	private List<SearchExpression> mergeOr(List<Term> terms) {
+		final Term first = terms.get(0);
+		Map<Object, Value> allowed = new LinkedHashMap<>();
+		Bound lower = null;
+		Bound upper = null;
+		List<SearchExpression> result = new ArrayList<>();
+		for (Term term : terms) {
+			switch (term.operation()) {
+				case EQUALS, IN -> {
+					if (term.splittable()) {
+						allowed.putAll(term.values());
+					} else {
+						result.add(term.toCriterion());
+					}
+				}
+				case GREATER, GREATER_OR_EQUALS -> {
+					if (term.typed()) {
+						lower = looser(lower, term.bound(), 1);
+					} else {
+						result.add(term.toCriterion());
+					}
+				}
+				case LESS, LESS_OR_EQUALS -> {
+					if (term.typed()) {
+						upper = looser(upper, term.bound(), -1);
+					} else {
+						result.add(term.toCriterion());
+					}
+				}
+				default -> result.add(term.toCriterion());
+			}
+		}
+		if (!allowed.isEmpty()) {
+			result.add(first.withValues(EQUALS, IN, allowed.values()));
+		}
+		if (lower != null) {
+			result.add(first.withOperation(lower.strict() ? GREATER : GREATER_OR_EQUALS, lower.value()));
+		}
+		if (upper != null) {
+			result.add(first.withOperation(upper.strict() ? LESS : LESS_OR_EQUALS, upper.value()));
+		}
+		return result;
+	}
+
+	private static SearchExpression combine(LogicalOperator operator, List<SearchExpression> children) {
+		List<SearchExpression> distinct = new ArrayList<>(new LinkedHashSet<>(children));
+		if (distinct.size() == 1) {
+			return distinct.get(0);
+		}
+		distinct.sort(Comparator.comparing(SearchExpression::toString));
+		return new SearchExpression.Group(operator, distinct);
+	}
+
+	private Term term(SearchExpression.Criterion criterion) {
+		final String operation = criterion.operation().toUpperCase(Locale.ROOT);
+		final boolean list = IN.equals(operation) || NOT_IN.equals(operation);
+		final List<String> raw = list ? Arrays.asList(criterion.value().split(String.valueOf(VALUE_SEPARATOR)))
+				: List.of(criterion.value());
+		if (resolver == null) {
+			return new Term(criterion.key(), operation, values(raw, raw), false, false);
+		}
+
+		final ResolvedCriteria resolved = resolver.apply(criterion.toSearchCriteria());
+		final List<?> typed = list ? (List<?>) resolved.value() : List.of(resolved.value());
+		return new Term(criterion.key(), operation, values(raw, typed), true, resolved.attribute().isCollectionValued());
+	}
+
+	private static Map<Object, Value> values(List<String> raw, List<?> typed) {
+		Map<Object, Value> values = new LinkedHashMap<>();
+		for (int i = 0; i < raw.size(); i++) {
+			Value value = new Value(text(raw.get(i), typed.get(i)), typed.get(i));
+			values.putIfAbsent(value.identity(), value);
+		}
+		return values;
+	}
+
+	/**
+	 * Canonical text of converted numbers, dates, booleans and UUIDs, e.g. "1.8" for "1.80" and "1990-01-31" for
+	 * "31/01/1990". The text converts back into the same value.
+	 */
+	private static String text(String raw, Object typed) {
+		if (typed instanceof BigDecimal decimal) {
+			return decimal.stripTrailingZeros().toPlainString();
+		} else if (typed instanceof Number || typed instanceof Boolean || typed instanceof UUID
+				|| typed instanceof Temporal) {
+			return typed.toString();
+		}
+		return raw;
+	}
+
+	private static Map<Object, Value> intersect(Map<Object, Value> left, Map<Object, Value> right) {
+		Map<Object, Value> intersection = new LinkedHashMap<>(left);
+		intersection.keySet().retainAll(right.keySet());
+		return intersection;
+	}
+
+	private static Bound tighter(Bound current, Bound candidate, int direction) {
+		if (current == null) {
+			return candidate;
+		}
+		int comparison = compare(candidate.value(), current.value()) * direction;
+		return comparison > 0 || (comparison == 0 && candidate.strict()) ? candidate : current;
+	}
+
+	private static Bound looser(Bound current, Bound candidate, int direction) {
+		if (current == null) {
+			return candidate;
+		}
+		int comparison = compare(candidate.value(), current.value()) * direction;
+		return comparison < 0 || (comparison == 0 && !candidate.strict()) ? candidate : current;
+	}
+
+	private static boolean within(Value value, Bound lower, Bound upper) {
+		if (lower != null) {
+			int comparison = compare(value, lower.value());
+			if (comparison < 0 || (comparison == 0 && lower.strict())) {
+				return false;
+			}
+		}
+		if (upper != null) {
+			int comparison = compare(value, upper.value());
+			return comparison < 0 || (comparison == 0 && !upper.strict());
+		}
+		return true;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static int compare(Value left, Value right) {
+		return ((Comparable<Object>) left.typed()).compareTo(right.typed());
+	}
+
+	/**
+	 * Criterion value in its canonical text and converted into the attribute type. Values are told apart by their
+	 * converted value, so "1.8" and "1.80" are the same number.
+	 */
+	private record Value(String raw, Object typed) {
+
+		Object identity() {
+			return typed instanceof BigDecimal decimal ? decimal.stripTrailingZeros() : typed;
+		}
+	}
+
+	private record Bound(Value value, boolean strict) {
+	}
+
+	private record Term(String key, String operation, Map<Object, Value> values, boolean typed,
+						boolean collectionValued) {
+
+		Bound bound() {
+			return new Bound(values.values().iterator().next(),
+					GREATER.equals(operation) || LESS.equals(operation));
+		}
+
+		/**
+		 * Returns false for single values containing the IN separator, those can not be merged into a list.
+		 */
+		boolean splittable() {
+			return IN.equals(operation) || NOT_IN.equals(operation)
+					|| values.values().iterator().next().raw().indexOf(VALUE_SEPARATOR) < 0;
+		}
+
+		SearchExpression.Criterion toCriterion() {
+			if (IN.equals(operation) || NOT_IN.equals(operation)) {
+				return withValues(operation, operation, values.values());
+			}
+			return withOperation(operation, values.values().iterator().next());
+		}
+
+		SearchExpression.Criterion withOperation(String operation, Value value) {
+			return new SearchExpression.Criterion(key, operation.toLowerCase(Locale.ROOT), value.raw());
+		}
+
+		/**
+		 * Criterion with the single value operation for one value and the list operation otherwise, values are
+		 * ordered so that equal sets give the same text.
+		 */
+		SearchExpression.Criterion withValues(String single, String list, Collection<Value> values) {
+			if (values.size() == 1) {
+				return withOperation(single, values.iterator().next());
+			}
+			List<Value> sorted = new ArrayList<>(values);
+			if (typed && sorted.stream().allMatch(value -> value.typed() instanceof Comparable<?>)) {
+				sorted.sort(SearchNormalizer::compare);
+			} else {
+				sorted.sort(Comparator.comparing(Value::raw));
+			}
+			StringBuilder joined = new StringBuilder();
+			for (Value value : sorted) {
+				if (!joined.isEmpty()) {
+					joined.append(VALUE_SEPARATOR);
+				}
+				joined.append(value.raw());
+			}
+			return new SearchExpression.Criterion(key, list.toLowerCase(Locale.ROOT), joined.toString());
+		}
+	}
+}
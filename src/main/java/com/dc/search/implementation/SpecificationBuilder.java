@@ -1,133 +1,147 @@
 package com.dc.search.implementation;
 
+import com.dc.search.implementation.metrics.SearchTrace;
+import com.dc.search.implementation.parser.LogicalOperator;
+import com.dc.search.implementation.parser.SearchExpression;
+import com.dc.search.implementation.parser.SearchParser;
+import jakarta.persistence.criteria.Predicate;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 @Log4j2
 public class SpecificationBuilder<T> {
-	
+
 	public static final String OR_OPERATOR = "or";
 	public static final String AND_OPERATOR = "and";
 	public static final String SEPARATOR = "~";
-	public static final String searchRegex = "(\\b(?!and|or|AND|OR\\b)[\\w\\.]+)~(\\w+)~([\\w|\\-|\\/|\\,|\\.]+)";
-	public static final String numRegex = "(\\d+)~?(\\b(and|or|AND|OR\\b))?";
-	public static final String complexNumExpression = "(\\d+)~(\\b(and|or|AND|OR\\b))~(\\d+)";
-	public static final String extraParenthesesRegex = "\\((\\d+)\\)";
-
-
-	Map<Integer, String> parsedSearchMap = new LinkedHashMap<>(); // stores string subcomponents of the search
-	Map<Integer, SearchCriteria> criteriaMap = new HashMap<>(); // stores search criteria objects
-	Map<Integer, Specification<T>> specMap = new LinkedHashMap<>(); // stores generated specifications
-
 
 	private final Providable<T> specProvider;
+	private final CriteriaIdIndex idIndex;
 
 	public SpecificationBuilder(Providable<T> specProvider) {
+		this(specProvider, null);
+	}
+
+	/**
+	 * @param idIndex optional index that evaluates the criteria it covers into an id filter
+	 */
+	public SpecificationBuilder(Providable<T> specProvider, CriteriaIdIndex idIndex) {
 		this.specProvider = specProvider;
+		this.idIndex = idIndex;
 	}
 
 	public Specification<T> parse(String search) {
-		String parsingResult = parseSearchString(search);
-		return buildSpecFromSymbolicString(parsingResult);
+		SearchExpression expression = SearchParser.parse(search);
+		log.debug("parsed search expression: {}", expression);
+		return build(expression);
 	}
 
-	protected String parseSearchString(String search) {
-		Pattern pattern = Pattern.compile(searchRegex);
-		Matcher matcher = pattern.matcher(search);
-		Integer counter = 1;
-
-		// find all strings that match search criteria
-		while(matcher.find()) {
-			parsedSearchMap.put(counter, matcher.group(1) + SEPARATOR + matcher.group(2) + SEPARATOR + matcher.group(3));
-			criteriaMap.put(counter, new SearchCriteria(matcher.group(1), matcher.group(2), matcher.group(3)));
-			counter++;
+	/**
+	 * Converts a parsed search expression into a specification, criteria are resolved through the spec provider.
+	 * Returns null for a null expression, which matches all entities.
+	 * <p>
+	 * The joins of the whole search are planned here, see {@link JoinPlan}. The returned specification creates them
+	 * before the criteria predicates, which then share one join per association path.
+	 * <p>
+	 * With an id index, the children of every AND and OR group that the index covers are combined into one id filter,
+	 * evaluated by the index when the query is built. The criteria stay planned as the fallback for when the index
+	 * can not narrow them down, so their joins are planned as well.
+	 */
+	public Specification<T> build(SearchExpression expression) {
+		if (expression == null) {
+			return null;
 		}
-		// replace all criteria in the search with respective numeric keys
-		for (Integer key: parsedSearchMap.keySet()) {
-			search = search.replace(parsedSearchMap.get(key), key.toString());
+		Map<SearchExpression.Criterion, ResolvedCriteria> resolved = new HashMap<>();
+		Planned<T> planned = plan(expression, resolved);
+		Specification<T> specification = planned.indexed()
+				? indexed(expression, planned.specification(), resolved)
+				: planned.specification();
+		if (!planned.joins().isEmpty()) {
+			log.debug("planned joins: {}", planned.joins());
 		}
-		search = search.replaceAll(extraParenthesesRegex, "$1");
-		log.info("symbolic search after parsing: {}", search);
+		return (root, query, cb) -> SearchTrace.time(SearchTrace.Phase.PREDICATE, () -> {
+			planned.joins().apply(root);
+			return specification.toPredicate(root, query, cb);
+		});
+	}
 
-		long parenthesisCount = validateAndCountParenthesis(search);
-		log.info("parenthesis count: {}", parenthesisCount);
-		// find all substrings in brackets, recursively replace all substrings with other symbolic search strings
-		while(parenthesisCount-- > 0) {
-			String found = findDeepestBracket(search);
-			parsedSearchMap.put(counter, found.substring(1, found.length()-1));
-			search = search.replace(found, counter.toString());
-			counter++;
+	private Planned<T> plan(SearchExpression expression, Map<SearchExpression.Criterion, ResolvedCriteria> resolved) {
+		if (expression instanceof SearchExpression.MatchNone) {
+			return new Planned<>((root, query, cb) -> cb.disjunction(), JoinPlan.EMPTY, false);
+		}
+		if (expression instanceof SearchExpression.Criterion criterion) {
+			Specification<T> specification = specProvider.getNewInstance(criterion.toSearchCriteria());
+			if (!(specification instanceof ResolvedSpecification<T> resolvedSpecification)) {
+				return new Planned<>(specification, JoinPlan.EMPTY, false);
+			}
+			ResolvedCriteria criteria = resolvedSpecification.getCriteria();
+			boolean indexed = idIndex != null && idIndex.covers(criteria);
+			if (indexed) {
+				resolved.put(criterion, criteria);
+			}
+			return new Planned<>(specification, JoinPlan.of(criteria.attribute().getJoinPaths()), indexed);
 		}
-		log.info("search after parenthesis replacement: {}", search);
-		log.info("number of total search subcomponents found: {}", counter - 1);
 
-		// build specifications from all keys in map
-		for (Integer key: parsedSearchMap.keySet()) {
-			String val = parsedSearchMap.get(key);
-			if (val.matches(complexNumExpression) || criteriaMap.get(key) == null) {
-				specMap.put(key, buildSpecFromSymbolicString(val));
+		SearchExpression.Group group = (SearchExpression.Group) expression;
+		List<Specification<T>> children = new ArrayList<>(group.children().size());
+		List<JoinPlan> joins = new ArrayList<>(group.children().size());
+		List<SearchExpression> indexedChildren = new ArrayList<>();
+		List<Specification<T>> indexedSpecifications = new ArrayList<>();
+		for (SearchExpression child : group.children()) {
+			Planned<T> planned = plan(child, resolved);
+			if (planned.indexed()) {
+				indexedChildren.add(child);
+				indexedSpecifications.add(planned.specification());
 			} else {
-				specMap.put(key, specProvider.getNewInstance(criteriaMap.get(key)));
+				children.add(planned.specification());
 			}
+			joins.add(planned.joins());
 		}
-
-		return search;
-	}
-
-	private long validateAndCountParenthesis(String search) {
-		long numOfLB = search.chars().filter(ch -> ch == '(').count();
-		long numOfRB = search.chars().filter(ch -> ch == ')').count();
-		if (numOfLB != numOfRB) {
-			throw new IllegalArgumentException("Invalid search string: parentheses not matching.");
+		JoinPlan groupJoins = JoinPlan.combine(group.operator(), joins);
+		if (indexedChildren.isEmpty()) {
+			return new Planned<>(combine(group.operator(), List.copyOf(children)), groupJoins, false);
+		}
+		Specification<T> fallback = indexedSpecifications.size() == 1
+				? indexedSpecifications.get(0)
+				: combine(group.operator(), List.copyOf(indexedSpecifications));
+		if (children.isEmpty()) {
+			return new Planned<>(fallback, groupJoins, true);
 		}
-		return numOfRB;
+		SearchExpression indexedExpression = indexedChildren.size() == 1
+				? indexedChildren.get(0)
+				: new SearchExpression.Group(group.operator(), indexedChildren);
+		children.add(0, indexed(indexedExpression, fallback, resolved));
+		return new Planned<>(combine(group.operator(), List.copyOf(children)), groupJoins, false);
 	}
 
-	private Specification<T> buildSpecFromSymbolicString(String val) {
-		Pattern patternNum = Pattern.compile(numRegex);
-		Matcher matcherNum = patternNum.matcher(val);
+	private record Planned<T>(Specification<T> specification, JoinPlan joins, boolean indexed) {
+	}
 
-		Specification<T> result = null;
-		String operation = "";
-		while (matcherNum.find()) {
-			Integer index = Integer.valueOf(matcherNum.group(1));
-			if (specMap.containsKey(index)) { // Check if index exists in the map
-				if (result == null) {
-					result = Specification.where(specMap.get(index));
-				} else {
-					if (operation.equalsIgnoreCase(AND_OPERATOR)) {
-						result = Specification.where(result).and(specMap.get(index));
-					} else if (operation.equalsIgnoreCase(OR_OPERATOR)) {
-						result = Specification.where(result).or(specMap.get(index));
-					}
-				}
-				operation = matcherNum.group(2);
-			} else {
-				throw new IllegalArgumentException("Invalid symbolic string, index " + index + " not found in map.");
-			}
-		}
-		return result;
+	private Specification<T> indexed(SearchExpression expression, Specification<T> fallback,
+									 Map<SearchExpression.Criterion, ResolvedCriteria> resolved) {
+		log.debug("indexed criteria: {}", expression);
+		return (root, query, cb) -> {
+			Predicate ids = idIndex.matching(root, cb, expression, resolved::get);
+			return ids != null ? ids : fallback.toPredicate(root, query, cb);
+		};
 	}
 
-	private String findDeepestBracket(String search) {
-		char[] chars = search.toCharArray();
-		int start = 0;
-		int end = search.length();
-		for (int i=0; i<chars.length; i++) {
-			if (chars[i] == '(') {
-				start = i;
-			}
-			if (chars[i] == ')') {
-				end = i;
-				break;
+	private static <T> Specification<T> combine(LogicalOperator operator, List<Specification<T>> children) {
+		return (root, query, cb) -> {
+			List<Predicate> predicates = new ArrayList<>(children.size());
+			for (Specification<T> child : children) {
+				Predicate predicate = child.toPredicate(root, query, cb);
+				if (predicate != null) {
+					predicates.add(predicate);
+				}
 			}
-		}
-		return search.substring(start, end+1);
+			Predicate[] array = predicates.toArray(new Predicate[0]);
+			return operator == LogicalOperator.AND ? cb.and(array) : cb.or(array);
+		};
 	}
-}
\ No newline at end of file
+}
@@ -1,27 +1,52 @@
 package com.dc.search.implementation;
 
-import lombok.extern.log4j.Log4j;
-import lombok.extern.log4j.Log4j2;
-
+import java.time.DateTimeException;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
-import java.util.List;
 
-@Log4j2
 public class Utils {
 
-	private static final List<String> supportedDateFormats = List.of("yyyy-MM-dd", "dd/MM/yyyy", "dd-MM-yyyy");
+	/**
+	 * Parses dates in one of the supported formats: "yyyy-MM-dd", "dd/MM/yyyy" and "dd-MM-yyyy". The format is picked
+	 * by the position of the separators. Returns null if the date is not in a supported format.
+	 */
 	public static LocalDate parseDateFromString(String date) {
-		for (String format : supportedDateFormats) {
-			try {
-				DateTimeFormatter formatter = DateTimeFormatter.ofPattern(format);
-				return LocalDate.parse(date, formatter);
-			} catch (DateTimeParseException e) {
-				log.debug("Date not of type: {}", format);
+		if (date == null || date.length() != 10) {
+			return null;
+		}
+		final int year;
+		final int month;
+		final int day;
+		if (date.charAt(4) == '-' && date.charAt(7) == '-') {
+			year = digits(date, 0, 4);
+			month = digits(date, 5, 7);
+			day = digits(date, 8, 10);
+		} else if ((date.charAt(2) == '/' && date.charAt(5) == '/') || (date.charAt(2) == '-' && date.charAt(5) == '-')) {
+			day = digits(date, 0, 2);
+			month = digits(date, 3, 5);
+			year = digits(date, 6, 10);
+		} else {
+			return null;
+		}
+		if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31) {
+			return null;
+		}
+		try {
+			return LocalDate.of(year, month, day);
+		} catch (DateTimeException e) {
+			// day out of range for the month, e.g. 31/02
+			return null;
+		}
+	}
+
+	private static int digits(String value, int start, int end) {
+		int result = 0;
+		for (int i = start; i < end; i++) {
+			char ch = value.charAt(i);
+			if (ch < '0' || ch > '9') {
+				return -1;
 			}
+			result = result * 10 + (ch - '0');
 		}
-		return null;
+		return result;
 	}
 }
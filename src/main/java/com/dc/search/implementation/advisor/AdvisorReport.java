@@ -0,0 +1,11 @@
+package com.dc.search.implementation.advisor;
+
+import java.util.List;
+
+/**
+ * @param searches          searches recorded since the start or the last reset
+ * @param untrackedSearches searches that were counted but not analyzed because the workload was full
+ */
+public record AdvisorReport(long searches, long untrackedSearches, List<FieldUsage> fields,
+							List<IndexRecommendation> recommendations) {
+}
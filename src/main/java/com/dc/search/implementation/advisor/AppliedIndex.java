@@ -0,0 +1,7 @@
+package com.dc.search.implementation.advisor;
+
+/**
+ * Index created by the {@link IndexAdvisor}, with the median time of its sample search before and after.
+ */
+public record AppliedIndex(String name, String ddl, String sample, double beforeMillis, double afterMillis) {
+}
@@ -0,0 +1,9 @@
+package com.dc.search.implementation.advisor;
+
+/**
+ * How often a field was searched with an operation.
+ *
+ * @param selectivity estimated fraction of rows matched by one criterion, null if an index can not be used for it
+ */
+public record FieldUsage(String field, String operation, long count, String table, String column, Double selectivity) {
+}
@@ -0,0 +1,481 @@
+package com.dc.search.implementation.advisor;
+
+import com.dc.search.implementation.SearchCompiler;
+import com.dc.search.implementation.metamodel.SearchAttribute;
+import com.dc.search.implementation.metamodel.SearchAttributeIndex;
+import com.dc.search.implementation.parser.LogicalOperator;
+import com.dc.search.implementation.parser.SearchExpression;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.ManagedType;
+import jakarta.persistence.metamodel.Metamodel;
+import jakarta.persistence.metamodel.PluralAttribute;
+import jakarta.persistence.metamodel.SingularAttribute;
+import lombok.extern.log4j.Log4j2;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metamodel.MappingMetamodel;
+import org.hibernate.persister.collection.AbstractCollectionPersister;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.ToLongFunction;
+
+import static com.dc.search.implementation.BasicSearchSpecification.EQUALS;
+import static com.dc.search.implementation.BasicSearchSpecification.GREATER;
+import static com.dc.search.implementation.BasicSearchSpecification.GREATER_OR_EQUALS;
+import static com.dc.search.implementation.BasicSearchSpecification.IN;
+import static com.dc.search.implementation.BasicSearchSpecification.LESS;
+import static com.dc.search.implementation.BasicSearchSpecification.LESS_OR_EQUALS;
+import static com.dc.search.implementation.BasicSearchSpecification.STARTS_WITH;
+
+/**
+ * Recommends composite indexes for the searches recorded in a {@link SearchWorkload}.
+ * <p>
+ * Every AND group of a search, and every branch of an OR, is a conjunction that one index per table can serve.
+ * Equality criteria (EQ, IN) lead the index, most selective column first, followed by at most one range criterion,
+ * since an index can not be used past its first range column. A STARTS_WITH prefix is a range as well. LIKE, ILIKE,
+ * ENDS_WITH, EQ_IGNORE_CASE, NOT_EQ and NOT_IN can not use a b-tree index on the column and are left out. Criteria on
+ * a to-many association are matched in their own EXISTS subquery, so their index starts with the foreign key column
+ * the subquery is correlated on, e.g. {@code address(person_id, line1)}.
+ * <p>
+ * Selectivities are estimated from the number of distinct values of the columns, ranges are assumed to match a third
+ * of the rows and prefixes a tenth of the rows per character. Indexes matching more than {@code maxSelectivity} of the
+ * rows are not worth it compared to a scan and are not recommended, neither are indexes whose columns lead an index
+ * that exists or is recommended.
+ */
+@Log4j2
+public class IndexAdvisor<T> {
+
+	static final double RANGE_SELECTIVITY = 1.0 / 3;
+	static final double PREFIX_CHARACTER_SELECTIVITY = 0.1;
+
+	private static final Set<String> EQUALITY_OPERATIONS = Set.of(EQUALS, IN);
+	private static final Set<String> RANGE_OPERATIONS = Set.of(GREATER, GREATER_OR_EQUALS, LESS, LESS_OR_EQUALS,
+			STARTS_WITH);
+
+	/**
+	 * Column of a searchable field. Key columns are set for fields behind a to-many association, they correlate the
+	 * table to the searched entity.
+	 */
+	record Column(String table, String name, List<String> keyColumns) {
+	}
+
+	private record IndexKey(String table, List<String> columns) {
+	}
+
+	private static final class FieldCount {
+		long count;
+		String value;
+	}
+
+	private static final class Candidate {
+		long searches;
+		double selectivity;
+		String sample;
+		long sampleCount;
+
+		void add(double selectivity, String sample, long count) {
+			this.searches += count;
+			this.selectivity = this.sample == null ? selectivity : Math.min(this.selectivity, selectivity);
+			if (count > sampleCount) {
+				this.sample = sample;
+				this.sampleCount = count;
+			}
+		}
+	}
+
+	private final DataSource dataSource;
+	private final JdbcTemplate jdbcTemplate;
+	private final SearchWorkload workload;
+	private final SearchCompiler<T> compiler;
+	private final ToLongFunction<Specification<T>> counter;
+	private final double maxSelectivity;
+	private final int maxRecommendations;
+	private final boolean applyEnabled;
+	private final int timingRuns;
+	private final Map<String, Column> columns;
+
+	/**
+	 * @param counter counts the matches of a specification, used to time the sample searches of applied indexes
+	 */
+	public IndexAdvisor(EntityManagerFactory entityManagerFactory, DataSource dataSource,
+						SearchAttributeIndex<T> attributeIndex, SearchWorkload workload, SearchCompiler<T> compiler,
+						ToLongFunction<Specification<T>> counter, double maxSelectivity, int maxRecommendations,
+						boolean applyEnabled, int timingRuns) {
+		this.dataSource = dataSource;
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.workload = workload;
+		this.compiler = compiler;
+		this.counter = counter;
+		this.maxSelectivity = maxSelectivity;
+		this.maxRecommendations = maxRecommendations;
+		this.applyEnabled = applyEnabled;
+		this.timingRuns = timingRuns;
+		this.columns = columns(entityManagerFactory, attributeIndex);
+	}
+
+	public boolean isApplyEnabled() {
+		return applyEnabled;
+	}
+
+	public SearchWorkload getWorkload() {
+		return workload;
+	}
+
+	public AdvisorReport advise() {
+		final ColumnStatistics statistics = new ColumnStatistics();
+		final Map<List<String>, FieldCount> fieldCounts = new LinkedHashMap<>();
+		final Map<IndexKey, Candidate> candidates = new HashMap<>();
+		for (SearchWorkload.Sample sample : workload.samples()) {
+			countFields(sample.expression(), sample.count(), fieldCounts);
+			List<List<SearchExpression.Criterion>> conjunctions = new ArrayList<>();
+			conjunctions(sample.expression(), conjunctions);
+			for (List<SearchExpression.Criterion> conjunction : conjunctions) {
+				plan(conjunction, statistics, sample, candidates);
+			}
+		}
+
+		List<FieldUsage> fields = new ArrayList<>(fieldCounts.size());
+		fieldCounts.forEach((field, count) -> {
+			Column column = columns.get(field.get(0));
+			fields.add(new FieldUsage(field.get(0), field.get(1), count.count, column == null ? null : column.table(),
+					column == null ? null : column.name(), selectivity(column, field.get(1), count.value, statistics)));
+		});
+		fields.sort(Comparator.comparingLong(FieldUsage::count).reversed());
+		return new AdvisorReport(workload.total(), workload.untracked(), fields, recommend(candidates));
+	}
+
+	/**
+	 * Creates the recommended indexes and times the most frequent search of each before and after. Only supported on
+	 * H2, where the indexes are not persisted anyway, other databases should apply the DDL through their migrations.
+	 */
+	public List<AppliedIndex> apply() {
+		if (!applyEnabled) {
+			throw new IllegalStateException("Applying indexes is disabled, see search.advisor.apply-enabled.");
+		}
+		String product = jdbcTemplate.execute(
+				(ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+		if (!"H2".equals(product)) {
+			throw new IllegalStateException("Indexes can only be applied to H2, not to " + product + ".");
+		}
+		List<AppliedIndex> applied = new ArrayList<>();
+		for (IndexRecommendation recommendation : advise().recommendations()) {
+			Specification<T> specification = compiler.compile(recommendation.sample()).getSpecification();
+			double before = time(specification);
+			jdbcTemplate.execute(recommendation.ddl());
+			double after = time(specification);
+			log.info("Applied '{}', '{}' took {} ms before and {} ms after", recommendation.ddl(),
+					recommendation.sample(), before, after);
+			applied.add(new AppliedIndex(indexName(recommendation.table(), recommendation.columns()),
+					recommendation.ddl(), recommendation.sample(), before, after));
+		}
+		return applied;
+	}
+
+	private void plan(List<SearchExpression.Criterion> conjunction, ColumnStatistics statistics,
+					  SearchWorkload.Sample sample, Map<IndexKey, Candidate> candidates) {
+		// criteria of the main query share one index per table, to-many criteria have one subquery each
+		Map<String, List<SearchExpression.Criterion>> accesses = new LinkedHashMap<>();
+		for (int i = 0; i < conjunction.size(); i++) {
+			SearchExpression.Criterion criterion = conjunction.get(i);
+			Column column = columns.get(criterion.key());
+			if (column != null) {
+				String access = column.keyColumns().isEmpty() ? column.table() : column.table() + "#" + i;
+				accesses.computeIfAbsent(access, key -> new ArrayList<>()).add(criterion);
+			}
+		}
+		for (List<SearchExpression.Criterion> criteria : accesses.values()) {
+			Map<String, Double> equalities = new HashMap<>();
+			Map<String, Double> ranges = new HashMap<>();
+			Column first = null;
+			for (SearchExpression.Criterion criterion : criteria) {
+				String operation = criterion.operation().toUpperCase(Locale.ROOT);
+				Column column = columns.get(criterion.key());
+				Double selectivity = selectivity(column, operation, criterion.value(), statistics);
+				if (selectivity == null) {
+					continue;
+				}
+				first = column;
+				Map<String, Double> target = EQUALITY_OPERATIONS.contains(operation) ? equalities : ranges;
+				target.merge(column.name(), selectivity, (a, b) -> a * b);
+			}
+			if (first == null) {
+				continue;
+			}
+			List<String> indexColumns = new ArrayList<>(first.keyColumns());
+			double selectivity = 1;
+			for (Map.Entry<String, Double> equality : sorted(equalities)) {
+				indexColumns.add(equality.getKey());
+				selectivity *= equality.getValue();
+			}
+			List<Map.Entry<String, Double>> sortedRanges = sorted(ranges);
+			sortedRanges.removeIf(range -> equalities.containsKey(range.getKey()));
+			if (!sortedRanges.isEmpty()) {
+				indexColumns.add(sortedRanges.get(0).getKey());
+				selectivity *= sortedRanges.get(0).getValue();
+			}
+			if (selectivity <= maxSelectivity) {
+				candidates.computeIfAbsent(new IndexKey(first.table(), List.copyOf(indexColumns)), key -> new Candidate())
+						.add(selectivity, sample.search(), sample.count());
+			}
+		}
+	}
+
+	private List<IndexRecommendation> recommend(Map<IndexKey, Candidate> candidates) {
+		Map<String, List<List<String>>> existing = new HashMap<>();
+		List<Map.Entry<IndexKey, Candidate>> remaining = new ArrayList<>(candidates.entrySet());
+		// longest first, so that an index leading a longer one is folded into it
+		remaining.sort(Comparator.comparingInt((Map.Entry<IndexKey, Candidate> entry) -> entry.getKey().columns().size())
+				.reversed());
+		List<Map.Entry<IndexKey, Candidate>> kept = new ArrayList<>();
+		for (Map.Entry<IndexKey, Candidate> entry : remaining) {
+			IndexKey key = entry.getKey();
+			Map.Entry<IndexKey, Candidate> longer = kept.stream()
+					.filter(other -> other.getKey().table().equals(key.table())
+							&& leads(key.columns(), other.getKey().columns()))
+					.findFirst()
+					.orElse(null);
+			if (longer != null) {
+				longer.getValue().searches += entry.getValue().searches;
+				continue;
+			}
+			List<List<String>> indexes = existing.computeIfAbsent(key.table(), this::existingIndexes);
+			if (indexes.stream().noneMatch(index -> leads(key.columns(), index))) {
+				kept.add(entry);
+			}
+		}
+		return kept.stream()
+				.sorted(Comparator.comparingLong((Map.Entry<IndexKey, Candidate> entry) -> entry.getValue().searches)
+						.reversed())
+				.limit(maxRecommendations)
+				.map(entry -> new IndexRecommendation(entry.getKey().table(), entry.getKey().columns(),
+						entry.getValue().searches, entry.getValue().selectivity, entry.getValue().sample,
+						"create index " + indexName(entry.getKey().table(), entry.getKey().columns()) + " on "
+								+ entry.getKey().table() + " (" + String.join(", ", entry.getKey().columns()) + ")"))
+				.toList();
+	}
+
+	/**
+	 * Estimated fraction of rows matched by one criterion, or null if an index can not be used for it.
+	 */
+	private Double selectivity(Column column, String operation, String value, ColumnStatistics statistics) {
+		if (column == null) {
+			return null;
+		}
+		if (EQUALS.equals(operation)) {
+			return 1.0 / statistics.distinct(column);
+		}
+		if (IN.equals(operation)) {
+			return Math.min(1.0, (double) value.split(",").length / statistics.distinct(column));
+		}
+		if (STARTS_WITH.equals(operation)) {
+			return Math.max(1.0 / statistics.distinct(column), Math.pow(PREFIX_CHARACTER_SELECTIVITY, value.length()));
+		}
+		return RANGE_OPERATIONS.contains(operation) ? RANGE_SELECTIVITY : null;
+	}
+
+	private double time(Specification<T> specification) {
+		counter.applyAsLong(specification);
+		long[] nanos = new long[timingRuns];
+		for (int i = 0; i < timingRuns; i++) {
+			long start = System.nanoTime();
+			counter.applyAsLong(specification);
+			nanos[i] = System.nanoTime() - start;
+		}
+		Arrays.sort(nanos);
+		return Math.round(nanos[timingRuns / 2] / 1_000.0) / 1_000.0;
+	}
+
+	/**
+	 * Column lists of the indexes on a table, in index order.
+	 */
+	private List<List<String>> existingIndexes(String table) {
+		try (Connection connection = dataSource.getConnection()) {
+			DatabaseMetaData metaData = connection.getMetaData();
+			String name = metaData.storesUpperCaseIdentifiers() ? table.toUpperCase(Locale.ROOT)
+					: metaData.storesLowerCaseIdentifiers() ? table.toLowerCase(Locale.ROOT) : table;
+			Map<String, TreeMap<Short, String>> indexes = new HashMap<>();
+			try (ResultSet rows = metaData.getIndexInfo(null, null, name, false, true)) {
+				while (rows.next()) {
+					String column = rows.getString("COLUMN_NAME");
+					if (column != null) {
+						indexes.computeIfAbsent(rows.getString("INDEX_NAME"), index -> new TreeMap<>())
+								.put(rows.getShort("ORDINAL_POSITION"), column.toLowerCase(Locale.ROOT));
+					}
+				}
+			}
+			return indexes.values().stream().map(index -> List.copyOf(index.values())).toList();
+		} catch (SQLException e) {
+			log.warn("Could not read the indexes of {}: {}", table, e.getMessage());
+			return List.of();
+		}
+	}
+
+	private static boolean leads(List<String> columns, List<String> index) {
+		if (columns.size() > index.size()) {
+			return false;
+		}
+		for (int i = 0; i < columns.size(); i++) {
+			if (!columns.get(i).equalsIgnoreCase(index.get(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static List<Map.Entry<String, Double>> sorted(Map<String, Double> selectivities) {
+		List<Map.Entry<String, Double>> entries = new ArrayList<>(selectivities.entrySet());
+		entries.sort(Map.Entry.<String, Double>comparingByValue().thenComparing(Map.Entry.comparingByKey()));
+		return entries;
+	}
+
+	private static String indexName(String table, List<String> columns) {
+		return ("idx_" + table + "_" + String.join("_", columns)).toLowerCase(Locale.ROOT);
+	}
+
+	private static void countFields(SearchExpression expression, long count, Map<List<String>, FieldCount> counts) {
+		if (expression instanceof SearchExpression.Criterion criterion) {
+			List<String> key = List.of(criterion.key(), criterion.operation().toUpperCase(Locale.ROOT));
+			FieldCount fieldCount = counts.computeIfAbsent(key, ignored -> new FieldCount());
+			fieldCount.count += count;
+			// the value only matters for the size of IN lists, the one of the most frequent search is used
+			if (fieldCount.value == null) {
+				fieldCount.value = criterion.value();
+			}
+		} else if (expression instanceof SearchExpression.Group group) {
+			group.children().forEach(child -> countFields(child, count, counts));
+		}
+	}
+
+	private static void conjunctions(SearchExpression expression, List<List<SearchExpression.Criterion>> conjunctions) {
+		if (expression instanceof SearchExpression.Criterion criterion) {
+			conjunctions.add(List.of(criterion));
+		} else if (expression instanceof SearchExpression.Group group) {
+			if (group.operator() == LogicalOperator.OR) {
+				group.children().forEach(child -> conjunctions(child, conjunctions));
+				return;
+			}
+			// nested OR groups of an AND need an index per branch, they are not served by the index of the group
+			List<SearchExpression.Criterion> criteria = group.children().stream()
+					.filter(SearchExpression.Criterion.class::isInstance)
+					.map(SearchExpression.Criterion.class::cast)
+					.toList();
+			if (!criteria.isEmpty()) {
+				conjunctions.add(criteria);
+			}
+		}
+	}
+
+	/**
+	 * Distinct values per column, counted once per report.
+	 */
+	private final class ColumnStatistics {
+
+		private final Map<Column, Long> distinct = new HashMap<>();
+
+		long distinct(Column column) {
+			return distinct.computeIfAbsent(column, key -> {
+				Long count = jdbcTemplate.queryForObject(
+						"select count(distinct " + key.name() + ") from " + key.table(), Long.class);
+				return Math.max(count == null ? 0 : count, 1);
+			});
+		}
+	}
+
+	/**
+	 * Maps the searchable fields to their table columns through the Hibernate mapping. Fields that are not stored in
+	 * a single column are left out.
+	 */
+	private static Map<String, Column> columns(EntityManagerFactory entityManagerFactory,
+											   SearchAttributeIndex<?> attributeIndex) {
+		final Metamodel metamodel = entityManagerFactory.getMetamodel();
+		final MappingMetamodel mapping = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+				.getRuntimeMetamodels().getMappingMetamodel();
+		final Map<String, Column> columns = new HashMap<>();
+		for (SearchAttribute attribute : attributeIndex.getAll()) {
+			try {
+				Column column = column(metamodel, mapping, metamodel.entity(attributeIndex.getDomainClass()), attribute);
+				if (column != null) {
+					columns.put(attribute.getPath(), column);
+				}
+			} catch (RuntimeException e) {
+				log.debug("No column for {}: {}", attribute.getPath(), e.getMessage());
+			}
+		}
+		return Map.copyOf(columns);
+	}
+
+	private static Column column(Metamodel metamodel, MappingMetamodel mapping, EntityType<?> root,
+								 SearchAttribute attribute) {
+		final List<SearchAttribute.Segment> segments = attribute.getSegments();
+		EntityType<?> entity = root;
+		ManagedType<?> type = root;
+		StringBuilder property = new StringBuilder();
+		List<String> keyColumns = List.of();
+		for (int i = 0; i < segments.size() - 1; i++) {
+			final SearchAttribute.Segment segment = segments.get(i);
+			final Attribute<?, ?> jpaAttribute = type.getAttribute(segment.name());
+			switch (segment.kind()) {
+				case EMBEDDED -> {
+					property.append(segment.name()).append('.');
+					type = metamodel.embeddable(jpaAttribute.getJavaType());
+				}
+				case SINGULAR_ASSOCIATION -> {
+					EntityType<?> target = (EntityType<?>) ((SingularAttribute<?, ?>) jpaAttribute).getType();
+					if (i == segments.size() - 2 && isId(target, segments.get(i + 1).name())) {
+						// the id of a to-one association is its foreign key, e.g. person.country_id for "country.id"
+						return column(mapping, entity, property + segment.name(), keyColumns);
+					}
+					entity = target;
+					type = target;
+					property.setLength(0);
+					keyColumns = List.of();
+				}
+				case PLURAL_ASSOCIATION -> {
+					String role = entity.getJavaType().getName() + "." + property + segment.name();
+					keyColumns = List.of(((AbstractCollectionPersister) mapping.getCollectionDescriptor(role))
+							.getKeyColumnNames());
+					entity = (EntityType<?>) ((PluralAttribute<?, ?, ?>) jpaAttribute).getElementType();
+					type = entity;
+					property.setLength(0);
+				}
+				default -> throw new IllegalStateException("Unexpected segment " + segment);
+			}
+		}
+		return column(mapping, entity, property + segments.get(segments.size() - 1).name(), keyColumns);
+	}
+
+	private static Column column(MappingMetamodel mapping, EntityType<?> entity, String property,
+								 List<String> keyColumns) {
+		AbstractEntityPersister persister = (AbstractEntityPersister) mapping.getEntityDescriptor(entity.getJavaType());
+		String[] names = persister.getPropertyColumnNames(property);
+		if (names.length != 1) {
+			return null;
+		}
+		return new Column(persister.getTableName(), names[0].toLowerCase(Locale.ROOT), keyColumns.stream()
+				.map(name -> name.toLowerCase(Locale.ROOT))
+				.toList());
+	}
+
+	private static boolean isId(EntityType<?> entity, String name) {
+		return entity.hasSingleIdAttribute() && entity.getId(entity.getIdType().getJavaType()).getName().equals(name);
+	}
+}
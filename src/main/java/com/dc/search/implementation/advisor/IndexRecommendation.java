@@ -0,0 +1,14 @@
+package com.dc.search.implementation.advisor;
+
+import java.util.List;
+
+/**
+ * Index the {@link IndexAdvisor} suggests for the observed workload.
+ *
+ * @param searches    number of recorded searches that the index serves
+ * @param selectivity estimated fraction of the table rows matched through the index
+ * @param sample      most frequent search served by the index
+ */
+public record IndexRecommendation(String table, List<String> columns, long searches, double selectivity,
+								  String sample, String ddl) {
+}
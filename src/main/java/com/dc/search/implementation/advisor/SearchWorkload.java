@@ -0,0 +1,77 @@
+package com.dc.search.implementation.advisor;
+
+import com.dc.search.implementation.CompiledSearch;
+import com.dc.search.implementation.parser.SearchExpression;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running count of the searches that were compiled, keyed by their canonical key so that equivalent searches are
+ * counted together. Only the first {@code maxSearches} distinct searches are tracked, further ones are only counted,
+ * so clients can not grow the workload without bounds.
+ */
+public class SearchWorkload {
+
+	/**
+	 * Normalized search and how often it was requested.
+	 */
+	public record Sample(String search, SearchExpression expression, long count) {
+	}
+
+	private record Entry(SearchExpression expression, LongAdder count) {
+	}
+
+	private final int maxSearches;
+	private final ConcurrentMap<String, Entry> searches = new ConcurrentHashMap<>();
+	private final LongAdder total = new LongAdder();
+	private final LongAdder untracked = new LongAdder();
+
+	public SearchWorkload(int maxSearches) {
+		this.maxSearches = maxSearches;
+	}
+
+	public void record(CompiledSearch<?> search) {
+		if (search.isUnrestricted() || search.matchesNothing()) {
+			return;
+		}
+		total.increment();
+		Entry entry = searches.get(search.getCanonicalKey());
+		if (entry == null) {
+			if (searches.size() >= maxSearches) {
+				untracked.increment();
+				return;
+			}
+			entry = searches.computeIfAbsent(search.getCanonicalKey(),
+					key -> new Entry(search.getExpression(), new LongAdder()));
+		}
+		entry.count().increment();
+	}
+
+	/**
+	 * Returns the tracked searches, most frequent first.
+	 */
+	public List<Sample> samples() {
+		return searches.entrySet().stream()
+				.map(entry -> new Sample(entry.getKey(), entry.getValue().expression(), entry.getValue().count().sum()))
+				.sorted(Comparator.comparingLong(Sample::count).reversed())
+				.toList();
+	}
+
+	public long total() {
+		return total.sum();
+	}
+
+	public long untracked() {
+		return untracked.sum();
+	}
+
+	public void clear() {
+		searches.clear();
+		total.reset();
+		untracked.reset();
+	}
+}
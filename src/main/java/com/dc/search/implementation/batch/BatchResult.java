@@ -0,0 +1,21 @@
+package com.dc.search.implementation.batch;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Result of one search of a batch: the count for count only searches, otherwise the matches and, for searches with a
+ * limit, the cursor of the next page. Downgraded is set when the search was over budget and its results were cut.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchResult<T>(List<T> items, String nextCursor, Long count, Boolean downgraded) {
+
+	static <T> BatchResult<T> ofCount(long count) {
+		return new BatchResult<>(null, null, count, null);
+	}
+
+	static <T> BatchResult<T> ofItems(List<T> items, String nextCursor, boolean downgraded) {
+		return new BatchResult<>(items, nextCursor, null, downgraded ? Boolean.TRUE : null);
+	}
+}
@@ -0,0 +1,8 @@
+package com.dc.search.implementation.batch;
+
+/**
+ * One named search of a batch. Without a limit all matches are returned, with a limit the first page ordered by id,
+ * count only searches return just the number of matches.
+ */
+public record BatchSearch(String name, String search, Integer limit, boolean countOnly) {
+}
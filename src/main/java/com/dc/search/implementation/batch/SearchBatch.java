@@ -0,0 +1,192 @@
+package com.dc.search.implementation.batch;
+
+import com.dc.search.implementation.CompiledSearch;
+import com.dc.search.implementation.InvalidSearchException;
+import com.dc.search.implementation.SearchCompiler;
+import com.dc.search.implementation.SearchExecutor;
+import com.dc.search.implementation.budget.SearchBudget;
+import com.dc.search.implementation.keyset.KeysetPage;
+import com.dc.search.implementation.keyset.KeysetPageRequest;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.metamodel.Attribute;
+import lombok.extern.log4j.Log4j2;
+import org.hibernate.Hibernate;
+import org.springframework.beans.ConfigurablePropertyAccessor;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Runs many named searches in one call. All searches are compiled and admitted by the budget before any of them
+ * runs, so an invalid or rejected search fails the whole batch without querying the database. Searches with the same
+ * canonical form and options run once, the others run in parallel on a thread pool that is shared by all batches,
+ * so batches never take more connections from the pool than it has threads. When its threads and queue are
+ * saturated, the batch is rejected with a {@link SearchBatchRejectedException} instead of running searches on the
+ * calling thread.
+ */
+@Log4j2
+public class SearchBatch<T> implements AutoCloseable {
+
+	private final SearchCompiler<T> compiler;
+	private final SearchExecutor<T> searchExecutor;
+	private final Function<Specification<T>, Long> counter;
+	private final BiFunction<Specification<T>, KeysetPageRequest, KeysetPage<T>> pager;
+	private final SearchBudget budget;
+	private final int downgradeLimit;
+	private final int maxLimit;
+	private final int maxSearches;
+	private final ThreadPoolExecutor executor;
+	private final TransactionTemplate readOnlyTransaction;
+	private final List<String> associations = new ArrayList<>();
+
+	public SearchBatch(EntityManagerFactory entityManagerFactory, PlatformTransactionManager transactionManager,
+					   Class<T> domainClass, SearchCompiler<T> compiler, SearchExecutor<T> searchExecutor,
+					   Function<Specification<T>, Long> counter,
+					   BiFunction<Specification<T>, KeysetPageRequest, KeysetPage<T>> pager,
+					   SearchBudget budget, int downgradeLimit, int maxLimit, int maxSearches, int parallelism) {
+		this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+		this.readOnlyTransaction.setReadOnly(true);
+		for (Attribute<?, ?> attribute : entityManagerFactory.getMetamodel().entity(domainClass).getAttributes()) {
+			if (attribute.isAssociation()) {
+				associations.add(attribute.getName());
+			}
+		}
+		this.compiler = compiler;
+		this.searchExecutor = searchExecutor;
+		this.counter = counter;
+		this.pager = pager;
+		this.budget = budget;
+		this.downgradeLimit = downgradeLimit;
+		this.maxLimit = maxLimit;
+		this.maxSearches = maxSearches;
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("search-batch-");
+		threadFactory.setDaemon(true);
+		this.executor = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(maxSearches), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+		this.executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Returns the results by search name, in the order of the searches.
+	 */
+	public Map<String, BatchResult<T>> run(List<BatchSearch> searches) {
+		if (searches == null || searches.isEmpty()) {
+			throw new InvalidSearchException("Batch contains no searches.");
+		}
+		if (searches.size() > maxSearches) {
+			throw new InvalidSearchException("Batch can not contain more than " + maxSearches + " searches.");
+		}
+
+		final Map<String, Planned<T>> planned = new LinkedHashMap<>();
+		for (BatchSearch search : searches) {
+			if (search.name() == null || search.name().isBlank()) {
+				throw new InvalidSearchException("Every search of a batch needs a name.");
+			}
+			if (planned.containsKey(search.name())) {
+				throw new InvalidSearchException("Duplicate search name '" + search.name() + "'.");
+			}
+			try {
+				planned.put(search.name(), plan(search));
+			} catch (InvalidSearchException e) {
+				throw new InvalidSearchException("Search '" + search.name() + "': " + e.getMessage(), e);
+			}
+		}
+
+		final Map<String, CompletableFuture<BatchResult<T>>> running = new LinkedHashMap<>();
+		try {
+			for (Planned<T> search : planned.values()) {
+				running.computeIfAbsent(search.key(), key -> CompletableFuture.supplyAsync(() -> execute(search), executor));
+			}
+		} catch (RejectedExecutionException e) {
+			running.values().forEach(result -> result.cancel(false));
+			throw new SearchBatchRejectedException(e);
+		}
+		log.debug("running batch of {} searches as {} distinct searches", searches.size(), running.size());
+
+		final Map<String, BatchResult<T>> results = new LinkedHashMap<>();
+		planned.forEach((name, search) -> results.put(name, join(running.get(search.key()))));
+		return results;
+	}
+
+	@Override
+	public void close() {
+		executor.shutdown();
+	}
+
+	private Planned<T> plan(BatchSearch search) {
+		final CompiledSearch<T> compiled = compiler.compile(search.search());
+		if (search.countOnly()) {
+			budget.check(compiled);
+			return new Planned<>("count:" + compiled.getCanonicalKey(), compiled, true, null, false);
+		}
+		Integer limit = search.limit();
+		if (limit != null && (limit <= 0 || limit > maxLimit)) {
+			throw new InvalidSearchException("Limit has to be between 1 and " + maxLimit + ".");
+		}
+		final boolean downgraded = budget.admit(compiled) == SearchBudget.Admission.DOWNGRADE;
+		if (downgraded) {
+			limit = limit == null ? downgradeLimit : Math.min(limit, downgradeLimit);
+		}
+		return new Planned<>((limit == null ? "all" : "limit " + limit) + (downgraded ? " downgraded:" : ":")
+				+ compiled.getCanonicalKey(), compiled, false, limit, downgraded);
+	}
+
+	private BatchResult<T> execute(Planned<T> search) {
+		final CompiledSearch<T> compiled = search.compiled();
+		if (search.countOnly()) {
+			return BatchResult.ofCount(compiled.matchesNothing() ? 0 : counter.apply(compiled.getSpecification()));
+		}
+		if (compiled.matchesNothing()) {
+			return BatchResult.ofItems(List.of(), null, search.downgraded());
+		}
+		if (search.limit() == null) {
+			return BatchResult.ofItems(searchExecutor.findAll(compiled), null, false);
+		}
+		final KeysetPage<T> page = readOnlyTransaction.execute(status -> initialized(pager.apply(compiled.getSpecification(),
+				new KeysetPageRequest("id", Sort.Direction.ASC, search.limit(), null))));
+		return BatchResult.ofItems(page.items(), page.nextCursor(), search.downgraded());
+	}
+
+	/**
+	 * Pages are loaded on a batch thread without an open session, their associations have to be loaded before they
+	 * are serialized.
+	 */
+	private KeysetPage<T> initialized(KeysetPage<T> page) {
+		for (T item : page.items()) {
+			ConfigurablePropertyAccessor accessor = PropertyAccessorFactory.forDirectFieldAccess(item);
+			associations.forEach(name -> Hibernate.initialize(accessor.getPropertyValue(name)));
+		}
+		return page;
+	}
+
+	private static <T> BatchResult<T> join(CompletableFuture<BatchResult<T>> result) {
+		try {
+			return result.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw e;
+		}
+	}
+
+	private record Planned<T>(String key, CompiledSearch<T> compiled, boolean countOnly, Integer limit,
+							  boolean downgraded) {
+	}
+}
@@ -0,0 +1,11 @@
+package com.dc.search.implementation.batch;
+
+/**
+ * Thrown when the thread pool shared by all batches is saturated, the batch can be retried later.
+ */
+public class SearchBatchRejectedException extends RuntimeException {
+
+	public SearchBatchRejectedException(Throwable cause) {
+		super("Too many concurrent batch searches, retry later.", cause);
+	}
+}
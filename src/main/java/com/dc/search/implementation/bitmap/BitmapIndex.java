@@ -0,0 +1,169 @@
+package com.dc.search.implementation.bitmap;
+
+import com.dc.search.implementation.RebuildableIndex;
+import com.dc.search.implementation.ResolvedCriteria;
+import com.dc.search.implementation.parser.LogicalOperator;
+import com.dc.search.implementation.parser.SearchExpression;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static com.dc.search.implementation.BasicSearchSpecification.EQUALS;
+import static com.dc.search.implementation.BasicSearchSpecification.IN;
+import static com.dc.search.implementation.BasicSearchSpecification.NOT_EQUALS;
+import static com.dc.search.implementation.BasicSearchSpecification.NOT_IN;
+
+/**
+ * Thread safe bitmap index over fields of entities with int ids: every distinct value of a field maps to the bitmap
+ * of the ids having it. Equality criteria are answered from the bitmaps, AND and OR of criteria become intersections
+ * and unions of their bitmaps. Null values are in no bitmap and never match, as in SQL.
+ */
+public class BitmapIndex extends RebuildableIndex<Object, BitmapIndex.Data> {
+
+	public static final List<String> OPERATIONS = List.of(EQUALS, NOT_EQUALS, IN, NOT_IN);
+
+	public BitmapIndex(List<String> fields) {
+		super(fields, Data::new);
+	}
+
+	/**
+	 * Returns the ids of the entities matching the expression, whose criteria all have to be equality criteria on
+	 * indexed fields, or null if the index is not built yet.
+	 */
+	public RoaringBitmap evaluate(SearchExpression expression, Function<SearchExpression.Criterion, ResolvedCriteria> resolved) {
+		if (!isReady()) {
+			return null;
+		}
+		return read(data -> evaluate(data, expression, resolved));
+	}
+
+	/**
+	 * Number of distinct values per field.
+	 */
+	public Map<String, Integer> cardinalities() {
+		return read(data -> {
+			Map<String, Integer> cardinalities = new LinkedHashMap<>();
+			for (int i = 0; i < getFields().size(); i++) {
+				cardinalities.put(getFields().get(i), data.bitmaps.get(i).size());
+			}
+			return cardinalities;
+		});
+	}
+
+	private RoaringBitmap evaluate(Data data, SearchExpression expression,
+								   Function<SearchExpression.Criterion, ResolvedCriteria> resolved) {
+		if (expression instanceof SearchExpression.Criterion criterion) {
+			return evaluate(data, resolved.apply(criterion));
+		}
+		if (expression instanceof SearchExpression.Group group) {
+			final boolean and = group.operator() == LogicalOperator.AND;
+			RoaringBitmap result = null;
+			for (SearchExpression child : group.children()) {
+				RoaringBitmap ids = evaluate(data, child, resolved);
+				result = result == null ? ids : and ? RoaringBitmap.and(result, ids) : RoaringBitmap.or(result, ids);
+				if (and && result.isEmpty()) {
+					break;
+				}
+			}
+			return result == null ? new RoaringBitmap() : result;
+		}
+		return new RoaringBitmap();
+	}
+
+	private RoaringBitmap evaluate(Data data, ResolvedCriteria criteria) {
+		final int field = getFields().indexOf(criteria.attribute().getPath());
+		if (field < 0) {
+			throw new IllegalArgumentException("Field '" + criteria.attribute().getPath() + "' is not in the bitmap index.");
+		}
+		final Map<Object, RoaringBitmap> bitmaps = data.bitmaps.get(field);
+		final RoaringBitmap matching = new RoaringBitmap();
+		for (Object value : values(criteria.value())) {
+			RoaringBitmap ids = bitmaps.get(key(value));
+			if (ids != null) {
+				matching.or(ids);
+			}
+		}
+		return switch (criteria.operation()) {
+			case EQUALS, IN -> matching;
+			case NOT_EQUALS, NOT_IN -> RoaringBitmap.andNot(data.present.get(field), matching);
+			default -> throw new RuntimeException("Unsupported search operation: " + criteria.operation());
+		};
+	}
+
+	private static Collection<?> values(Object value) {
+		return value instanceof Collection<?> values ? values : List.of(value);
+	}
+
+	/**
+	 * Decimals are compared by value in the database, 1.8 has to find 1.80.
+	 */
+	private static Object key(Object value) {
+		return value instanceof BigDecimal decimal ? decimal.stripTrailingZeros() : value;
+	}
+
+	static final class Data implements RebuildableIndex.IndexData<Object> {
+
+		/** ids per value per field */
+		private final List<Map<Object, RoaringBitmap>> bitmaps;
+		/** ids with a non null value per field */
+		private final List<RoaringBitmap> present;
+		/** indexed values per id, to remove them again */
+		private final Map<Integer, List<Object>> values = new HashMap<>();
+
+		Data(int fieldCount) {
+			bitmaps = new ArrayList<>(fieldCount);
+			present = new ArrayList<>(fieldCount);
+			for (int i = 0; i < fieldCount; i++) {
+				bitmaps.add(new HashMap<>());
+				present.add(new RoaringBitmap());
+			}
+		}
+
+		@Override
+		public void put(int id, List<Object> fieldValues) {
+			remove(id);
+			List<Object> keys = fieldValues.stream().map(BitmapIndex::key).toList();
+			values.put(id, keys);
+			for (int i = 0; i < keys.size(); i++) {
+				if (keys.get(i) != null) {
+					bitmaps.get(i).computeIfAbsent(keys.get(i), key -> new RoaringBitmap()).add(id);
+					present.get(i).add(id);
+				}
+			}
+		}
+
+		@Override
+		public void remove(int id) {
+			List<Object> old = values.remove(id);
+			if (old == null) {
+				return;
+			}
+			for (int i = 0; i < old.size(); i++) {
+				Object key = old.get(i);
+				if (key == null) {
+					continue;
+				}
+				RoaringBitmap ids = bitmaps.get(i).get(key);
+				if (ids != null) {
+					ids.remove(id);
+					if (ids.isEmpty()) {
+						bitmaps.get(i).remove(key);
+					}
+				}
+				present.get(i).remove(id);
+			}
+		}
+
+		@Override
+		public int size() {
+			return values.size();
+		}
+	}
+}
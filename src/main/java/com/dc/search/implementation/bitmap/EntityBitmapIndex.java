@@ -0,0 +1,268 @@
+package com.dc.search.implementation.bitmap;
+
+import com.dc.search.implementation.CriteriaIdIndex;
+import com.dc.search.implementation.ResolvedCriteria;
+import com.dc.search.implementation.change.EntityChange;
+import com.dc.search.implementation.change.EntityChangeObserver;
+import com.dc.search.implementation.metamodel.SearchAttribute;
+import com.dc.search.implementation.metamodel.SearchAttributeIndex;
+import com.dc.search.implementation.parser.SearchExpression;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceUnitUtil;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.ManagedType;
+import jakarta.persistence.metamodel.SingularAttribute;
+import lombok.extern.log4j.Log4j2;
+import org.hibernate.Hibernate;
+import org.hibernate.jpa.AvailableHints;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.PropertyAccessorFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.dc.search.implementation.BasicSearchSpecification.EQUALS;
+
+/**
+ * Bitmap index over low cardinality attributes of an entity, e.g. "gender" or "country.id", used to evaluate
+ * equality criteria on them in memory. Attributes may be reached through to-one associations, to-many paths are not
+ * supported. The index is built with {@link #rebuild()}, usually at startup, and kept in sync with committed changes
+ * afterwards: changes of the entity update its bitmaps, changes of an associated entity on an indexed path re-index
+ * the entities that reference it, read by its id. Changes that bypass Hibernate, like native SQL, are only picked up
+ * by the next rebuild.
+ * <p>
+ * Id sets larger than the maximum are not used, a long id list costs the database more than it saves.
+ */
+@Log4j2
+public class EntityBitmapIndex<T> implements CriteriaIdIndex, EntityChangeObserver {
+
+	private static final int SCAN_FETCH_SIZE = 1000;
+
+	private final EntityManagerFactory entityManagerFactory;
+	private final PersistenceUnitUtil persistenceUnitUtil;
+	private final Class<T> domainClass;
+	private final String entityName;
+	private final String idAttribute;
+	private final List<SearchAttribute> attributes = new ArrayList<>();
+	/** indexed attributes that are the id of a to-one association, read without loading the association */
+	private final Set<String> associationIds = new HashSet<>();
+	/** associated entities on the indexed paths by join path, their changes can change indexed values */
+	private final Map<String, Class<?>> associatedTypes = new HashMap<>();
+	private final BitmapIndex index;
+	private final int maxIds;
+	private final boolean enabled;
+
+	public EntityBitmapIndex(EntityManagerFactory entityManagerFactory, SearchAttributeIndex<T> attributeIndex,
+							 List<String> fields, int maxIds, boolean enabled) {
+		this.entityManagerFactory = entityManagerFactory;
+		this.persistenceUnitUtil = entityManagerFactory.getPersistenceUnitUtil();
+		this.domainClass = attributeIndex.getDomainClass();
+		this.maxIds = maxIds;
+		this.enabled = enabled;
+
+		EntityType<T> entityType = entityManagerFactory.getMetamodel().entity(domainClass);
+		Class<?> idType = entityType.getIdType().getJavaType();
+		if (idType != Integer.class && idType != int.class) {
+			throw new IllegalArgumentException("Bitmap index needs int ids, " + domainClass.getSimpleName() + " has "
+					+ idType.getSimpleName() + ".");
+		}
+		this.entityName = entityType.getName();
+		this.idAttribute = entityType.getId(idType).getName();
+		for (String field : fields) {
+			SearchAttribute attribute = attributeIndex.get(field);
+			if (attribute.isCollectionValued() || !attribute.supports(EQUALS)) {
+				throw new IllegalArgumentException("Bitmap index field '" + field + "' is not a to-one attribute of "
+						+ domainClass.getSimpleName() + ".");
+			}
+			attributes.add(attribute);
+			inspect(entityType, attribute);
+		}
+		this.index = new BitmapIndex(fields);
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public BitmapIndex getIndex() {
+		return index;
+	}
+
+	@Override
+	public boolean covers(ResolvedCriteria criteria) {
+		return enabled && BitmapIndex.OPERATIONS.contains(criteria.operation())
+				&& index.getFields().contains(criteria.attribute().getPath());
+	}
+
+	@Override
+	public Predicate matching(Root<?> root, CriteriaBuilder cb, SearchExpression expression,
+							  Function<SearchExpression.Criterion, ResolvedCriteria> resolved) {
+		final RoaringBitmap ids = index.evaluate(expression, resolved);
+		if (ids == null || ids.getCardinality() > maxIds) {
+			return null;
+		}
+		if (ids.isEmpty()) {
+			return cb.disjunction();
+		}
+		final List<Integer> list = new ArrayList<>(ids.getCardinality());
+		ids.forEach((int id) -> list.add(id));
+		return root.get(idAttribute).in(list);
+	}
+
+	/**
+	 * Builds the index from a scan of all entities, reading only the ids and indexed attributes. Associations are
+	 * left joined, so entities without them are indexed as well.
+	 */
+	public void rebuild() {
+		if (!enabled) {
+			return;
+		}
+		final long start = System.nanoTime();
+		index.rebuild(consumer -> scan(scanQuery(null), null, consumer));
+		log.info("Built bitmap index of {} {} on {} in {} ms", index.size(), domainClass.getSimpleName(),
+				index.cardinalities(), (System.nanoTime() - start) / 1_000_000);
+	}
+
+	@Override
+	public void onChange(EntityChange change) {
+		if (!enabled) {
+			return;
+		}
+		if (associatedTypes.containsValue(change.entityClass())) {
+			final long start = System.nanoTime();
+			final int[] count = new int[1];
+			scan(scanQuery(change.entityClass()), change.id(), (id, values) -> {
+				index.put(id, values);
+				count[0]++;
+			});
+			log.debug("{} of {} {} re-indexed {} {} in {} ms", change.kind(), change.entityClass().getSimpleName(),
+					change.id(), count[0], domainClass.getSimpleName(), (System.nanoTime() - start) / 1_000_000);
+			return;
+		}
+		if (change.entityClass() != domainClass) {
+			return;
+		}
+		final int id = (Integer) change.id();
+		if (change.kind() == EntityChange.Kind.DELETE) {
+			index.remove(id);
+			return;
+		}
+		final List<Object> values = new ArrayList<>(attributes.size());
+		for (SearchAttribute attribute : attributes) {
+			values.add(value(change.entity(), attribute));
+		}
+		index.put(id, values);
+	}
+
+	/**
+	 * Passes the id and indexed values of every row of the scan query to the consumer.
+	 */
+	private void scan(String select, Object associatedId, BiConsumer<Integer, List<Object>> consumer) {
+		EntityManager entityManager = entityManagerFactory.createEntityManager();
+		try {
+			TypedQuery<Object[]> query = entityManager.createQuery(select, Object[].class)
+					.setHint(AvailableHints.HINT_FETCH_SIZE, SCAN_FETCH_SIZE)
+					.setHint(AvailableHints.HINT_READ_ONLY, true);
+			if (associatedId != null) {
+				query.setParameter("associatedId", associatedId);
+			}
+			try (Stream<Object[]> rows = query.getResultStream()) {
+				rows.forEach(row -> consumer.accept((Integer) row[0], Arrays.asList(row).subList(1, row.length)));
+			}
+		} finally {
+			entityManager.close();
+		}
+	}
+
+	private Object value(Object entity, SearchAttribute attribute) {
+		final List<SearchAttribute.Segment> segments = attribute.getSegments();
+		final int last = segments.size() - 1;
+		Object value = entity;
+		for (int i = 0; i < last && value != null; i++) {
+			value = property(value, segments.get(i).name());
+		}
+		if (value == null) {
+			return null;
+		}
+		return associationIds.contains(attribute.getPath())
+				? persistenceUnitUtil.getIdentifier(value)
+				: property(value, segments.get(last).name());
+	}
+
+	private static Object property(Object value, String name) {
+		return PropertyAccessorFactory.forDirectFieldAccess(Hibernate.unproxy(value)).getPropertyValue(name);
+	}
+
+	private void inspect(EntityType<T> entityType, SearchAttribute attribute) {
+		final List<SearchAttribute.Segment> segments = attribute.getSegments();
+		final int last = segments.size() - 1;
+		final Map<String, Class<?>> associated = new LinkedHashMap<>();
+		ManagedType<?> type = entityType;
+		String path = null;
+		for (int i = 0; i < last; i++) {
+			path = path == null ? segments.get(i).name() : path + "." + segments.get(i).name();
+			type = (ManagedType<?>) ((SingularAttribute<?, ?>) type.getAttribute(segments.get(i).name())).getType();
+			if (type instanceof EntityType<?>) {
+				associated.put(path, type.getJavaType());
+			}
+		}
+		if (last > 0 && type instanceof EntityType<?> owner
+				&& owner.getAttribute(segments.get(last).name()) instanceof SingularAttribute<?, ?> id && id.isId()) {
+			// the id of an associated entity never changes, only the reference to it
+			associationIds.add(attribute.getPath());
+			associated.remove(path);
+		}
+		associatedTypes.putAll(associated);
+	}
+
+	/**
+	 * Query selecting the id and indexed values of all entities, or with an associated type only of the entities that
+	 * reference the associated entity with the {@code associatedId} parameter on an indexed path.
+	 */
+	private String scanQuery(Class<?> associatedType) {
+		final StringBuilder from = new StringBuilder(" from ").append(entityName).append(" e");
+		final List<String> references = new ArrayList<>();
+		final Map<String, String> aliases = new HashMap<>();
+		final List<String> selected = new ArrayList<>();
+		selected.add("e." + idAttribute);
+		for (SearchAttribute attribute : attributes) {
+			String alias = "e";
+			for (String path : attribute.getJoinPaths()) {
+				String parent = alias;
+				alias = aliases.get(path);
+				if (alias == null) {
+					alias = "j" + aliases.size();
+					aliases.put(path, alias);
+					from.append(" left join ").append(parent).append('.')
+							.append(path.substring(path.lastIndexOf('.') + 1)).append(' ').append(alias);
+					if (associatedType != null && associatedTypes.get(path) == associatedType) {
+						references.add("id(" + alias + ") = :associatedId");
+					}
+				}
+			}
+			selected.add(alias + "." + attribute.getSegments().stream()
+					.skip(attribute.getJoinPaths().size())
+					.map(SearchAttribute.Segment::name)
+					.collect(Collectors.joining(".")));
+		}
+		if (!references.isEmpty()) {
+			from.append(" where ").append(String.join(" or ", references));
+		}
+		return "select " + String.join(", ", selected) + from;
+	}
+}
@@ -0,0 +1,73 @@
+package com.dc.search.implementation.budget;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the number of search requests handled at once. A request that gets no permit within the maximum wait is
+ * answered with 429 right away instead of queueing for a database connection. Streamed responses keep their permit
+ * until the asynchronous dispatch completes.
+ */
+@Log4j2
+public class ConcurrencyBulkhead implements AsyncHandlerInterceptor {
+
+	private static final String PERMIT_ATTRIBUTE = ConcurrencyBulkhead.class.getName() + ".permit";
+
+	private final Semaphore permits;
+	private final Duration maxWait;
+	private final ObjectMapper objectMapper;
+
+	public ConcurrencyBulkhead(int maxConcurrent, Duration maxWait, ObjectMapper objectMapper) {
+		this.permits = new Semaphore(maxConcurrent);
+		this.maxWait = maxWait;
+		this.objectMapper = objectMapper;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+		if (request.getDispatcherType() == DispatcherType.ASYNC || request.getAttribute(PERMIT_ATTRIBUTE) != null) {
+			return true;
+		}
+		if (permits.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS)) {
+			request.setAttribute(PERMIT_ATTRIBUTE, Boolean.TRUE);
+			return true;
+		}
+		log.debug("Rejected {} {}, no permit within {}", request.getMethod(), request.getRequestURI(), maxWait);
+		reject(response);
+		return false;
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+		if (request.getAttribute(PERMIT_ATTRIBUTE) != null) {
+			request.removeAttribute(PERMIT_ATTRIBUTE);
+			permits.release();
+		}
+	}
+
+	public int availablePermits() {
+		return permits.availablePermits();
+	}
+
+	private void reject(HttpServletResponse response) throws IOException {
+		ProblemDetail problem = ProblemDetail.forStatusAndDetail(HttpStatus.TOO_MANY_REQUESTS,
+				"Too many concurrent searches, retry later.");
+		response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+		response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+		response.setContentType(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+		objectMapper.writeValue(response.getOutputStream(), problem);
+	}
+}
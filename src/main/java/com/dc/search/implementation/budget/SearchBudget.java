@@ -0,0 +1,53 @@
+package com.dc.search.implementation.budget;
+
+import com.dc.search.implementation.CompiledSearch;
+
+/**
+ * Admission check of compiled searches against a maximum cost. Over budget searches are rejected, or in
+ * {@link Mode#DOWNGRADE} mode answered with a bounded number of rows by the endpoints that can do so.
+ */
+public class SearchBudget {
+
+	public enum Mode {
+		REJECT, DOWNGRADE
+	}
+
+	public enum Admission {
+		ACCEPT, DOWNGRADE
+	}
+
+	private final int maxCost;
+	private final Mode mode;
+
+	public SearchBudget(int maxCost, Mode mode) {
+		this.maxCost = maxCost;
+		this.mode = mode;
+	}
+
+	public boolean exceeds(CompiledSearch<?> search) {
+		return search.getCost().total() > maxCost;
+	}
+
+	/**
+	 * For endpoints that can bound their result, returns whether the search has to be downgraded or throws if over
+	 * budget searches are rejected.
+	 */
+	public Admission admit(CompiledSearch<?> search) {
+		if (!exceeds(search)) {
+			return Admission.ACCEPT;
+		}
+		if (mode == Mode.DOWNGRADE) {
+			return Admission.DOWNGRADE;
+		}
+		throw new SearchBudgetExceededException(search.getCost(), maxCost);
+	}
+
+	/**
+	 * For endpoints that can not bound their result, throws if the search is over budget.
+	 */
+	public void check(CompiledSearch<?> search) {
+		if (exceeds(search)) {
+			throw new SearchBudgetExceededException(search.getCost(), maxCost);
+		}
+	}
+}
@@ -0,0 +1,14 @@
+package com.dc.search.implementation.budget;
+
+import com.dc.search.implementation.InvalidSearchException;
+
+/**
+ * Thrown for searches whose cost exceeds the budget, an invalid search from the client's point of view.
+ */
+public class SearchBudgetExceededException extends InvalidSearchException {
+
+	public SearchBudgetExceededException(SearchCost cost, int maxCost) {
+		super("Search is too expensive: cost " + cost + " exceeds the budget of " + maxCost
+				+ ". Use fewer criteria, LIKE or collection fields.");
+	}
+}
@@ -0,0 +1,33 @@
+package com.dc.search.implementation.budget;
+
+/**
+ * Estimated database cost of a normalized search. The total weighs every part by how much more work it causes than a
+ * single indexed comparison: a LIKE is a "%value%" match that no database index can serve, unless a trigram index
+ * narrows it down, and so are ILIKE, ENDS_WITH and EQ_IGNORE_CASE (a STARTS_WITH is a range scan and counts as a
+ * plain criterion), a to-many criterion is a correlated subquery, and long IN lists add to parsing and planning on the
+ * database.
+ */
+public record SearchCost(int criteria, int depth, int likes, int toManyCriteria, int inValues) {
+
+	public static final SearchCost NONE = new SearchCost(0, 0, 0, 0, 0);
+
+	static final int CRITERION_WEIGHT = 1;
+	static final int DEPTH_WEIGHT = 2;
+	static final int LIKE_WEIGHT = 10;
+	static final int TO_MANY_WEIGHT = 5;
+	static final int IN_VALUES_PER_POINT = 50;
+
+	public int total() {
+		return criteria * CRITERION_WEIGHT
+				+ depth * DEPTH_WEIGHT
+				+ likes * LIKE_WEIGHT
+				+ toManyCriteria * TO_MANY_WEIGHT
+				+ inValues / IN_VALUES_PER_POINT;
+	}
+
+	@Override
+	public String toString() {
+		return total() + " (" + criteria + " criteria, depth " + depth + ", " + likes + " LIKE, " + toManyCriteria
+				+ " to-many, " + inValues + " IN values)";
+	}
+}
@@ -0,0 +1,70 @@
+package com.dc.search.implementation.budget;
+
+import com.dc.search.implementation.parser.SearchExpression;
+
+import java.util.Locale;
+import java.util.function.Predicate;
+
+import static com.dc.search.implementation.BasicSearchSpecification.IN;
+import static com.dc.search.implementation.BasicSearchSpecification.NOT_IN;
+import static com.dc.search.implementation.BasicSearchSpecification.TEXT_SCAN_OPERATIONS;
+
+/**
+ * Computes the {@link SearchCost} of a search expression, once when the search is compiled.
+ */
+public class SearchCostModel {
+
+	private final Predicate<String> collectionValued;
+	private final Predicate<String> likeIndexed;
+
+	public SearchCostModel() {
+		this(key -> false, key -> false);
+	}
+
+	/**
+	 * @param collectionValued tells if a field path goes through a to-many association
+	 * @param likeIndexed      tells if LIKE and other text scan criteria on a field path are narrowed down by an
+	 *                         index
+	 */
+	public SearchCostModel(Predicate<String> collectionValued, Predicate<String> likeIndexed) {
+		this.collectionValued = collectionValued;
+		this.likeIndexed = likeIndexed;
+	}
+
+	public SearchCost cost(SearchExpression expression) {
+		if (expression == null || expression instanceof SearchExpression.MatchNone) {
+			return SearchCost.NONE;
+		}
+		Counter counter = new Counter();
+		counter.visit(expression, 1);
+		return new SearchCost(counter.criteria, counter.depth, counter.likes, counter.toMany, counter.inValues);
+	}
+
+	private class Counter {
+		int criteria;
+		int depth;
+		int likes;
+		int toMany;
+		int inValues;
+
+		void visit(SearchExpression expression, int level) {
+			depth = Math.max(depth, level);
+			if (expression instanceof SearchExpression.Group group) {
+				for (SearchExpression child : group.children()) {
+					visit(child, level + 1);
+				}
+			} else if (expression instanceof SearchExpression.Criterion criterion) {
+				criteria++;
+				String operation = criterion.operation().toUpperCase(Locale.ROOT);
+				if (TEXT_SCAN_OPERATIONS.contains(operation) && !likeIndexed.test(criterion.key())) {
+					likes++;
+				} else if (IN.equals(operation) || NOT_IN.equals(operation)) {
+					inValues += criterion.value().split(",").length;
+				}
+				if (collectionValued.test(criterion.key())) {
+					toMany++;
+				}
+			}
+		}
+	}
+}
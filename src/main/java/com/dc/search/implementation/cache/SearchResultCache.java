@@ -0,0 +1,332 @@
+package com.dc.search.implementation.cache;
+
+import com.dc.search.implementation.CompiledSearch;
+import com.dc.search.implementation.SearchExecutor;
+import com.dc.search.implementation.change.EntityChange;
+import com.dc.search.implementation.change.EntityChangeObserver;
+import com.dc.search.implementation.columnar.ColumnarSnapshot;
+import com.dc.search.implementation.columnar.ParallelRanges;
+import com.dc.search.implementation.metamodel.SearchAttribute;
+import com.dc.search.implementation.metamodel.SearchAttributeIndex;
+import com.dc.search.implementation.parser.SearchExpression;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceUnitUtil;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.ManagedType;
+import jakarta.persistence.metamodel.Metamodel;
+import jakarta.persistence.metamodel.PluralAttribute;
+import jakarta.persistence.metamodel.SingularAttribute;
+import lombok.extern.log4j.Log4j2;
+import org.hibernate.Hibernate;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+
+/**
+ * Cache of search results keyed by the normalized search string and the expanded associations, bounded in size and
+ * time to live. Results are loaded in a read only transaction with the expanded associations initialized, so the cached
+ * entities can be serialized after their session is closed, the other associations are never loaded. Cached entities
+ * are shared between requests and must not be modified.
+ * <p>
+ * Every entry remembers the ids of the cached entities, of their associated entities and the entity types its
+ * criteria search, and committed changes only evict the entries they can affect:
+ * <ul>
+ *     <li>an insert or update of the root entity evicts the entries containing it and the entries whose search it now
+ *     matches, evaluated in memory on a one row {@link ColumnarSnapshot} of the changed entity, a delete only the
+ *     entries containing it</li>
+ *     <li>an update or delete of an associated entity evicts the entries containing it</li>
+ *     <li>an insert or update of an associated entity evicts the entries that search its type, and the entries
+ *     containing the root entity it belongs to, e.g. the person of a new address</li>
+ * </ul>
+ * A search running while a change commits is returned but not cached, so an entry never holds data older than the
+ * last invalidation.
+ */
+@Log4j2
+public class SearchResultCache<T> implements SearchExecutor<T>, EntityChangeObserver {
+
+	private final Class<T> domainClass;
+	private final SearchAttributeIndex<T> attributeIndex;
+	/** loads the matches of a specification, fetching the expanded associations it can with them */
+	private final BiFunction<Specification<T>, Set<String>, List<T>> loader;
+	private final PersistenceUnitUtil persistenceUnitUtil;
+	private final TransactionTemplate readOnlyTransaction;
+	private final Cache<Key, Entry<T>> cache;
+
+	/** to-one and to-many associations of the root entity by name, with their target entity class */
+	private final Map<String, Class<?>> toOneAssociations = new LinkedHashMap<>();
+	private final Map<String, Class<?>> toManyAssociations = new LinkedHashMap<>();
+	/** attributes of other entities that reference the root entity, e.g. Address.person */
+	private final Map<Class<?>, List<String>> rootReferences = new HashMap<>();
+	private final Metamodel metamodel;
+
+	private final AtomicLong generation = new AtomicLong();
+	private final LongAdder invalidations = new LongAdder();
+	private final LongAdder invalidatedEntries = new LongAdder();
+
+	public SearchResultCache(EntityManagerFactory entityManagerFactory, PlatformTransactionManager transactionManager,
+							 SearchAttributeIndex<T> attributeIndex, BiFunction<Specification<T>, Set<String>, List<T>> loader,
+							 long maximumSize, Duration timeToLive) {
+		this.domainClass = attributeIndex.getDomainClass();
+		this.attributeIndex = attributeIndex;
+		this.loader = loader;
+		this.persistenceUnitUtil = entityManagerFactory.getPersistenceUnitUtil();
+		this.metamodel = entityManagerFactory.getMetamodel();
+		this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+		this.readOnlyTransaction.setReadOnly(true);
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(timeToLive)
+				.recordStats()
+				.build();
+
+		for (Attribute<? super T, ?> attribute : metamodel.entity(domainClass).getAttributes()) {
+			if (attribute instanceof PluralAttribute<?, ?, ?> plural && plural.getElementType() instanceof EntityType<?>) {
+				toManyAssociations.put(attribute.getName(), plural.getElementType().getJavaType());
+			} else if (attribute.isAssociation()) {
+				toOneAssociations.put(attribute.getName(), attribute.getJavaType());
+			}
+		}
+		for (EntityType<?> entity : metamodel.getEntities()) {
+			for (SingularAttribute<?, ?> attribute : entity.getSingularAttributes()) {
+				if (attribute.isAssociation() && attribute.getJavaType() == domainClass) {
+					rootReferences.computeIfAbsent(entity.getJavaType(), type -> new ArrayList<>())
+							.add(attribute.getName());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the cached results of the search with all associations loaded.
+	 */
+	@Override
+	public List<T> findAll(CompiledSearch<T> search) {
+		final Set<String> all = new HashSet<>(toOneAssociations.keySet());
+		all.addAll(toManyAssociations.keySet());
+		return findAll(search, all);
+	}
+
+	/**
+	 * Returns the cached results of the search with the expanded associations loaded, loading them on a miss. Entries
+	 * are keyed by the canonical key, so equivalent searches share one entry per set of expanded associations.
+	 */
+	@Override
+	public List<T> findAll(CompiledSearch<T> search, Set<String> expand) {
+		if (search.matchesNothing()) {
+			return List.of();
+		}
+		final Key key = new Key(search.getCanonicalKey(), Set.copyOf(expand));
+		final Entry<T> cached = cache.getIfPresent(key);
+		if (cached != null) {
+			return cached.results();
+		}
+		final long loadedGeneration = generation.get();
+		final Entry<T> loaded = readOnlyTransaction.execute(status -> load(search, key.expand()));
+		if (generation.get() == loadedGeneration) {
+			cache.put(key, loaded);
+			// a change that bumped the generation after the check may have scanned the entries before the put
+			if (generation.get() != loadedGeneration) {
+				cache.asMap().remove(key, loaded);
+			}
+		}
+		return loaded.results();
+	}
+
+	@Override
+	public void onChange(EntityChange change) {
+		final Class<?> type = change.entityClass();
+		final boolean root = type == domainClass;
+		if (!root && !toOneAssociations.containsValue(type) && !toManyAssociations.containsValue(type)
+				&& !rootReferences.containsKey(type)) {
+			return;
+		}
+		// bumped before the entries are read, a search caching its results from now on removes them again unless it
+		// loaded them after the change
+		generation.incrementAndGet();
+
+		final Predicate<Entry<T>> affected;
+		final boolean deleted = change.kind() == EntityChange.Kind.DELETE;
+		if (root) {
+			final Predicate<Entry<T>> matched = deleted ? entry -> false : matchedBy(change.entity());
+			affected = entry -> entry.ids().contains(change.id()) || matched.test(entry);
+		} else {
+			final Set<Object> owners = rootReferences(change);
+			affected = entry -> entry.associatedIds().getOrDefault(type, Set.of()).contains(change.id())
+					|| (!deleted && entry.searchedTypes().contains(type))
+					|| owners.stream().anyMatch(entry.ids()::contains);
+		}
+
+		invalidations.increment();
+		int removed = 0;
+		for (Iterator<Entry<T>> entries = cache.asMap().values().iterator(); entries.hasNext(); ) {
+			if (affected.test(entries.next())) {
+				entries.remove();
+				removed++;
+			}
+		}
+		invalidatedEntries.add(removed);
+		log.debug("{} of {} {} invalidated {} cached searches", change.kind(), type.getSimpleName(), change.id(), removed);
+	}
+
+	public Statistics stats() {
+		return new Statistics(cache.estimatedSize(), cache.stats().hitCount(), cache.stats().missCount(),
+				cache.stats().hitRate(), cache.stats().evictionCount(), invalidations.sum(), invalidatedEntries.sum());
+	}
+
+	public void invalidateAll() {
+		generation.incrementAndGet();
+		cache.invalidateAll();
+	}
+
+	/**
+	 * Cache statistics, evictions count entries dropped for size or age, invalidations count the entity changes that
+	 * evicted entries and invalidated entries the entries they evicted.
+	 */
+	public record Statistics(long size, long hitCount, long missCount, double hitRate, long evictionCount,
+							 long invalidationCount, long invalidatedEntryCount) {
+	}
+
+	private record Key(String search, Set<String> expand) {
+	}
+
+	private record Entry<T>(SearchExpression expression, List<T> results, Set<Object> ids,
+							Map<Class<?>, Set<Object>> associatedIds, Set<Class<?>> searchedTypes) {
+	}
+
+	private Entry<T> load(CompiledSearch<T> search, Set<String> expand) {
+		final List<T> results = List.copyOf(loader.apply(search.getSpecification(), expand));
+		final Set<Object> ids = new HashSet<>();
+		final Map<Class<?>, Set<Object>> associatedIds = new HashMap<>();
+		for (T result : results) {
+			ids.add(persistenceUnitUtil.getIdentifier(result));
+			final var accessor = PropertyAccessorFactory.forDirectFieldAccess(result);
+			toOneAssociations.forEach((name, type) -> {
+				Object associated = expand.contains(name) ? accessor.getPropertyValue(name) : null;
+				if (associated != null) {
+					Hibernate.initialize(associated);
+					associatedIds.computeIfAbsent(type, key -> new HashSet<>()).add(persistenceUnitUtil.getIdentifier(associated));
+				}
+			});
+			toManyAssociations.forEach((name, type) -> {
+				Object collection = expand.contains(name) ? accessor.getPropertyValue(name) : null;
+				if (collection != null) {
+					Hibernate.initialize(collection);
+					Set<Object> elementIds = associatedIds.computeIfAbsent(type, key -> new HashSet<>());
+					for (Object element : (Collection<?>) collection) {
+						elementIds.add(persistenceUnitUtil.getIdentifier(element));
+					}
+				}
+			});
+		}
+		return new Entry<>(search.getExpression(), results, ids, associatedIds, searchedTypes(search.getExpression()));
+	}
+
+	/**
+	 * Returns a predicate telling whether the search of an entry matches the changed root entity. Only the attributes
+	 * the cached searches use are read from it. If they can not be read, e.g. because a lazy association of the entity
+	 * can not be loaded anymore, every entry is taken to match, and so is an entry that can not be evaluated, e.g.
+	 * because it was cached after the attributes were read and searches another one.
+	 */
+	private Predicate<Entry<T>> matchedBy(Object entity) {
+		if (entity == null) {
+			return entry -> true;
+		}
+		final Map<String, SearchAttribute> attributes = new HashMap<>();
+		for (Entry<T> entry : cache.asMap().values()) {
+			collectAttributes(entry.expression(), attributes);
+		}
+		final ColumnarSnapshot<T> changed;
+		try {
+			changed = ColumnarSnapshot.of(List.of(domainClass.cast(entity)), attributes.values());
+		} catch (RuntimeException e) {
+			log.debug("Could not evaluate cached searches on changed {}: {}", domainClass.getSimpleName(), e.toString());
+			return entry -> true;
+		}
+		return entry -> {
+			if (entry.expression() == null) {
+				return true;
+			}
+			try {
+				return !changed.findAll(entry.expression(), attributeIndex::resolve, ParallelRanges.SEQUENTIAL).isEmpty();
+			} catch (RuntimeException e) {
+				log.debug("Could not evaluate cached search {} on changed {}: {}", entry.expression(),
+						domainClass.getSimpleName(), e.toString());
+				return true;
+			}
+		};
+	}
+
+	private void collectAttributes(SearchExpression expression, Map<String, SearchAttribute> attributes) {
+		if (expression instanceof SearchExpression.Group group) {
+			group.children().forEach(child -> collectAttributes(child, attributes));
+		} else if (expression instanceof SearchExpression.Criterion criterion) {
+			SearchAttribute attribute = attributeIndex.resolve(criterion.toSearchCriteria()).attribute();
+			attributes.put(attribute.getPath(), attribute);
+		}
+	}
+
+	private Set<Object> rootReferences(EntityChange change) {
+		final List<String> references = rootReferences.getOrDefault(change.entityClass(), List.of());
+		if (references.isEmpty() || change.entity() == null) {
+			return Set.of();
+		}
+		final var accessor = PropertyAccessorFactory.forDirectFieldAccess(change.entity());
+		final Set<Object> owners = new HashSet<>();
+		for (String reference : references) {
+			Object owner = accessor.getPropertyValue(reference);
+			if (owner != null) {
+				owners.add(persistenceUnitUtil.getIdentifier(owner));
+			}
+		}
+		return owners;
+	}
+
+	/**
+	 * Entity types other than the root that the criteria of the search navigate to.
+	 */
+	private Set<Class<?>> searchedTypes(SearchExpression expression) {
+		final Set<Class<?>> types = new HashSet<>();
+		collectSearchedTypes(expression, types);
+		return types;
+	}
+
+	private void collectSearchedTypes(SearchExpression expression, Set<Class<?>> types) {
+		if (expression instanceof SearchExpression.Group group) {
+			group.children().forEach(child -> collectSearchedTypes(child, types));
+		} else if (expression instanceof SearchExpression.Criterion criterion) {
+			ManagedType<?> type = metamodel.managedType(domainClass);
+			for (String name : criterion.key().split("\\.")) {
+				Attribute<?, ?> attribute = type.getAttribute(name);
+				if (attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.BASIC) {
+					break;
+				}
+				Class<?> target = attribute instanceof PluralAttribute<?, ?, ?> plural
+						? plural.getElementType().getJavaType()
+						: attribute.getJavaType();
+				if (attribute.isAssociation()) {
+					types.add(target);
+				}
+				type = metamodel.managedType(target);
+			}
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package com.dc.search.implementation.change;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Modification version of the data of some entity types, one counter per type that every committed insert, update
+ * and delete of one of its entities increments. The counters start over when the application starts, the text of
+ * the version contains the start time to tell runs apart.
+ * <p>
+ * Like all {@link EntityChangeObserver}s the version misses changes that bypass Hibernate, like native SQL, and a
+ * committed change is visible in the database shortly before it is in the version.
+ */
+public class DataVersion implements EntityChangeObserver {
+
+	private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+	private final Map<Class<?>, AtomicLong> versions = new LinkedHashMap<>();
+
+	public DataVersion(Collection<Class<?>> types) {
+		for (Class<?> type : types) {
+			versions.put(type, new AtomicLong());
+		}
+	}
+
+	@Override
+	public void onChange(EntityChange change) {
+		AtomicLong version = versions.get(change.entityClass());
+		if (version != null) {
+			version.incrementAndGet();
+		}
+	}
+
+	public long version(Class<?> type) {
+		AtomicLong version = versions.get(type);
+		if (version == null) {
+			throw new IllegalArgumentException(type.getSimpleName() + " is not versioned.");
+		}
+		return version.get();
+	}
+
+	/**
+	 * Text of the current version of all types, e.g. "lq3x9k.12.0.3". It changes with every change of one of them and
+	 * never repeats an earlier text of this or a previous run.
+	 */
+	public String current() {
+		StringBuilder current = new StringBuilder(epoch);
+		for (AtomicLong version : versions.values()) {
+			current.append('.').append(version.get());
+		}
+		return current.toString();
+	}
+}
@@ -0,0 +1,11 @@
+package com.dc.search.implementation.change;
+
+/**
+ * Committed insert, update or delete of an entity, the entity holds its state after the change.
+ */
+public record EntityChange(Kind kind, Class<?> entityClass, Object id, Object entity) {
+
+	public enum Kind {
+		INSERT, UPDATE, DELETE
+	}
+}
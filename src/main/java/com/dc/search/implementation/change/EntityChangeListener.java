@@ -0,0 +1,89 @@
+package com.dc.search.implementation.change;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.log4j.Log4j2;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+
+/**
+ * Hibernate listener passing inserts, updates and deletes to the observers once their transaction has committed, so
+ * observers never react to changes that are rolled back. Changes made with bulk queries or native SQL bypass the
+ * listener.
+ */
+@Log4j2
+public class EntityChangeListener implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+		PostCommitDeleteEventListener {
+
+	private final Iterable<? extends EntityChangeObserver> observers;
+
+	public EntityChangeListener(Iterable<? extends EntityChangeObserver> observers) {
+		this.observers = observers;
+	}
+
+	/**
+	 * Registers the listener with the session factory behind the entity manager factory.
+	 */
+	public void register(EntityManagerFactory entityManagerFactory) {
+		EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+				.getServiceRegistry()
+				.getService(EventListenerRegistry.class);
+		registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+		registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+		registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+	}
+
+	@Override
+	public void onPostInsert(PostInsertEvent event) {
+		publish(new EntityChange(EntityChange.Kind.INSERT, event.getPersister().getMappedClass(), event.getId(),
+				event.getEntity()));
+	}
+
+	@Override
+	public void onPostUpdate(PostUpdateEvent event) {
+		publish(new EntityChange(EntityChange.Kind.UPDATE, event.getPersister().getMappedClass(), event.getId(),
+				event.getEntity()));
+	}
+
+	@Override
+	public void onPostDelete(PostDeleteEvent event) {
+		publish(new EntityChange(EntityChange.Kind.DELETE, event.getPersister().getMappedClass(), event.getId(),
+				event.getEntity()));
+	}
+
+	@Override
+	public void onPostInsertCommitFailed(PostInsertEvent event) {
+	}
+
+	@Override
+	public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+	}
+
+	@Override
+	public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+	}
+
+	@Override
+	public boolean requiresPostCommitHandling(EntityPersister persister) {
+		return true;
+	}
+
+	private void publish(EntityChange change) {
+		for (EntityChangeObserver observer : observers) {
+			try {
+				observer.onChange(change);
+			} catch (RuntimeException e) {
+				// the transaction is already committed, a failing observer must not hide that from the caller
+				log.error("Entity change observer {} failed on {} of {}", observer, change.kind(),
+						change.entityClass().getSimpleName(), e);
+			}
+		}
+	}
+}
@@ -0,0 +1,10 @@
+package com.dc.search.implementation.change;
+
+/**
+ * Receives every committed entity change, see {@link EntityChangeListener}. Called on the thread that committed the
+ * transaction, implementations have to be thread safe and fast.
+ */
+public interface EntityChangeObserver {
+
+	void onChange(EntityChange change);
+}
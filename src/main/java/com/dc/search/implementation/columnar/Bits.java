@@ -0,0 +1,97 @@
+package com.dc.search.implementation.columnar;
+
+import java.util.Arrays;
+
+/**
+ * Operations on bitsets stored as long words, bit i is in word i / 64. Ranges passed to the filters start at a word
+ * boundary, so ranges filtered in parallel never write to the same word.
+ */
+final class Bits {
+
+	private Bits() {
+	}
+
+	static long[] create(int size) {
+		return new long[(size + 63) >>> 6];
+	}
+
+	static long[] all(int size) {
+		long[] words = create(size);
+		Arrays.fill(words, -1L);
+		if ((size & 63) != 0) {
+			words[words.length - 1] = -1L >>> -size;
+		}
+		return words;
+	}
+
+	static void set(long[] words, int index) {
+		words[index >>> 6] |= 1L << index;
+	}
+
+	static boolean get(long[] words, int index) {
+		return (words[index >>> 6] & 1L << index) != 0;
+	}
+
+	/**
+	 * Keeps only the bits of the range [from, to) that are also set in the mask.
+	 */
+	static void and(long[] words, long[] mask, int from, int to) {
+		for (int i = from >>> 6, end = (to + 63) >>> 6; i < end; i++) {
+			words[i] &= mask[i];
+		}
+	}
+
+	static void and(long[] words, long[] other) {
+		for (int i = 0; i < words.length; i++) {
+			words[i] &= other[i];
+		}
+	}
+
+	static void or(long[] words, long[] other) {
+		for (int i = 0; i < words.length; i++) {
+			words[i] |= other[i];
+		}
+	}
+
+	static boolean isEmpty(long[] words) {
+		for (long word : words) {
+			if (word != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	static int cardinality(long[] words) {
+		int count = 0;
+		for (long word : words) {
+			count += Long.bitCount(word);
+		}
+		return count;
+	}
+
+	/**
+	 * Returns true if any bit of the range [from, to) is set.
+	 */
+	static boolean any(long[] words, int from, int to) {
+		if (from >= to) {
+			return false;
+		}
+		int first = from >>> 6;
+		int last = (to - 1) >>> 6;
+		long firstMask = -1L << from;
+		long lastMask = -1L >>> -to;
+		if (first == last) {
+			return (words[first] & firstMask & lastMask) != 0;
+		}
+		if ((words[first] & firstMask) != 0 || (words[last] & lastMask) != 0) {
+			return true;
+		}
+		for (int i = first + 1; i < last; i++) {
+			if (words[i] != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
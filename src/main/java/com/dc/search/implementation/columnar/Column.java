@@ -0,0 +1,105 @@
+package com.dc.search.implementation.columnar;
+
+import com.dc.search.implementation.BasicSearchSpecification;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Values of one attribute path for all rows of a snapshot, stored in primitive arrays. Paths through a to-many
+ * association have any number of values per row: the values of row r are the elements offsets[r] until
+ * offsets[r + 1], and a row matches a criterion if any of its values does, like the EXISTS subquery of the JPA
+ * specification. Null values never match, as in SQL.
+ */
+abstract class Column {
+
+	/**
+	 * Sets the bits of the matching elements of the range [from, to) in the words. Null elements may be set, they
+	 * are cleared afterwards.
+	 */
+	@FunctionalInterface
+	interface ElementFilter {
+		void apply(int from, int to, long[] words);
+	}
+
+	static final ElementFilter NONE = (from, to, words) -> {
+	};
+
+	private final int[] offsets;
+	private final long[] present;
+	private final int size;
+
+	Column(List<?> values, int[] offsets) {
+		this.offsets = offsets;
+		this.size = values.size();
+		this.present = Bits.create(size);
+		for (int i = 0; i < size; i++) {
+			if (values.get(i) != null) {
+				Bits.set(present, i);
+			}
+		}
+	}
+
+	/**
+	 * Creates the column for values of the given type, with one value per row if offsets is null.
+	 */
+	static Column of(Class<?> javaType, List<?> values, int[] offsets) {
+		if (javaType == Integer.class) {
+			return new IntColumn(values, offsets, value -> (Integer) value, String::valueOf);
+		}
+		if (javaType == LocalDate.class) {
+			return new IntColumn(values, offsets, value -> Math.toIntExact(((LocalDate) value).toEpochDay()),
+					day -> LocalDate.ofEpochDay(day).toString());
+		}
+		return new DictionaryColumn(values, offsets);
+	}
+
+	/**
+	 * Returns the filter for one resolved criterion, the value is already converted into the attribute type.
+	 */
+	abstract ElementFilter filter(String operation, Object value);
+
+	/**
+	 * Returns the bits of the rows that match the criterion.
+	 */
+	long[] match(String operation, Object value, int rows, ParallelRanges ranges) {
+		final ElementFilter filter = filter(operation, value);
+		final long[] elements = Bits.create(size);
+		if (filter != NONE) {
+			ranges.forEach(size, (from, to) -> {
+				filter.apply(from, to, elements);
+				Bits.and(elements, present, from, to);
+			});
+		}
+		if (offsets == null) {
+			return elements;
+		}
+		final long[] matches = Bits.create(rows);
+		ranges.forEach(rows, (from, to) -> {
+			for (int row = from; row < to; row++) {
+				if (Bits.any(elements, offsets[row], offsets[row + 1])) {
+					Bits.set(matches, row);
+				}
+			}
+		});
+		return matches;
+	}
+
+	int size() {
+		return size;
+	}
+
+	static List<?> values(Object value) {
+		return value instanceof Collection<?> values ? List.copyOf(values) : List.of(value);
+	}
+
+	static boolean isRange(String operation) {
+		return switch (operation) {
+			case BasicSearchSpecification.EQUALS, BasicSearchSpecification.GREATER,
+					BasicSearchSpecification.GREATER_OR_EQUALS, BasicSearchSpecification.LESS,
+					BasicSearchSpecification.LESS_OR_EQUALS -> true;
+			default -> false;
+		};
+	}
+}
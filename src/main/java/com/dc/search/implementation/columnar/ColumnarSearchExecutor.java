@@ -0,0 +1,103 @@
+package com.dc.search.implementation.columnar;
+
+import com.dc.search.implementation.CompiledSearch;
+import com.dc.search.implementation.SearchExecutor;
+import com.dc.search.implementation.change.EntityChange;
+import com.dc.search.implementation.change.EntityChangeObserver;
+import com.dc.search.implementation.metamodel.SearchAttributeIndex;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.metamodel.EntityType;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Evaluates searches against an in-memory {@link ColumnarSnapshot} of all entities instead of the database, meant for
+ * read heavy use where the data fits into memory. Results are the same as those of the JPA specification.
+ * <p>
+ * The snapshot is built by the first search and every committed change marks it stale, the next search then
+ * rebuilds it. Returned entities are shared between searches and must not be modified.
+ */
+@Log4j2
+public class ColumnarSearchExecutor<T> implements SearchExecutor<T>, EntityChangeObserver {
+
+	private final SearchAttributeIndex<T> attributeIndex;
+	private final EntityManager entityManager;
+	private final TransactionTemplate readOnlyTransaction;
+	private final ParallelRanges ranges;
+	private final String select;
+
+	private final AtomicLong generation = new AtomicLong();
+	private final LongAdder builds = new LongAdder();
+	private volatile Built<T> built;
+
+	public ColumnarSearchExecutor(EntityManagerFactory entityManagerFactory, PlatformTransactionManager transactionManager,
+								  SearchAttributeIndex<T> attributeIndex, int parallelThreshold) {
+		this.attributeIndex = attributeIndex;
+		this.entityManager = SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory);
+		this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+		this.readOnlyTransaction.setReadOnly(true);
+		this.ranges = new ParallelRanges(parallelThreshold);
+
+		EntityType<T> entityType = entityManagerFactory.getMetamodel().entity(attributeIndex.getDomainClass());
+		String id = entityType.getId(entityType.getIdType().getJavaType()).getName();
+		this.select = "select e from " + entityType.getName() + " e order by e." + id;
+	}
+
+	@Override
+	public List<T> findAll(CompiledSearch<T> search) {
+		if (search.matchesNothing()) {
+			return List.of();
+		}
+		return snapshot().findAll(search.getExpression(), attributeIndex::resolve, ranges);
+	}
+
+	@Override
+	public void onChange(EntityChange change) {
+		generation.incrementAndGet();
+	}
+
+	public Statistics stats() {
+		Built<T> current = built;
+		return new Statistics(current == null ? 0 : current.snapshot().size(), builds.sum(),
+				current != null && current.generation() == generation.get());
+	}
+
+	/**
+	 * Snapshot statistics, rows is the size of the last built snapshot and current is false once it is stale.
+	 */
+	public record Statistics(int rows, long builds, boolean current) {
+	}
+
+	private ColumnarSnapshot<T> snapshot() {
+		Built<T> current = built;
+		if (current != null && current.generation() == generation.get()) {
+			return current.snapshot();
+		}
+		synchronized (this) {
+			current = built;
+			final long buildGeneration = generation.get();
+			if (current == null || current.generation() != buildGeneration) {
+				final long start = System.nanoTime();
+				final ColumnarSnapshot<T> snapshot = readOnlyTransaction.execute(status -> ColumnarSnapshot.of(
+						entityManager.createQuery(select, attributeIndex.getDomainClass()).getResultList(),
+						attributeIndex.getAll()));
+				current = new Built<>(snapshot, buildGeneration);
+				built = current;
+				builds.increment();
+				log.info("Built columnar snapshot of {} {} in {} ms", snapshot.size(),
+						attributeIndex.getDomainClass().getSimpleName(), (System.nanoTime() - start) / 1_000_000);
+			}
+			return current.snapshot();
+		}
+	}
+
+	private record Built<T>(ColumnarSnapshot<T> snapshot, long generation) {
+	}
+}
@@ -0,0 +1,155 @@
+package com.dc.search.implementation.columnar;
+
+import com.dc.search.implementation.ResolvedCriteria;
+import com.dc.search.implementation.SearchCriteria;
+import com.dc.search.implementation.metamodel.SearchAttribute;
+import com.dc.search.implementation.parser.LogicalOperator;
+import com.dc.search.implementation.parser.SearchExpression;
+import org.hibernate.Hibernate;
+import org.springframework.beans.PropertyAccessorFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Immutable column oriented copy of a list of entities, with one {@link Column} per searchable attribute path.
+ * Searches are evaluated into a bitset of the matching rows, criteria on the columns and groups with word wise
+ * AND and OR of the bitsets of their children.
+ */
+public final class ColumnarSnapshot<T> {
+
+	private final List<T> rows;
+	private final Map<String, Column> columns;
+
+	private ColumnarSnapshot(List<T> rows, Map<String, Column> columns) {
+		this.rows = rows;
+		this.columns = columns;
+	}
+
+	/**
+	 * Builds the columns of the attributes by navigating their paths on every row, lazy associations are loaded, so
+	 * this has to run in the session of the rows.
+	 */
+	public static <T> ColumnarSnapshot<T> of(List<T> rows, Collection<SearchAttribute> attributes) {
+		Map<String, Column> columns = new HashMap<>();
+		for (SearchAttribute attribute : attributes) {
+			List<Object> values = new ArrayList<>(rows.size());
+			int[] offsets = attribute.isCollectionValued() ? new int[rows.size() + 1] : null;
+			for (int row = 0; row < rows.size(); row++) {
+				if (offsets == null) {
+					values.add(single(rows.get(row), attribute.getSegments()));
+				} else {
+					collect(rows.get(row), attribute.getSegments(), 0, values);
+					offsets[row + 1] = values.size();
+				}
+			}
+			columns.put(attribute.getPath(), Column.of(attribute.getJavaType(), values, offsets));
+		}
+		return new ColumnarSnapshot<>(List.copyOf(rows), Map.copyOf(columns));
+	}
+
+	public int size() {
+		return rows.size();
+	}
+
+	public List<T> getRows() {
+		return rows;
+	}
+
+	/**
+	 * Returns the rows matching the expression, in snapshot order.
+	 */
+	public List<T> findAll(SearchExpression expression, Function<SearchCriteria, ResolvedCriteria> resolver,
+						   ParallelRanges ranges) {
+		if (expression == null) {
+			return rows;
+		}
+		final long[] matches = evaluate(expression, resolver, ranges);
+		final List<T> results = new ArrayList<>(Bits.cardinality(matches));
+		for (int i = 0; i < matches.length; i++) {
+			long word = matches[i];
+			while (word != 0) {
+				results.add(rows.get(i * 64 + Long.numberOfTrailingZeros(word)));
+				word &= word - 1;
+			}
+		}
+		return results;
+	}
+
+	private long[] evaluate(SearchExpression expression, Function<SearchCriteria, ResolvedCriteria> resolver,
+							ParallelRanges ranges) {
+		if (expression instanceof SearchExpression.MatchNone) {
+			return Bits.create(rows.size());
+		}
+		if (expression instanceof SearchExpression.Criterion criterion) {
+			ResolvedCriteria criteria = resolver.apply(criterion.toSearchCriteria());
+			Column column = columns.get(criteria.attribute().getPath());
+			if (column == null) {
+				throw new IllegalArgumentException("Search field '" + criterion.key() + "' is not in the snapshot.");
+			}
+			return column.match(criteria.operation(), criteria.value(), rows.size(), ranges);
+		}
+
+		SearchExpression.Group group = (SearchExpression.Group) expression;
+		final boolean and = group.operator() == LogicalOperator.AND;
+		long[] result = null;
+		for (SearchExpression child : group.children()) {
+			long[] matches = evaluate(child, resolver, ranges);
+			if (result == null) {
+				result = matches;
+			} else if (and) {
+				Bits.and(result, matches);
+			} else {
+				Bits.or(result, matches);
+			}
+			if (and && Bits.isEmpty(result)) {
+				break;
+			}
+		}
+		return result == null ? Bits.all(rows.size()) : result;
+	}
+
+	private static Object single(Object entity, List<SearchAttribute.Segment> segments) {
+		Object value = entity;
+		for (SearchAttribute.Segment segment : segments) {
+			if (value == null) {
+				return null;
+			}
+			value = property(value, segment.name());
+		}
+		return value;
+	}
+
+	/**
+	 * Adds the values at the end of the path to the list, one per element of every to-many association on the way.
+	 * Elements whose path is interrupted by a null association are skipped, like the inner joins of the subquery.
+	 */
+	private static void collect(Object value, List<SearchAttribute.Segment> segments, int index, List<Object> values) {
+		if (index == segments.size()) {
+			values.add(value);
+			return;
+		}
+		if (value == null) {
+			return;
+		}
+		SearchAttribute.Segment segment = segments.get(index);
+		Object next = property(value, segment.name());
+		if (segment.kind() == SearchAttribute.Kind.PLURAL_ASSOCIATION) {
+			if (next != null) {
+				for (Object element : (Collection<?>) next) {
+					collect(element, segments, index + 1, values);
+				}
+			}
+		} else if (next != null || index + 1 == segments.size()) {
+			collect(next, segments, index + 1, values);
+		}
+	}
+
+	private static Object property(Object value, String name) {
+		return PropertyAccessorFactory.forDirectFieldAccess(Hibernate.unproxy(value)).getPropertyValue(name);
+	}
+}
@@ -0,0 +1,142 @@
+package com.dc.search.implementation.columnar;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+import static com.dc.search.implementation.BasicSearchSpecification.ENDS_WITH;
+import static com.dc.search.implementation.BasicSearchSpecification.EQUALS;
+import static com.dc.search.implementation.BasicSearchSpecification.EQUALS_IGNORE_CASE;
+import static com.dc.search.implementation.BasicSearchSpecification.GREATER;
+import static com.dc.search.implementation.BasicSearchSpecification.GREATER_OR_EQUALS;
+import static com.dc.search.implementation.BasicSearchSpecification.ILIKE;
+import static com.dc.search.implementation.BasicSearchSpecification.IN;
+import static com.dc.search.implementation.BasicSearchSpecification.LESS;
+import static com.dc.search.implementation.BasicSearchSpecification.LESS_OR_EQUALS;
+import static com.dc.search.implementation.BasicSearchSpecification.LIKE;
+import static com.dc.search.implementation.BasicSearchSpecification.NOT_EQUALS;
+import static com.dc.search.implementation.BasicSearchSpecification.NOT_IN;
+import static com.dc.search.implementation.BasicSearchSpecification.STARTS_WITH;
+
+/**
+ * Dictionary encoded column: the distinct values are sorted into a dictionary and every element stores the int code
+ * of its value. Codes are ordered like the values, so comparisons and prefixes become a code range, and IN and LIKE
+ * criteria are evaluated once per distinct value instead of once per element.
+ */
+final class DictionaryColumn extends Column {
+
+	private final Comparable<Object>[] dictionary;
+	private final int[] codes;
+
+	@SuppressWarnings("unchecked")
+	DictionaryColumn(List<?> values, int[] offsets) {
+		super(values, offsets);
+		TreeSet<Comparable<Object>> distinct = new TreeSet<>();
+		for (Object value : values) {
+			if (value != null) {
+				distinct.add((Comparable<Object>) value);
+			}
+		}
+		this.dictionary = distinct.toArray(new Comparable[0]);
+		this.codes = new int[values.size()];
+		for (int i = 0; i < codes.length; i++) {
+			Object value = values.get(i);
+			codes[i] = value == null ? 0 : Arrays.binarySearch(dictionary, value);
+		}
+	}
+
+	@Override
+	ElementFilter filter(String operation, Object value) {
+		if (isRange(operation)) {
+			int position = Arrays.binarySearch(dictionary, value);
+			boolean found = position >= 0;
+			int insertion = found ? position : -position - 1;
+			int min = switch (operation) {
+				case GREATER -> found ? position + 1 : insertion;
+				case GREATER_OR_EQUALS -> insertion;
+				case EQUALS -> found ? position : dictionary.length;
+				default -> 0;
+			};
+			int max = switch (operation) {
+				case LESS -> insertion - 1;
+				case LESS_OR_EQUALS -> found ? position : insertion - 1;
+				case EQUALS -> position;
+				default -> dictionary.length - 1;
+			};
+			return min > max ? NONE : between(min, max);
+		}
+		return switch (operation) {
+			case NOT_EQUALS -> {
+				int position = Arrays.binarySearch(dictionary, value);
+				yield accepted(code -> code != position);
+			}
+			case IN -> accepted(code -> values(value).stream().anyMatch(item -> equal(dictionary[code], item)));
+			case NOT_IN -> accepted(code -> values(value).stream().noneMatch(item -> equal(dictionary[code], item)));
+			case LIKE -> {
+				Predicate<String> pattern = LikePattern.compile(value.toString());
+				yield accepted(code -> pattern.test(String.valueOf(dictionary[code])));
+			}
+			case STARTS_WITH -> {
+				// the values starting with a prefix follow each other in the sorted dictionary
+				String prefix = value.toString();
+				int position = Arrays.binarySearch(dictionary, prefix);
+				int min = position >= 0 ? position : -position - 1;
+				int max = min;
+				while (max < dictionary.length && String.valueOf(dictionary[max]).startsWith(prefix)) {
+					max++;
+				}
+				yield min == max ? NONE : between(min, max - 1);
+			}
+			case ENDS_WITH -> {
+				String suffix = value.toString();
+				yield accepted(code -> String.valueOf(dictionary[code]).endsWith(suffix));
+			}
+			case ILIKE -> {
+				Predicate<String> pattern = LikePattern.compile(value.toString().toLowerCase(Locale.ROOT));
+				yield accepted(code -> pattern.test(String.valueOf(dictionary[code]).toLowerCase(Locale.ROOT)));
+			}
+			case EQUALS_IGNORE_CASE -> {
+				String text = value.toString().toLowerCase(Locale.ROOT);
+				yield accepted(code -> String.valueOf(dictionary[code]).toLowerCase(Locale.ROOT).equals(text));
+			}
+			default -> throw new RuntimeException("Unsupported search operation: " + operation);
+		};
+	}
+
+	private ElementFilter between(int min, int max) {
+		return (from, to, words) -> {
+			for (int i = from; i < to; i++) {
+				int code = codes[i];
+				words[i >>> 6] |= (code >= min && code <= max ? 1L : 0L) << i;
+			}
+		};
+	}
+
+	/**
+	 * Evaluates the condition once per dictionary entry and matches the elements through a lookup of their code.
+	 */
+	private ElementFilter accepted(IntPredicate condition) {
+		final boolean[] accepted = new boolean[dictionary.length];
+		boolean any = false;
+		for (int code = 0; code < dictionary.length; code++) {
+			accepted[code] = condition.test(code);
+			any |= accepted[code];
+		}
+		if (!any) {
+			return NONE;
+		}
+		return (from, to, words) -> {
+			for (int i = from; i < to; i++) {
+				words[i >>> 6] |= (accepted[codes[i]] ? 1L : 0L) << i;
+			}
+		};
+	}
+
+	private static boolean equal(Comparable<Object> value, Object other) {
+		return Objects.equals(value, other) || value.compareTo(other) == 0;
+	}
+}
@@ -0,0 +1,103 @@
+package com.dc.search.implementation.columnar;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+import static com.dc.search.implementation.BasicSearchSpecification.EQUALS;
+import static com.dc.search.implementation.BasicSearchSpecification.GREATER;
+import static com.dc.search.implementation.BasicSearchSpecification.GREATER_OR_EQUALS;
+import static com.dc.search.implementation.BasicSearchSpecification.IN;
+import static com.dc.search.implementation.BasicSearchSpecification.LESS;
+import static com.dc.search.implementation.BasicSearchSpecification.LESS_OR_EQUALS;
+import static com.dc.search.implementation.BasicSearchSpecification.LIKE;
+import static com.dc.search.implementation.BasicSearchSpecification.NOT_EQUALS;
+import static com.dc.search.implementation.BasicSearchSpecification.NOT_IN;
+
+/**
+ * Column of values encoded as ints, e.g. integers or dates as epoch days. Comparisons run as tight loops over the
+ * int array, LIKE criteria format every value as text.
+ */
+final class IntColumn extends Column {
+
+	private final int[] values;
+	private final ToIntFunction<Object> encoder;
+	private final IntFunction<String> text;
+
+	IntColumn(List<?> values, int[] offsets, ToIntFunction<Object> encoder, IntFunction<String> text) {
+		super(values, offsets);
+		this.encoder = encoder;
+		this.text = text;
+		this.values = new int[values.size()];
+		for (int i = 0; i < this.values.length; i++) {
+			Object value = values.get(i);
+			this.values[i] = value == null ? 0 : encoder.applyAsInt(value);
+		}
+	}
+
+	@Override
+	ElementFilter filter(String operation, Object value) {
+		if (isRange(operation)) {
+			long encoded = encoder.applyAsInt(value);
+			long min = switch (operation) {
+				case GREATER -> encoded + 1;
+				case GREATER_OR_EQUALS, EQUALS -> encoded;
+				default -> Integer.MIN_VALUE;
+			};
+			long max = switch (operation) {
+				case LESS -> encoded - 1;
+				case LESS_OR_EQUALS, EQUALS -> encoded;
+				default -> Integer.MAX_VALUE;
+			};
+			return min > max ? NONE : between((int) min, (int) max);
+		}
+		return switch (operation) {
+			case NOT_EQUALS -> notEqual(encoder.applyAsInt(value));
+			case IN -> in(sorted(value), true);
+			case NOT_IN -> in(sorted(value), false);
+			case LIKE -> like(LikePattern.compile(value.toString()));
+			default -> throw new RuntimeException("Unsupported search operation: " + operation);
+		};
+	}
+
+	private ElementFilter between(int min, int max) {
+		return (from, to, words) -> {
+			for (int i = from; i < to; i++) {
+				int value = values[i];
+				words[i >>> 6] |= (value >= min && value <= max ? 1L : 0L) << i;
+			}
+		};
+	}
+
+	private ElementFilter notEqual(int excluded) {
+		return (from, to, words) -> {
+			for (int i = from; i < to; i++) {
+				words[i >>> 6] |= (values[i] != excluded ? 1L : 0L) << i;
+			}
+		};
+	}
+
+	private ElementFilter in(int[] sorted, boolean contained) {
+		return (from, to, words) -> {
+			for (int i = from; i < to; i++) {
+				words[i >>> 6] |= ((Arrays.binarySearch(sorted, values[i]) >= 0) == contained ? 1L : 0L) << i;
+			}
+		};
+	}
+
+	private ElementFilter like(Predicate<String> pattern) {
+		return (from, to, words) -> {
+			for (int i = from; i < to; i++) {
+				if (pattern.test(text.apply(values[i]))) {
+					Bits.set(words, i);
+				}
+			}
+		};
+	}
+
+	private int[] sorted(Object value) {
+		return values(value).stream().mapToInt(encoder).sorted().distinct().toArray();
+	}
+}
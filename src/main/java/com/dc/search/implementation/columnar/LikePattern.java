@@ -0,0 +1,35 @@
+package com.dc.search.implementation.columnar;
+
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Evaluates a LIKE criterion value the way the database does for "%value%": '%' matches any text, '_' any single
+ * character, a backslash escapes the next character and the match is case sensitive.
+ */
+final class LikePattern {
+
+	private LikePattern() {
+	}
+
+	static Predicate<String> compile(String value) {
+		if (value.indexOf('%') < 0 && value.indexOf('_') < 0 && value.indexOf('\\') < 0) {
+			return text -> text.contains(value);
+		}
+		StringBuilder regex = new StringBuilder(".*");
+		for (int i = 0; i < value.length(); i++) {
+			char ch = value.charAt(i);
+			if (ch == '\\' && i + 1 < value.length()) {
+				regex.append(Pattern.quote(String.valueOf(value.charAt(++i))));
+			} else if (ch == '%') {
+				regex.append(".*");
+			} else if (ch == '_') {
+				regex.append('.');
+			} else {
+				regex.append(Pattern.quote(String.valueOf(ch)));
+			}
+		}
+		Pattern pattern = Pattern.compile(regex.append(".*").toString(), Pattern.DOTALL);
+		return text -> pattern.matcher(text).matches();
+	}
+}
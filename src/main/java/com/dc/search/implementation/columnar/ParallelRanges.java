@@ -0,0 +1,61 @@
+package com.dc.search.implementation.columnar;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Splits index ranges into word aligned chunks that are processed on the common fork/join pool. Ranges up to the
+ * threshold are processed on the calling thread.
+ */
+public final class ParallelRanges {
+
+	public static final ParallelRanges SEQUENTIAL = new ParallelRanges(Integer.MAX_VALUE);
+
+	@FunctionalInterface
+	public interface RangeAction {
+		void apply(int from, int to);
+	}
+
+	private final int threshold;
+
+	/**
+	 * @param threshold largest range processed without splitting, rounded up to a multiple of 64
+	 */
+	public ParallelRanges(int threshold) {
+		if (threshold <= 0) {
+			throw new IllegalArgumentException("Parallel threshold must be positive.");
+		}
+		this.threshold = threshold >= Integer.MAX_VALUE - 63 ? Integer.MAX_VALUE : (threshold + 63) & ~63;
+	}
+
+	public void forEach(int size, RangeAction action) {
+		if (size <= threshold) {
+			action.apply(0, size);
+		} else {
+			ForkJoinPool.commonPool().invoke(new RangeTask(action, 0, size));
+		}
+	}
+
+	private class RangeTask extends RecursiveAction {
+
+		private final RangeAction action;
+		private final int from;
+		private final int to;
+
+		RangeTask(RangeAction action, int from, int to) {
+			this.action = action;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			int middle = (from + (to - from) / 2) & ~63;
+			if (to - from <= threshold || middle <= from) {
+				action.apply(from, to);
+				return;
+			}
+			invokeAll(new RangeTask(action, from, middle), new RangeTask(action, middle, to));
+		}
+	}
+}
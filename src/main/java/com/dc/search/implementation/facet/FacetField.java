@@ -0,0 +1,38 @@
+package com.dc.search.implementation.facet;
+
+import com.dc.search.implementation.InvalidSearchException;
+
+/**
+ * Requested facet, either a plain attribute path like "gender" or an integer attribute with a bucket size like
+ * "age:10".
+ */
+public record FacetField(String path, Integer bucketSize) {
+
+	public static final char BUCKET_SEPARATOR = ':';
+
+	public static FacetField parse(String facet) {
+		final String trimmed = facet.trim();
+		final int separator = trimmed.indexOf(BUCKET_SEPARATOR);
+		if (separator < 0) {
+			return new FacetField(trimmed, null);
+		}
+		final int bucketSize;
+		try {
+			bucketSize = Integer.parseInt(trimmed.substring(separator + 1));
+		} catch (NumberFormatException e) {
+			throw new InvalidSearchException("Invalid facet bucket size in '" + facet + "'.", e);
+		}
+		if (bucketSize < 1) {
+			throw new InvalidSearchException("Facet bucket size has to be positive in '" + facet + "'.");
+		}
+		return new FacetField(trimmed.substring(0, separator), bucketSize);
+	}
+
+	public boolean isBucketed() {
+		return bucketSize != null;
+	}
+
+	public String name() {
+		return isBucketed() ? path + BUCKET_SEPARATOR + bucketSize : path;
+	}
+}
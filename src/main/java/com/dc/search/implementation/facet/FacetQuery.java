@@ -0,0 +1,158 @@
+package com.dc.search.implementation.facet;
+
+import com.dc.search.implementation.InvalidSearchException;
+import com.dc.search.implementation.JoinPlan;
+import com.dc.search.implementation.metamodel.SearchAttribute;
+import com.dc.search.implementation.metamodel.SearchAttributeIndex;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Counts the matches of a search per value of one or more facet fields. All facets are grouped together in a single
+ * aggregate query, so the database returns one count per combination of facet values and the counts per facet are
+ * summed up from those rows. The number of facets per request is limited, since the combinations grow with every
+ * added field.
+ * <p>
+ * Facets are limited to attributes of the entity and its to-one associations, which are joined with LEFT JOIN so that
+ * matches without the association are counted under a null value. Integer attributes can be grouped into buckets of
+ * a fixed size, e.g. "age:10" counts ages 20 to 29 as "20-29".
+ */
+public class FacetQuery<T> {
+
+	private static final Set<Class<?>> BUCKET_TYPES = Set.of(Integer.class, Long.class, Short.class);
+
+	private final EntityManager entityManager;
+	private final SearchAttributeIndex<T> attributeIndex;
+	private final int maxFields;
+
+	public FacetQuery(EntityManager entityManager, SearchAttributeIndex<T> attributeIndex, int maxFields) {
+		this.entityManager = entityManager;
+		this.attributeIndex = attributeIndex;
+		this.maxFields = maxFields;
+	}
+
+	/**
+	 * Returns the value counts of every facet in the requested order, values of plain facets ordered by count and of
+	 * bucketed facets by bucket.
+	 */
+	public Map<String, List<FacetValue>> count(Specification<T> specification, List<String> facets) {
+		final List<FacetField> fields = resolve(facets);
+		final CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		final CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+		final Root<T> root = query.from(attributeIndex.getDomainClass());
+		if (specification != null) {
+			// built first, so that the facets reuse the joins the search already needs
+			Predicate predicate = specification.toPredicate(root, query, cb);
+			if (predicate != null) {
+				query.where(predicate);
+			}
+		}
+
+		final List<Expression<?>> groups = new ArrayList<>(fields.size());
+		for (FacetField field : fields) {
+			groups.add(groupExpression(field, root, cb));
+		}
+		final List<Selection<?>> selections = new ArrayList<>(groups);
+		selections.add(cb.count(root));
+		query.multiselect(selections).groupBy(groups);
+
+		final List<Map<Object, Long>> counts = new ArrayList<>(fields.size());
+		for (int i = 0; i < fields.size(); i++) {
+			counts.add(new HashMap<>());
+		}
+		for (Object[] row : entityManager.createQuery(query).getResultList()) {
+			final long count = (Long) row[fields.size()];
+			for (int i = 0; i < fields.size(); i++) {
+				counts.get(i).merge(row[i], count, Long::sum);
+			}
+		}
+
+		final Map<String, List<FacetValue>> result = new LinkedHashMap<>();
+		for (int i = 0; i < fields.size(); i++) {
+			result.put(fields.get(i).name(), values(fields.get(i), counts.get(i)));
+		}
+		return result;
+	}
+
+	private List<FacetField> resolve(List<String> facets) {
+		final Map<String, FacetField> fields = new LinkedHashMap<>();
+		for (String facet : facets) {
+			FacetField field = FacetField.parse(facet);
+			SearchAttribute attribute = attributeIndex.get(field.path());
+			if (attribute.isCollectionValued()) {
+				throw new InvalidSearchException("Facets on collection field '" + field.path() + "' are not supported.");
+			}
+			if (field.isBucketed() && !BUCKET_TYPES.contains(attribute.getJavaType())) {
+				throw new InvalidSearchException("Facet field '" + field.path() + "' of type "
+						+ attribute.getJavaType().getSimpleName() + " can not be bucketed.");
+			}
+			fields.putIfAbsent(field.name(), field);
+		}
+		if (fields.isEmpty()) {
+			throw new InvalidSearchException("At least one facet field is required.");
+		}
+		if (fields.size() > maxFields) {
+			throw new InvalidSearchException("At most " + maxFields + " facet fields can be requested at once.");
+		}
+		return List.copyOf(fields.values());
+	}
+
+	private Expression<?> groupExpression(FacetField field, Root<T> root, CriteriaBuilder cb) {
+		final SearchAttribute attribute = attributeIndex.get(field.path());
+		final List<SearchAttribute.Segment> segments = attribute.getSegments();
+		final int joins = attribute.getJoinPaths().size();
+		From<?, ?> from = root;
+		for (int i = 0; i < joins; i++) {
+			from = JoinPlan.join(from, segments.get(i).name(), JoinType.LEFT);
+		}
+		Path<Number> path = from.get(segments.get(joins).name());
+		for (int i = joins + 1; i < segments.size(); i++) {
+			path = path.get(segments.get(i).name());
+		}
+		if (!field.isBucketed()) {
+			return path;
+		}
+		// integer division, the lower bound of the bucket is restored when the counts are labeled
+		return cb.quot(path, field.bucketSize());
+	}
+
+	private static List<FacetValue> values(FacetField field, Map<Object, Long> counts) {
+		final List<FacetValue> values = new ArrayList<>(counts.size());
+		if (field.isBucketed()) {
+			counts.entrySet().stream()
+					.sorted(Map.Entry.comparingByKey(Comparator.nullsLast(Comparator.comparingLong(bucket -> ((Number) bucket).longValue()))))
+					.forEach(entry -> values.add(new FacetValue(label(entry.getKey(), field.bucketSize()), entry.getValue())));
+			return values;
+		}
+		counts.forEach((value, count) -> values.add(new FacetValue(value, count)));
+		values.sort(Comparator.comparingLong(FacetValue::count).reversed()
+				.thenComparing(value -> value.value() == null ? null : value.value().toString(),
+						Comparator.nullsLast(Comparator.naturalOrder())));
+		return values;
+	}
+
+	private static String label(Object bucket, int bucketSize) {
+		if (bucket == null) {
+			return null;
+		}
+		final long from = ((Number) bucket).longValue() * bucketSize;
+		return from + "-" + (from + bucketSize - 1);
+	}
+}
@@ -0,0 +1,7 @@
+package com.dc.search.implementation.facet;
+
+/**
+ * Number of matches sharing one value of a facet field. Bucketed facets use a range label like "20-29" as value.
+ */
+public record FacetValue(Object value, long count) {
+}
@@ -0,0 +1,128 @@
+package com.dc.search.implementation.fetch;
+
+import com.dc.search.implementation.InvalidSearchException;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.Metamodel;
+import org.hibernate.Hibernate;
+import org.springframework.beans.ConfigurablePropertyAccessor;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Decides which associations of an entity are loaded with a search and written to the response, e.g.
+ * {@code expand=country,address}. Expanded associations are loaded in a constant number of statements instead of one
+ * per entity: to-one associations are fetched with the entity in the search query, to-many associations are
+ * initialized after it, which Hibernate does in batches when the collection has a {@code @BatchSize}.
+ * <p>
+ * Associations that are not expanded are not loaded and left out of the JSON. The entity has to carry the
+ * {@value #JSON_FILTER} JSON filter, responses set it with {@link #filters(Set)}.
+ */
+public class FetchPlan<T> {
+
+	public static final String JSON_FILTER = "associations";
+
+	/**
+	 * Default filters of the object mapper, entities serialized without the filter of a fetch plan are written with
+	 * all their associations.
+	 */
+	public static final FilterProvider ALL_ASSOCIATIONS = new SimpleFilterProvider().setFailOnUnknownId(false);
+
+	private final Class<T> domainClass;
+	private final Set<String> toOneAssociations = new LinkedHashSet<>();
+	private final Set<String> toManyAssociations = new LinkedHashSet<>();
+
+	public FetchPlan(Metamodel metamodel, Class<T> domainClass) {
+		this.domainClass = domainClass;
+		for (Attribute<? super T, ?> attribute : metamodel.entity(domainClass).getAttributes()) {
+			if (!attribute.isAssociation()) {
+				continue;
+			}
+			if (attribute.isCollection()) {
+				toManyAssociations.add(attribute.getName());
+			} else {
+				toOneAssociations.add(attribute.getName());
+			}
+		}
+	}
+
+	/**
+	 * Returns the associations to expand, all of them without an expand parameter and none for an empty one.
+	 */
+	public Set<String> resolve(List<String> expand) {
+		if (expand == null) {
+			return all();
+		}
+		final Set<String> associations = new LinkedHashSet<>();
+		for (String name : expand) {
+			final String trimmed = name.trim();
+			if (trimmed.isEmpty()) {
+				continue;
+			}
+			if (!toOneAssociations.contains(trimmed) && !toManyAssociations.contains(trimmed)) {
+				throw new InvalidSearchException("Unknown association '" + trimmed + "' to expand for "
+						+ domainClass.getSimpleName() + ", expected one of " + all() + ".");
+			}
+			associations.add(trimmed);
+		}
+		return associations;
+	}
+
+	public Set<String> all() {
+		final Set<String> all = new LinkedHashSet<>(toOneAssociations);
+		all.addAll(toManyAssociations);
+		return all;
+	}
+
+	/**
+	 * Wraps the specification so that the query it is applied to also fetches the expanded to-one associations. Count
+	 * queries, which can not fetch, get the plain predicate. Criteria on a fetched association reuse its join.
+	 */
+	public Specification<T> fetching(Specification<T> specification, Set<String> expand) {
+		return (root, query, cb) -> {
+			if (query.getResultType() != Long.class && query.getResultType() != long.class) {
+				fetch(root, expand);
+			}
+			return specification == null ? null : specification.toPredicate(root, query, cb);
+		};
+	}
+
+	public void fetch(Root<T> root, Set<String> expand) {
+		for (String association : toOneAssociations) {
+			if (expand.contains(association)) {
+				root.fetch(association, JoinType.LEFT);
+			}
+		}
+	}
+
+	/**
+	 * Initializes the expanded associations of loaded entities that were not fetched with them, has to be called in
+	 * the session that loaded them.
+	 */
+	public void initialize(Collection<T> entities, Set<String> expand) {
+		for (T entity : entities) {
+			final ConfigurablePropertyAccessor accessor = PropertyAccessorFactory.forDirectFieldAccess(entity);
+			for (String association : expand) {
+				Hibernate.initialize(accessor.getPropertyValue(association));
+			}
+		}
+	}
+
+	/**
+	 * JSON filters writing only the expanded associations of the entity.
+	 */
+	public FilterProvider filters(Set<String> expand) {
+		final Set<String> excluded = all();
+		excluded.removeAll(expand);
+		return new SimpleFilterProvider().addFilter(JSON_FILTER, SimpleBeanPropertyFilter.serializeAllExcept(excluded));
+	}
+}
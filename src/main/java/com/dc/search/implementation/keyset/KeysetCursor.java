@@ -0,0 +1,43 @@
+package com.dc.search.implementation.keyset;
+
+import com.dc.search.implementation.InvalidSearchException;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of the last returned row, encoded as an opaque url safe token. The sort key and direction are part of
+ * the token so that a cursor can not be replayed against a differently ordered search.
+ */
+record KeysetCursor(String sort, Sort.Direction direction, String id, String value) {
+
+	private static final String VERSION = "v1";
+	private static final String DELIMITER = "|";
+
+	String encode() {
+		String raw = String.join(DELIMITER, VERSION, sort, direction.name(), id);
+		if (value != null) {
+			raw = raw + DELIMITER + value;
+		}
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	static KeysetCursor decode(String token) {
+		String raw;
+		try {
+			raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+		} catch (IllegalArgumentException e) {
+			throw new InvalidSearchException("Invalid cursor.", e);
+		}
+		String[] parts = raw.split("\\" + DELIMITER, 5);
+		if (parts.length < 4 || !VERSION.equals(parts[0])) {
+			throw new InvalidSearchException("Invalid cursor.");
+		}
+		try {
+			return new KeysetCursor(parts[1], Sort.Direction.fromString(parts[2]), parts[3], parts.length == 5 ? parts[4] : null);
+		} catch (IllegalArgumentException e) {
+			throw new InvalidSearchException("Invalid cursor.", e);
+		}
+	}
+}
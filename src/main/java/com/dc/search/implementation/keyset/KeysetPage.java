@@ -0,0 +1,9 @@
+package com.dc.search.implementation.keyset;
+
+import java.util.List;
+
+/**
+ * One page of a keyset paginated search, the next cursor is null when there are no further results.
+ */
+public record KeysetPage<T>(List<T> items, String nextCursor) {
+}
@@ -0,0 +1,17 @@
+package com.dc.search.implementation.keyset;
+
+import com.dc.search.implementation.InvalidSearchException;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Requested page of a keyset paginated search. The cursor is null for the first page, otherwise it is the
+ * {@link KeysetPage#nextCursor()} of the previous page.
+ */
+public record KeysetPageRequest(String sort, Sort.Direction direction, int limit, String cursor) {
+
+	public KeysetPageRequest {
+		if (limit < 1) {
+			throw new InvalidSearchException("Page limit has to be positive, got " + limit + ".");
+		}
+	}
+}
@@ -0,0 +1,144 @@
+package com.dc.search.implementation.keyset;
+
+import com.dc.search.implementation.InvalidSearchException;
+import com.dc.search.implementation.metamodel.ValueConverters;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.SingularAttribute;
+import org.hibernate.query.criteria.JpaOrder;
+import org.hibernate.query.sqm.NullPrecedence;
+import org.springframework.beans.ConfigurablePropertyAccessor;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Keyset (seek) pagination on top of a search specification. Rows are ordered by (sort key, id) and every page
+ * continues after the last returned row with a seek predicate instead of an OFFSET, so deep pages cost the same as
+ * the first one. Null sort keys are ordered last.
+ */
+public class KeysetPagination<T> {
+
+	private static final Set<Class<?>> SORTABLE_TYPES = Set.of(Integer.class, int.class, Long.class, long.class,
+			BigDecimal.class, Double.class, double.class, LocalDate.class, LocalDateTime.class, UUID.class, String.class);
+
+	private final EntityManager entityManager;
+	private final Class<T> domainClass;
+	private final EntityType<T> entityType;
+	private final SingularAttribute<? super T, ?> idAttribute;
+
+	public KeysetPagination(EntityManager entityManager, Class<T> domainClass) {
+		this.entityManager = entityManager;
+		this.domainClass = domainClass;
+		this.entityType = entityManager.getMetamodel().entity(domainClass);
+		this.idAttribute = entityType.getId(entityType.getIdType().getJavaType());
+	}
+
+	public KeysetPage<T> findPage(Specification<T> specification, KeysetPageRequest request) {
+		final SingularAttribute<? super T, ?> sortAttribute = sortAttribute(request.sort());
+		final boolean ascending = request.direction().isAscending();
+		final boolean sortById = sortAttribute.equals(idAttribute);
+		final KeysetCursor cursor = request.cursor() == null ? null : KeysetCursor.decode(request.cursor());
+		if (cursor != null && (!cursor.sort().equals(sortAttribute.getName()) || cursor.direction() != request.direction())) {
+			throw new InvalidSearchException("Cursor does not match the requested sort order.");
+		}
+
+		final CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		final CriteriaQuery<T> query = cb.createQuery(domainClass);
+		final Root<T> root = query.from(domainClass);
+		final Path<Comparable<Object>> key = root.get(sortAttribute.getName());
+		final Path<Comparable<Object>> id = root.get(idAttribute.getName());
+
+		final List<Predicate> predicates = new ArrayList<>(2);
+		if (specification != null) {
+			Predicate predicate = specification.toPredicate(root, query, cb);
+			if (predicate != null) {
+				predicates.add(predicate);
+			}
+		}
+		if (cursor != null) {
+			predicates.add(seek(cb, key, id, cursor, sortAttribute.getJavaType(), ascending, sortById));
+		}
+		query.select(root);
+		if (!predicates.isEmpty()) {
+			query.where(predicates.toArray(new Predicate[0]));
+		}
+
+		final Order idOrder = ascending ? cb.asc(id) : cb.desc(id);
+		if (sortById) {
+			query.orderBy(idOrder);
+		} else {
+			JpaOrder keyOrder = (JpaOrder) (ascending ? cb.asc(key) : cb.desc(key));
+			query.orderBy(keyOrder.nullPrecedence(NullPrecedence.LAST), idOrder);
+		}
+
+		final List<T> rows = entityManager.createQuery(query)
+				.setMaxResults(request.limit() + 1)
+				.getResultList();
+		if (rows.size() <= request.limit()) {
+			return new KeysetPage<>(rows, null);
+		}
+
+		final List<T> items = rows.subList(0, request.limit());
+		final T last = items.get(items.size() - 1);
+		final ConfigurablePropertyAccessor accessor = PropertyAccessorFactory.forDirectFieldAccess(last);
+		final Object lastValue = sortById ? null : accessor.getPropertyValue(sortAttribute.getName());
+		final Object lastId = accessor.getPropertyValue(idAttribute.getName());
+		final KeysetCursor next = new KeysetCursor(sortAttribute.getName(), request.direction(), String.valueOf(lastId),
+				lastValue == null ? null : lastValue.toString());
+		return new KeysetPage<>(List.copyOf(items), next.encode());
+	}
+
+	private Predicate seek(CriteriaBuilder cb, Path<Comparable<Object>> key, Path<Comparable<Object>> id,
+						   KeysetCursor cursor, Class<?> keyType, boolean ascending, boolean sortById) {
+		final Comparable<Object> lastId = convert(cursor.id(), idAttribute.getJavaType());
+		final Predicate afterId = ascending ? cb.greaterThan(id, lastId) : cb.lessThan(id, lastId);
+		if (sortById) {
+			return afterId;
+		}
+		if (cursor.value() == null) {
+			return cb.and(cb.isNull(key), afterId);
+		}
+		final Comparable<Object> lastValue = convert(cursor.value(), keyType);
+		final Predicate afterKey = ascending ? cb.greaterThan(key, lastValue) : cb.lessThan(key, lastValue);
+		return cb.or(afterKey, cb.and(cb.equal(key, lastValue), afterId), cb.isNull(key));
+	}
+
+	private SingularAttribute<? super T, ?> sortAttribute(String sort) {
+		final SingularAttribute<? super T, ?> attribute;
+		try {
+			attribute = entityType.getSingularAttribute(sort);
+		} catch (IllegalArgumentException e) {
+			throw new InvalidSearchException("Unsupported sort key: " + sort, e);
+		}
+		if (attribute.getPersistentAttributeType() != Attribute.PersistentAttributeType.BASIC
+				|| !SORTABLE_TYPES.contains(attribute.getJavaType())) {
+			throw new InvalidSearchException("Unsupported sort key: " + sort);
+		}
+		return attribute;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Comparable<Object> convert(String value, Class<?> javaType) {
+		try {
+			return (Comparable<Object>) ValueConverters.forType(javaType).convert(value);
+		} catch (RuntimeException e) {
+			throw new InvalidSearchException("Invalid cursor.", e);
+		}
+	}
+}
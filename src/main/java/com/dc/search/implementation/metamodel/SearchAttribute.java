@@ -0,0 +1,83 @@
+package com.dc.search.implementation.metamodel;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Searchable attribute path of an entity, e.g. "country.name", with everything needed to build predicates on it
+ * resolved up front from the JPA metamodel.
+ */
+@Getter
+public final class SearchAttribute {
+
+	/**
+	 * One step of the attribute path, associations are the steps that need a join.
+	 */
+	public record Segment(String name, Kind kind) {
+	}
+
+	public enum Kind {
+		BASIC, EMBEDDED, SINGULAR_ASSOCIATION, PLURAL_ASSOCIATION
+	}
+
+	private final String path;
+	private final List<Segment> segments;
+	private final Class<?> javaType;
+	private final ValueConverter converter;
+	private final Set<String> operations;
+	private final List<String> joinPaths;
+
+	SearchAttribute(String path, List<Segment> segments, Class<?> javaType, ValueConverter converter, Set<String> operations) {
+		this.path = path;
+		this.segments = List.copyOf(segments);
+		this.javaType = javaType;
+		this.converter = converter;
+		this.operations = Set.copyOf(operations);
+		this.joinPaths = joinPaths(this.segments);
+	}
+
+	/**
+	 * Association paths that have to be joined in the main query to reach the attribute, parents first, e.g. "country"
+	 * for "country.name". Paths stop before the first to-many association, which is searched in an EXISTS subquery,
+	 * and before embedded attributes, whose associations are left to the provider.
+	 */
+	private static List<String> joinPaths(List<Segment> segments) {
+		List<String> paths = new ArrayList<>();
+		StringBuilder path = new StringBuilder();
+		for (Segment segment : segments) {
+			if (segment.kind() != Kind.SINGULAR_ASSOCIATION) {
+				break;
+			}
+			if (!path.isEmpty()) {
+				path.append('.');
+			}
+			path.append(segment.name());
+			paths.add(path.toString());
+		}
+		return List.copyOf(paths);
+	}
+
+	/**
+	 * Returns true if the path goes through a to-many association, e.g. "address.line1".
+	 */
+	public boolean isCollectionValued() {
+		for (Segment segment : segments) {
+			if (segment.kind() == Kind.PLURAL_ASSOCIATION) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public boolean supports(String operation) {
+		return operations.contains(operation);
+	}
+
+	@Override
+	public String toString() {
+		return path + " (" + javaType.getSimpleName() + ")";
+	}
+}
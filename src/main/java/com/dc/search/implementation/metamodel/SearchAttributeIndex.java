@@ -0,0 +1,181 @@
+package com.dc.search.implementation.metamodel;
+
+import com.dc.search.implementation.InvalidSearchException;
+import com.dc.search.implementation.ResolvedCriteria;
+import com.dc.search.implementation.SearchCriteria;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.ManagedType;
+import jakarta.persistence.metamodel.Metamodel;
+import jakarta.persistence.metamodel.PluralAttribute;
+import jakarta.persistence.metamodel.SingularAttribute;
+import jakarta.persistence.metamodel.Type;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.util.ClassUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static com.dc.search.implementation.BasicSearchSpecification.ENDS_WITH;
+import static com.dc.search.implementation.BasicSearchSpecification.EQUALS;
+import static com.dc.search.implementation.BasicSearchSpecification.EQUALS_IGNORE_CASE;
+import static com.dc.search.implementation.BasicSearchSpecification.GREATER;
+import static com.dc.search.implementation.BasicSearchSpecification.GREATER_OR_EQUALS;
+import static com.dc.search.implementation.BasicSearchSpecification.ILIKE;
+import static com.dc.search.implementation.BasicSearchSpecification.IN;
+import static com.dc.search.implementation.BasicSearchSpecification.LESS;
+import static com.dc.search.implementation.BasicSearchSpecification.LESS_OR_EQUALS;
+import static com.dc.search.implementation.BasicSearchSpecification.LIKE;
+import static com.dc.search.implementation.BasicSearchSpecification.NOT_EQUALS;
+import static com.dc.search.implementation.BasicSearchSpecification.NOT_IN;
+import static com.dc.search.implementation.BasicSearchSpecification.STARTS_WITH;
+
+/**
+ * Index of all searchable attribute paths of an entity, built once from the JPA metamodel. Associations are followed
+ * up to {@link #MAX_ASSOCIATION_DEPTH} levels deep, without returning to an entity that is already on the path.
+ * Criteria are validated and their values converted against this index when a search is compiled.
+ */
+@Log4j2
+public class SearchAttributeIndex<T> {
+
+	public static final int MAX_ASSOCIATION_DEPTH = 3;
+
+	private static final Set<String> EQUALITY_OPERATIONS = Set.of(EQUALS, NOT_EQUALS, IN, NOT_IN);
+	private static final Set<String> TEXT_OPERATIONS = Set.of(EQUALS, NOT_EQUALS, IN, NOT_IN, LIKE);
+	private static final Set<String> ALL_OPERATIONS = Set.of(EQUALS, NOT_EQUALS, IN, NOT_IN, LIKE,
+			GREATER, GREATER_OR_EQUALS, LESS, LESS_OR_EQUALS);
+	private static final Set<String> STRING_OPERATIONS = Set.of(EQUALS, NOT_EQUALS, IN, NOT_IN, LIKE,
+			GREATER, GREATER_OR_EQUALS, LESS, LESS_OR_EQUALS, STARTS_WITH, ENDS_WITH, ILIKE, EQUALS_IGNORE_CASE);
+
+	private final Class<T> domainClass;
+	private final Map<String, SearchAttribute> attributes;
+
+	public SearchAttributeIndex(Metamodel metamodel, Class<T> domainClass) {
+		this.domainClass = domainClass;
+		Map<String, SearchAttribute> collected = new LinkedHashMap<>();
+		Set<Class<?>> visited = new HashSet<>();
+		visited.add(domainClass);
+		collect(metamodel.managedType(domainClass), "", new ArrayList<>(), visited, collected);
+		this.attributes = Map.copyOf(collected);
+		log.info("Indexed {} searchable attributes of {}: {}", attributes.size(), domainClass.getSimpleName(),
+				collected.keySet());
+	}
+
+	public Class<T> getDomainClass() {
+		return domainClass;
+	}
+
+	public SearchAttribute get(String path) {
+		SearchAttribute attribute = attributes.get(path);
+		if (attribute == null) {
+			throw new InvalidSearchException("Unknown search field '" + path + "' for " + domainClass.getSimpleName() + ".");
+		}
+		return attribute;
+	}
+
+	public Collection<SearchAttribute> getAll() {
+		return attributes.values();
+	}
+
+	/**
+	 * Validates the criteria against the index and converts its value into the attribute type. IN and NOT_IN values
+	 * are split on commas into a list, LIKE values are kept as strings.
+	 */
+	public ResolvedCriteria resolve(SearchCriteria criteria) {
+		final SearchAttribute attribute = get(criteria.getKey());
+		final String operation = criteria.getOperation().toUpperCase(Locale.ROOT);
+		if (!attribute.supports(operation)) {
+			throw new InvalidSearchException("Unsupported search operation " + operation + " for field '"
+					+ attribute.getPath() + "'.");
+		}
+		return new ResolvedCriteria(attribute, operation, convert(attribute, operation, criteria.getValue()));
+	}
+
+	private static Object convert(SearchAttribute attribute, String operation, String value) {
+		try {
+			if (LIKE.equals(operation)) {
+				return value;
+			}
+			if (IN.equals(operation) || NOT_IN.equals(operation)) {
+				return Arrays.stream(value.split(","))
+						.map(item -> attribute.getConverter().convert(item))
+						.toList();
+			}
+			return attribute.getConverter().convert(value);
+		} catch (RuntimeException e) {
+			throw new InvalidSearchException("Invalid value '" + value + "' for field '" + attribute.getPath()
+					+ "' of type " + attribute.getJavaType().getSimpleName() + ".", e);
+		}
+	}
+
+	private void collect(ManagedType<?> type, String prefix, List<SearchAttribute.Segment> segments,
+						 Set<Class<?>> visited, Map<String, SearchAttribute> collected) {
+		for (Attribute<?, ?> attribute : type.getAttributes()) {
+			final String path = prefix + attribute.getName();
+			switch (attribute.getPersistentAttributeType()) {
+				case BASIC -> {
+					List<SearchAttribute.Segment> basic = append(segments, attribute.getName(), SearchAttribute.Kind.BASIC);
+					Class<?> javaType = ClassUtils.resolvePrimitiveIfNecessary(attribute.getJavaType());
+					collected.put(path, new SearchAttribute(path, basic, javaType, ValueConverters.forType(javaType),
+							operationsFor(javaType)));
+				}
+				case EMBEDDED -> follow(((SingularAttribute<?, ?>) attribute).getType(), path, segments, attribute.getName(),
+						SearchAttribute.Kind.EMBEDDED, visited, collected);
+				case MANY_TO_ONE, ONE_TO_ONE -> follow(((SingularAttribute<?, ?>) attribute).getType(), path, segments,
+						attribute.getName(), SearchAttribute.Kind.SINGULAR_ASSOCIATION, visited, collected);
+				case ONE_TO_MANY, MANY_TO_MANY -> follow(((PluralAttribute<?, ?, ?>) attribute).getElementType(), path,
+						segments, attribute.getName(), SearchAttribute.Kind.PLURAL_ASSOCIATION, visited, collected);
+				default -> log.debug("Attribute {} of {} is not searchable", path, type.getJavaType().getSimpleName());
+			}
+		}
+	}
+
+	private void follow(Type<?> target, String path, List<SearchAttribute.Segment> segments, String name,
+						SearchAttribute.Kind kind, Set<Class<?>> visited, Map<String, SearchAttribute> collected) {
+		if (!(target instanceof ManagedType<?> managedType)) {
+			return;
+		}
+		final Class<?> javaType = managedType.getJavaType();
+		final boolean association = kind != SearchAttribute.Kind.EMBEDDED;
+		if (association && (visited.contains(javaType) || associationDepth(segments) >= MAX_ASSOCIATION_DEPTH)) {
+			return;
+		}
+		if (association) {
+			visited.add(javaType);
+		}
+		collect(managedType, path + ".", append(segments, name, kind), visited, collected);
+		if (association) {
+			visited.remove(javaType);
+		}
+	}
+
+	private static long associationDepth(List<SearchAttribute.Segment> segments) {
+		return segments.stream().filter(segment -> segment.kind() != SearchAttribute.Kind.EMBEDDED).count();
+	}
+
+	private static List<SearchAttribute.Segment> append(List<SearchAttribute.Segment> segments, String name,
+														SearchAttribute.Kind kind) {
+		List<SearchAttribute.Segment> appended = new ArrayList<>(segments.size() + 1);
+		appended.addAll(segments);
+		appended.add(new SearchAttribute.Segment(name, kind));
+		return appended;
+	}
+
+	private static Set<String> operationsFor(Class<?> javaType) {
+		if (javaType == Boolean.class) {
+			return EQUALITY_OPERATIONS;
+		} else if (javaType == String.class) {
+			return STRING_OPERATIONS;
+		} else if (javaType == UUID.class || !Comparable.class.isAssignableFrom(javaType)) {
+			return TEXT_OPERATIONS;
+		}
+		return ALL_OPERATIONS;
+	}
+}
@@ -0,0 +1,11 @@
+package com.dc.search.implementation.metamodel;
+
+/**
+ * Converts a search value from its string form into the Java type of an attribute. Converters are created once per
+ * attribute and throw {@link IllegalArgumentException} for values that do not fit the type.
+ */
+@FunctionalInterface
+public interface ValueConverter {
+
+	Object convert(String value);
+}
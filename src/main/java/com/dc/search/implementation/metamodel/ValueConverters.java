@@ -0,0 +1,54 @@
+package com.dc.search.implementation.metamodel;
+
+import com.dc.search.implementation.Utils;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.NumberUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+public final class ValueConverters {
+
+	private ValueConverters() {
+	}
+
+	/**
+	 * Returns the converter for values of the given attribute type, the type is only inspected here and not on every
+	 * conversion.
+	 */
+	@SuppressWarnings("unchecked")
+	public static ValueConverter forType(Class<?> type) {
+		final Class<?> javaType = ClassUtils.resolvePrimitiveIfNecessary(type);
+		if (javaType == Boolean.class) {
+			return Boolean::parseBoolean;
+		} else if (Number.class.isAssignableFrom(javaType)) {
+			// bound in the attribute's own type, e.g. Integer for age, so no CAST is needed in SQL
+			final Class<Number> numberType = (Class<Number>) javaType;
+			return value -> NumberUtils.parseNumber(value, numberType);
+		} else if (javaType == UUID.class) {
+			return UUID::fromString;
+		} else if (javaType == LocalDate.class) {
+			return ValueConverters::toLocalDate;
+		} else if (javaType == LocalDateTime.class) {
+			return LocalDateTime::parse;
+		} else if (javaType == List.class) {
+			return value -> Arrays.asList(value.split(","));
+		} else if (javaType == Set.class) {
+			return value -> Set.of(value.split(","));
+		} else {
+			return value -> value;
+		}
+	}
+
+	private static LocalDate toLocalDate(String value) {
+		LocalDate date = Utils.parseDateFromString(value);
+		if (date == null) {
+			throw new IllegalArgumentException("Unsupported date format: " + value);
+		}
+		return date;
+	}
+}
@@ -0,0 +1,131 @@
+package com.dc.search.implementation.metrics;
+
+import com.dc.search.implementation.CompiledSearch;
+import com.dc.search.implementation.parser.SearchExpression;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.log4j.Log4j2;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records finished {@link SearchTrace traces} as Micrometer meters and keeps the slowest recent requests:
+ * <ul>
+ *     <li>{@code search.phase} timer per phase and endpoint, with a percentile histogram</li>
+ *     <li>{@code search.request} timer of the whole request per endpoint</li>
+ *     <li>{@code search.criteria} summary of the criteria per search after normalization</li>
+ *     <li>{@code search.operations} counter of criteria per operation, the operator mix</li>
+ *     <li>{@code search.rows} summary of the rows returned per request</li>
+ * </ul>
+ * Requests slower than the threshold are logged and kept in a bounded log of the latest slow searches, with their
+ * normalized searches, SQL statements and phase timings.
+ */
+@Log4j2
+public class SearchMetrics {
+
+	private final MeterRegistry registry;
+	private final Duration slowThreshold;
+	private final int maxSlowSearches;
+	private final Deque<SlowSearch> slowSearches = new ArrayDeque<>();
+	private final DistributionSummary criteria;
+	private final DistributionSummary rows;
+
+	public SearchMetrics(MeterRegistry registry, Duration slowThreshold, int maxSlowSearches) {
+		this.registry = registry;
+		this.slowThreshold = slowThreshold;
+		this.maxSlowSearches = maxSlowSearches;
+		this.criteria = DistributionSummary.builder("search.criteria")
+				.description("Criteria per search after normalization")
+				.publishPercentileHistogram()
+				.register(registry);
+		this.rows = DistributionSummary.builder("search.rows")
+				.description("Rows returned per search request")
+				.publishPercentileHistogram()
+				.register(registry);
+	}
+
+	public void record(String endpoint, int status, SearchTrace trace) {
+		final long total = trace.elapsedNanos();
+		Timer.builder("search.request")
+				.description("Duration of search requests")
+				.tag("endpoint", endpoint)
+				.tag("status", String.valueOf(status))
+				.publishPercentileHistogram()
+				.register(registry)
+				.record(total, TimeUnit.NANOSECONDS);
+		trace.getPhases().forEach((phase, nanos) -> Timer.builder("search.phase")
+				.description("Time spent in each phase of search requests")
+				.tag("endpoint", endpoint)
+				.tag("phase", phase.name().toLowerCase(Locale.ROOT))
+				.publishPercentileHistogram()
+				.register(registry)
+				.record(nanos, TimeUnit.NANOSECONDS));
+		for (CompiledSearch<?> search : trace.getSearches()) {
+			criteria.record(search.getCost().criteria());
+			countOperations(search.getExpression());
+		}
+		if (trace.getRows() >= 0) {
+			rows.record(trace.getRows());
+		}
+
+		if (total >= slowThreshold.toNanos()) {
+			SlowSearch slow = slowSearch(endpoint, status, trace, total);
+			log.warn("Slow search {} took {} ms {}: {}", endpoint, slow.totalMillis(), slow.phaseMillis(), slow.searches());
+			synchronized (slowSearches) {
+				slowSearches.addFirst(slow);
+				while (slowSearches.size() > maxSlowSearches) {
+					slowSearches.removeLast();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the latest slow searches, newest first.
+	 */
+	public List<SlowSearch> getSlowSearches() {
+		synchronized (slowSearches) {
+			return List.copyOf(slowSearches);
+		}
+	}
+
+	public void clearSlowSearches() {
+		synchronized (slowSearches) {
+			slowSearches.clear();
+		}
+	}
+
+	private void countOperations(SearchExpression expression) {
+		if (expression instanceof SearchExpression.Criterion criterion) {
+			Counter.builder("search.operations")
+					.description("Criteria of the searches per operation")
+					.tag("operation", criterion.operation().toUpperCase(Locale.ROOT))
+					.register(registry)
+					.increment();
+		} else if (expression instanceof SearchExpression.Group group) {
+			group.children().forEach(this::countOperations);
+		}
+	}
+
+	private static SlowSearch slowSearch(String endpoint, int status, SearchTrace trace, long total) {
+		Map<SearchTrace.Phase, Double> phases = new EnumMap<>(SearchTrace.Phase.class);
+		trace.getPhases().forEach((phase, nanos) -> phases.put(phase, millis(nanos)));
+		List<String> searches = trace.getSearches().stream().map(CompiledSearch::getCanonicalKey).toList();
+		return new SlowSearch(Instant.now(), endpoint, status, searches, millis(total), phases, trace.getRows(),
+				List.copyOf(trace.getStatements()), trace.getDroppedStatements());
+	}
+
+	private static double millis(long nanos) {
+		return Math.round(nanos / 10_000.0) / 100.0;
+	}
+}
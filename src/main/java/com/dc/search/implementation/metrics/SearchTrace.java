@@ -0,0 +1,142 @@
+package com.dc.search.implementation.metrics;
+
+import com.dc.search.implementation.CompiledSearch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Timings of the phases of one search request, collected on the request thread. The static methods record into the
+ * trace of the current thread and do nothing when no trace was started, so instrumented code runs the same outside of
+ * traced requests, e.g. in batch threads or tests.
+ * <p>
+ * Phase times are exclusive: time spent in a nested phase, e.g. building predicates while the query executes, only
+ * counts for the nested phase.
+ */
+public final class SearchTrace {
+
+	public enum Phase {
+		/** parsing, normalizing and assembling the specification, or the compiled search cache lookup */
+		COMPILE,
+		/** building the JPA predicates from the specification */
+		PREDICATE,
+		/** running the query and loading the results */
+		EXECUTE,
+		/** writing the response body */
+		SERIALIZE
+	}
+
+	@FunctionalInterface
+	public interface Work<R, E extends Exception> {
+		R run() throws E;
+	}
+
+	private static final ThreadLocal<SearchTrace> CURRENT = new ThreadLocal<>();
+
+	private final long start = System.nanoTime();
+	private final int maxStatements;
+	private final Map<Phase, Long> phases = new EnumMap<>(Phase.class);
+	private final List<CompiledSearch<?>> searches = new ArrayList<>(1);
+	private final List<String> statements = new ArrayList<>();
+	private int droppedStatements;
+	private long nested;
+	private long rows = -1;
+
+	private SearchTrace(int maxStatements) {
+		this.maxStatements = maxStatements;
+	}
+
+	/**
+	 * Starts a trace on the current thread, keeping at most the given number of SQL statements.
+	 */
+	public static SearchTrace start(int maxStatements) {
+		SearchTrace trace = new SearchTrace(maxStatements);
+		CURRENT.set(trace);
+		return trace;
+	}
+
+	/**
+	 * Removes the trace of the current thread and returns it, or null if there was none.
+	 */
+	public static SearchTrace end() {
+		SearchTrace trace = CURRENT.get();
+		CURRENT.remove();
+		return trace;
+	}
+
+	public static boolean isActive() {
+		return CURRENT.get() != null;
+	}
+
+	public static <R, E extends Exception> R time(Phase phase, Work<R, E> work) throws E {
+		SearchTrace trace = CURRENT.get();
+		if (trace == null) {
+			return work.run();
+		}
+		final long outerNested = trace.nested;
+		trace.nested = 0;
+		final long start = System.nanoTime();
+		try {
+			return work.run();
+		} finally {
+			long elapsed = System.nanoTime() - start;
+			trace.phases.merge(phase, elapsed - trace.nested, Long::sum);
+			trace.nested = outerNested + elapsed;
+		}
+	}
+
+	public static void searched(CompiledSearch<?> search) {
+		SearchTrace trace = CURRENT.get();
+		if (trace != null) {
+			trace.searches.add(search);
+		}
+	}
+
+	public static void statement(String sql) {
+		SearchTrace trace = CURRENT.get();
+		if (trace != null) {
+			if (trace.statements.size() < trace.maxStatements) {
+				trace.statements.add(sql);
+			} else {
+				trace.droppedStatements++;
+			}
+		}
+	}
+
+	public static void rows(long rows) {
+		SearchTrace trace = CURRENT.get();
+		if (trace != null) {
+			trace.rows = Math.max(trace.rows, 0) + rows;
+		}
+	}
+
+	public long elapsedNanos() {
+		return System.nanoTime() - start;
+	}
+
+	public Map<Phase, Long> getPhases() {
+		return Collections.unmodifiableMap(phases);
+	}
+
+	public List<CompiledSearch<?>> getSearches() {
+		return Collections.unmodifiableList(searches);
+	}
+
+	public List<String> getStatements() {
+		return Collections.unmodifiableList(statements);
+	}
+
+	public int getDroppedStatements() {
+		return droppedStatements;
+	}
+
+	/**
+	 * Rows returned by the request, or -1 if it returned none, e.g. only counts.
+	 */
+	public long getRows() {
+		return rows;
+	}
+}
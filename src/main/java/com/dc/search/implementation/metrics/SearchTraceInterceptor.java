@@ -0,0 +1,49 @@
+package com.dc.search.implementation.metrics;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Traces search requests from the handler to the written response. Streamed responses are recorded when the handler
+ * returns, the body written on the asynchronous dispatch is not traced.
+ */
+public class SearchTraceInterceptor implements AsyncHandlerInterceptor {
+
+	private final SearchMetrics metrics;
+	private final int maxStatements;
+
+	public SearchTraceInterceptor(SearchMetrics metrics, int maxStatements) {
+		this.metrics = metrics;
+		this.maxStatements = maxStatements;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		if (request.getDispatcherType() != DispatcherType.ASYNC) {
+			SearchTrace.start(maxStatements);
+		}
+		return true;
+	}
+
+	@Override
+	public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		finish(request, response);
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+		finish(request, response);
+	}
+
+	private void finish(HttpServletRequest request, HttpServletResponse response) {
+		SearchTrace trace = SearchTrace.end();
+		if (trace != null) {
+			Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+			String endpoint = request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+			metrics.record(endpoint, response.getStatus(), trace);
+		}
+	}
+}
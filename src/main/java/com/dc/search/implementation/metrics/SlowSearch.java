@@ -0,0 +1,13 @@
+package com.dc.search.implementation.metrics;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Entry of the slow search log, times are in milliseconds.
+ */
+public record SlowSearch(Instant timestamp, String endpoint, int status, List<String> searches, double totalMillis,
+						 Map<SearchTrace.Phase, Double> phaseMillis, long rows, List<String> statements,
+						 int droppedStatements) {
+}
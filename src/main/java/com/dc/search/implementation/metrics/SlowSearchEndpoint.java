@@ -0,0 +1,30 @@
+package com.dc.search.implementation.metrics;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.List;
+
+/**
+ * Actuator endpoint {@code /actuator/slowsearches} listing the latest slow searches, a DELETE clears the list.
+ */
+@Endpoint(id = "slowsearches")
+public class SlowSearchEndpoint {
+
+	private final SearchMetrics metrics;
+
+	public SlowSearchEndpoint(SearchMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	@ReadOperation
+	public List<SlowSearch> slowSearches() {
+		return metrics.getSlowSearches();
+	}
+
+	@DeleteOperation
+	public void clear() {
+		metrics.clearSlowSearches();
+	}
+}
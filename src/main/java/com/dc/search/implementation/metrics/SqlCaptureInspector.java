@@ -0,0 +1,15 @@
+package com.dc.search.implementation.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Adds every SQL statement Hibernate prepares to the trace of the current thread.
+ */
+public class SqlCaptureInspector implements StatementInspector {
+
+	@Override
+	public String inspect(String sql) {
+		SearchTrace.statement(sql);
+		return sql;
+	}
+}
@@ -0,0 +1,35 @@
+package com.dc.search.implementation.metrics;
+
+import com.dc.search.implementation.keyset.KeysetPage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collection;
+
+/**
+ * JSON converter that records the serialization of traced responses and the number of rows they contain.
+ */
+public class TimedJacksonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+	public TimedJacksonHttpMessageConverter(ObjectMapper objectMapper) {
+		super(objectMapper);
+	}
+
+	@Override
+	protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+		final Object value = object instanceof MappingJacksonValue wrapper ? wrapper.getValue() : object;
+		if (value instanceof Collection<?> rows) {
+			SearchTrace.rows(rows.size());
+		} else if (value instanceof KeysetPage<?> page) {
+			SearchTrace.rows(page.items().size());
+		}
+		SearchTrace.time(SearchTrace.Phase.SERIALIZE, () -> {
+			super.writeInternal(object, type, outputMessage);
+			return null;
+		});
+	}
+}
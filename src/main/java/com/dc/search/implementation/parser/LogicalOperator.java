@@ -0,0 +1,30 @@
+package com.dc.search.implementation.parser;
+
+import com.dc.search.implementation.SpecificationBuilder;
+
+public enum LogicalOperator {
+	AND(SpecificationBuilder.AND_OPERATOR),
+	OR(SpecificationBuilder.OR_OPERATOR);
+
+	private final String token;
+
+	LogicalOperator(String token) {
+		this.token = token;
+	}
+
+	public String getToken() {
+		return token;
+	}
+
+	/**
+	 * Resolves the operator for a search token, ignoring case. Returns null if the token is not a logical operator.
+	 */
+	public static LogicalOperator fromToken(String token) {
+		if (AND.token.equalsIgnoreCase(token)) {
+			return AND;
+		} else if (OR.token.equalsIgnoreCase(token)) {
+			return OR;
+		}
+		return null;
+	}
+}
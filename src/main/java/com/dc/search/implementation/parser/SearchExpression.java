@@ -0,0 +1,56 @@
+package com.dc.search.implementation.parser;
+
+import com.dc.search.implementation.SearchCriteria;
+import com.dc.search.implementation.SpecificationBuilder;
+
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Immutable syntax tree of a parsed search string. Leaves are single criteria ("field~operation~value"), inner
+ * nodes combine their children with one logical operator. {@link MatchNone} is never parsed, it is produced when a
+ * search is normalized into a contradiction.
+ */
+public sealed interface SearchExpression permits SearchExpression.Criterion, SearchExpression.Group,
+		SearchExpression.MatchNone {
+
+	record Criterion(String key, String operation, String value) implements SearchExpression {
+
+		public SearchCriteria toSearchCriteria() {
+			return new SearchCriteria(key, operation, value);
+		}
+
+		@Override
+		public String toString() {
+			return key + SpecificationBuilder.SEPARATOR + operation + SpecificationBuilder.SEPARATOR + value;
+		}
+	}
+
+	record Group(LogicalOperator operator, List<SearchExpression> children) implements SearchExpression {
+
+		public Group {
+			children = List.copyOf(children);
+		}
+
+		@Override
+		public String toString() {
+			String delimiter = SpecificationBuilder.SEPARATOR + operator.getToken() + SpecificationBuilder.SEPARATOR;
+			StringJoiner joiner = new StringJoiner(delimiter, "(", ")");
+			for (SearchExpression child : children) {
+				joiner.add(child.toString());
+			}
+			return joiner.toString();
+		}
+	}
+
+	/**
+	 * Expression that no entity can match, e.g. "age~gt~50~and~age~lt~10".
+	 */
+	record MatchNone() implements SearchExpression {
+
+		@Override
+		public String toString() {
+			return "<none>";
+		}
+	}
+}
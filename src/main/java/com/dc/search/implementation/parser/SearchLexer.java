@@ -0,0 +1,80 @@
+package com.dc.search.implementation.parser;
+
+import com.dc.search.implementation.SpecificationBuilder;
+
+/**
+ * Single pass tokenizer for the search grammar. Tokens are produced on demand and only remember their offsets in the
+ * input, so no intermediate token list or substrings are created for separators and brackets.
+ */
+class SearchLexer {
+
+	enum TokenType {
+		LEFT_PARENTHESIS, RIGHT_PARENTHESIS, SEPARATOR, WORD, END
+	}
+
+	private static final char SEPARATOR = SpecificationBuilder.SEPARATOR.charAt(0);
+
+	private final String input;
+	private int position;
+
+	private TokenType type;
+	private int tokenStart;
+	private int tokenEnd;
+
+	SearchLexer(String input) {
+		this.input = input;
+		next();
+	}
+
+	TokenType type() {
+		return type;
+	}
+
+	int tokenStart() {
+		return tokenStart;
+	}
+
+	int tokenEnd() {
+		return tokenEnd;
+	}
+
+	String text() {
+		return input.substring(tokenStart, tokenEnd);
+	}
+
+	void next() {
+		final int length = input.length();
+		while (position < length && Character.isWhitespace(input.charAt(position))) {
+			position++;
+		}
+		tokenStart = position;
+		if (position == length) {
+			tokenEnd = position;
+			type = TokenType.END;
+			return;
+		}
+
+		final char current = input.charAt(position);
+		if (current == '(' || current == ')' || current == SEPARATOR) {
+			tokenEnd = ++position;
+			type = current == '(' ? TokenType.LEFT_PARENTHESIS
+					: current == ')' ? TokenType.RIGHT_PARENTHESIS : TokenType.SEPARATOR;
+			return;
+		}
+
+		// words run until the next structural character, trailing whitespace is not part of the word
+		int end = position;
+		while (position < length) {
+			final char ch = input.charAt(position);
+			if (ch == '(' || ch == ')' || ch == SEPARATOR) {
+				break;
+			}
+			position++;
+			if (!Character.isWhitespace(ch)) {
+				end = position;
+			}
+		}
+		tokenEnd = end;
+		type = TokenType.WORD;
+	}
+}
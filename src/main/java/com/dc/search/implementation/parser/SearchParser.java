@@ -0,0 +1,137 @@
+package com.dc.search.implementation.parser;
+
+import com.dc.search.implementation.InvalidSearchException;
+import com.dc.search.implementation.SpecificationBuilder;
+import com.dc.search.implementation.parser.SearchLexer.TokenType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recursive descent parser for search strings in the format "{field}~{operation}~{value}", joined with "and"/"or"
+ * and optionally grouped with parentheses:
+ * <pre>
+ * expression := term ( "~" ("and" | "or") "~" term )*
+ * term       := "(" expression ")" | field "~" operation "~" value
+ * </pre>
+ * Logical operators have no precedence and are applied from left to right, so "a~or~b~and~c" is read as
+ * "(a~or~b)~and~c". Consecutive operators of the same kind are collected into one {@link SearchExpression.Group}.
+ */
+public final class SearchParser {
+
+	public static final int MAX_NESTING_DEPTH = 128;
+
+	private final String search;
+	private final SearchLexer lexer;
+	private int depth;
+
+	private SearchParser(String search) {
+		this.search = search;
+		this.lexer = new SearchLexer(search);
+	}
+
+	/**
+	 * Parses the search string into an expression tree. Returns null for a null or blank search.
+	 */
+	public static SearchExpression parse(String search) {
+		if (search == null || search.isBlank()) {
+			return null;
+		}
+		SearchParser parser = new SearchParser(search);
+		SearchExpression expression = parser.parseExpression();
+		if (parser.lexer.type() != TokenType.END) {
+			throw parser.error("unexpected '" + parser.lexer.text() + "'");
+		}
+		return expression;
+	}
+
+	/**
+	 * Removes insignificant whitespace around separators and parentheses without parsing the search, so that
+	 * lexically equal searches map to the same string. Returns an empty string for a null search.
+	 */
+	public static String normalize(String search) {
+		if (search == null) {
+			return "";
+		}
+		SearchLexer lexer = new SearchLexer(search);
+		StringBuilder normalized = new StringBuilder(search.length());
+		while (lexer.type() != TokenType.END) {
+			normalized.append(search, lexer.tokenStart(), lexer.tokenEnd());
+			lexer.next();
+		}
+		return normalized.toString();
+	}
+
+	private SearchExpression parseExpression() {
+		SearchExpression result = parseTerm();
+		LogicalOperator chainOperator = null;
+		List<SearchExpression> operands = null;
+
+		while (lexer.type() == TokenType.SEPARATOR) {
+			lexer.next();
+			LogicalOperator operator = lexer.type() == TokenType.WORD ? LogicalOperator.fromToken(lexer.text()) : null;
+			if (operator == null) {
+				throw error("expected logical operator");
+			}
+			lexer.next();
+			separator();
+			SearchExpression right = parseTerm();
+
+			if (operator != chainOperator) {
+				if (operands != null) {
+					result = new SearchExpression.Group(chainOperator, operands);
+				}
+				operands = new ArrayList<>();
+				operands.add(result);
+				chainOperator = operator;
+			}
+			operands.add(right);
+		}
+
+		return operands == null ? result : new SearchExpression.Group(chainOperator, operands);
+	}
+
+	private SearchExpression parseTerm() {
+		if (lexer.type() == TokenType.LEFT_PARENTHESIS) {
+			if (++depth > MAX_NESTING_DEPTH) {
+				throw error("parentheses nested deeper than " + MAX_NESTING_DEPTH);
+			}
+			lexer.next();
+			SearchExpression expression = parseExpression();
+			if (lexer.type() != TokenType.RIGHT_PARENTHESIS) {
+				throw error("parentheses not matching");
+			}
+			lexer.next();
+			depth--;
+			return expression;
+		}
+
+		String key = word("field");
+		separator();
+		String operation = word("operation");
+		separator();
+		String value = word("value");
+		return new SearchExpression.Criterion(key, operation, value);
+	}
+
+	private String word(String expected) {
+		if (lexer.type() != TokenType.WORD) {
+			throw error("expected " + expected);
+		}
+		String text = lexer.text();
+		lexer.next();
+		return text;
+	}
+
+	private void separator() {
+		if (lexer.type() != TokenType.SEPARATOR) {
+			throw error("expected '" + SpecificationBuilder.SEPARATOR + "'");
+		}
+		lexer.next();
+	}
+
+	private InvalidSearchException error(String message) {
+		return new InvalidSearchException("Invalid search string: " + message + " at position "
+				+ lexer.tokenStart() + " in '" + search + "'.");
+	}
+}
@@ -0,0 +1,14 @@
+package com.dc.search.implementation.person;
+
+import com.dc.search.application.entity.Person;
+import com.dc.search.implementation.metamodel.SearchAttributeIndex;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.stereotype.Component;
+
+@Component
+public class PersonAttributeIndex extends SearchAttributeIndex<Person> {
+
+	public PersonAttributeIndex(EntityManagerFactory entityManagerFactory) {
+		super(entityManagerFactory.getMetamodel(), Person.class);
+	}
+}
@@ -0,0 +1,27 @@
+package com.dc.search.implementation.person;
+
+import com.dc.search.application.config.SearchProperties;
+import com.dc.search.application.entity.Person;
+import com.dc.search.implementation.bitmap.EntityBitmapIndex;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+@Component
+public class PersonBitmapIndex extends EntityBitmapIndex<Person> {
+
+	public PersonBitmapIndex(EntityManagerFactory entityManagerFactory, PersonAttributeIndex attributeIndex,
+							 SearchProperties properties) {
+		super(entityManagerFactory, attributeIndex, properties.getBitmap().getFields(),
+				properties.getBitmap().getMaxIds(), properties.getBitmap().isEnabled());
+	}
+
+	/**
+	 * Built once the application is ready, after the initial data was loaded.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuildOnStartup() {
+		rebuild();
+	}
+}
@@ -0,0 +1,18 @@
+package com.dc.search.implementation.person;
+
+import com.dc.search.application.config.SearchProperties;
+import com.dc.search.application.entity.Person;
+import com.dc.search.implementation.columnar.ColumnarSearchExecutor;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@Component
+public class PersonColumnarSearchExecutor extends ColumnarSearchExecutor<Person> {
+
+	public PersonColumnarSearchExecutor(EntityManagerFactory entityManagerFactory,
+										PlatformTransactionManager transactionManager,
+										PersonAttributeIndex attributeIndex, SearchProperties properties) {
+		super(entityManagerFactory, transactionManager, attributeIndex, properties.getColumnar().getParallelThreshold());
+	}
+}
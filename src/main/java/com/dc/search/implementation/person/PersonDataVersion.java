@@ -0,0 +1,20 @@
+package com.dc.search.implementation.person;
+
+import com.dc.search.application.entity.Address;
+import com.dc.search.application.entity.Country;
+import com.dc.search.application.entity.Person;
+import com.dc.search.implementation.change.DataVersion;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Version of the data in person responses, which include the country and addresses of every person.
+ */
+@Component
+public class PersonDataVersion extends DataVersion {
+
+	public PersonDataVersion() {
+		super(List.of(Person.class, Country.class, Address.class));
+	}
+}
@@ -0,0 +1,14 @@
+package com.dc.search.implementation.person;
+
+import com.dc.search.application.entity.Person;
+import com.dc.search.implementation.fetch.FetchPlan;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.stereotype.Component;
+
+@Component
+public class PersonFetchPlan extends FetchPlan<Person> {
+
+	public PersonFetchPlan(EntityManagerFactory entityManagerFactory) {
+		super(entityManagerFactory.getMetamodel(), Person.class);
+	}
+}
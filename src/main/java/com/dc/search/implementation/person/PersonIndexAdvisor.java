@@ -0,0 +1,22 @@
+package com.dc.search.implementation.person;
+
+import com.dc.search.application.config.SearchProperties;
+import com.dc.search.application.entity.Person;
+import com.dc.search.application.repository.PersonRepository;
+import com.dc.search.implementation.advisor.IndexAdvisor;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+@Component
+public class PersonIndexAdvisor extends IndexAdvisor<Person> {
+
+	public PersonIndexAdvisor(EntityManagerFactory entityManagerFactory, DataSource dataSource,
+							  PersonAttributeIndex attributeIndex, PersonSearchWorkload workload,
+							  PersonSearchCompiler compiler, PersonRepository repository, SearchProperties properties) {
+		super(entityManagerFactory, dataSource, attributeIndex, workload, compiler, repository::count,
+				properties.getAdvisor().getMaxSelectivity(), properties.getAdvisor().getMaxRecommendations(),
+				properties.getAdvisor().isApplyEnabled(), properties.getAdvisor().getTimingRuns());
+	}
+}
@@ -0,0 +1,24 @@
+package com.dc.search.implementation.person;
+
+import com.dc.search.application.config.SearchProperties;
+import com.dc.search.application.entity.Person;
+import com.dc.search.application.repository.PersonRepository;
+import com.dc.search.implementation.SearchExecutor;
+import com.dc.search.implementation.batch.SearchBatch;
+import com.dc.search.implementation.budget.SearchBudget;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@Component
+public class PersonSearchBatch extends SearchBatch<Person> {
+
+	public PersonSearchBatch(EntityManagerFactory entityManagerFactory, PlatformTransactionManager transactionManager,
+							 PersonSearchCompiler compiler, SearchExecutor<Person> searchExecutor,
+							 PersonRepository personRepository, SearchBudget searchBudget, SearchProperties properties) {
+		super(entityManagerFactory, transactionManager, Person.class, compiler, searchExecutor, personRepository::count,
+				personRepository::findPage, searchBudget, properties.getBudget().getDowngradeLimit(),
+				properties.getPage().getMaxLimit(), properties.getBatch().getMaxSearches(),
+				properties.getBatch().getParallelism());
+	}
+}
@@ -0,0 +1,20 @@
+package com.dc.search.implementation.person;
+
+import com.dc.search.application.config.SearchProperties;
+import com.dc.search.application.entity.Person;
+import com.dc.search.implementation.SearchCompiler;
+import com.dc.search.implementation.SearchNormalizer;
+import com.dc.search.implementation.budget.SearchCostModel;
+import org.springframework.stereotype.Component;
+
+@Component
+public class PersonSearchCompiler extends SearchCompiler<Person> {
+
+	public PersonSearchCompiler(PersonSpecificationProvider provider, PersonAttributeIndex attributeIndex,
+								PersonTrigramIndex trigramIndex, PersonBitmapIndex bitmapIndex,
+								PersonSearchWorkload workload, SearchProperties properties) {
+		super(provider, bitmapIndex.isEnabled() ? bitmapIndex : null, new SearchNormalizer(attributeIndex::resolve),
+				new SearchCostModel(path -> attributeIndex.get(path).isCollectionValued(), trigramIndex::covers),
+				workload, properties.getCompiledCache().getMaximumSize());
+	}
+}
@@ -0,0 +1,21 @@
+package com.dc.search.implementation.person;
+
+import com.dc.search.application.config.SearchProperties;
+import com.dc.search.application.entity.Person;
+import com.dc.search.application.repository.PersonRepository;
+import com.dc.search.implementation.cache.SearchResultCache;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@Component
+public class PersonSearchResultCache extends SearchResultCache<Person> {
+
+	public PersonSearchResultCache(EntityManagerFactory entityManagerFactory, PlatformTransactionManager transactionManager,
+								   PersonAttributeIndex attributeIndex, PersonRepository personRepository,
+								   PersonFetchPlan fetchPlan, SearchProperties properties) {
+		super(entityManagerFactory, transactionManager, attributeIndex,
+				(specification, expand) -> personRepository.findAll(fetchPlan.fetching(specification, expand)),
+				properties.getResultCache().getMaximumSize(), properties.getResultCache().getTimeToLive());
+	}
+}
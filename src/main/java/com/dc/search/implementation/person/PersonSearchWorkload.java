@@ -0,0 +1,13 @@
+package com.dc.search.implementation.person;
+
+import com.dc.search.application.config.SearchProperties;
+import com.dc.search.implementation.advisor.SearchWorkload;
+import org.springframework.stereotype.Component;
+
+@Component
+public class PersonSearchWorkload extends SearchWorkload {
+
+	public PersonSearchWorkload(SearchProperties properties) {
+		super(properties.getAdvisor().getMaxSearches());
+	}
+}
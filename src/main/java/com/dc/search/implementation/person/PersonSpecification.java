@@ -2,26 +2,34 @@ package com.dc.search.implementation.person;
 
 import com.dc.search.application.entity.Person;
 import com.dc.search.implementation.BasicSearchSpecification;
-import com.dc.search.implementation.SearchCriteria;
+import com.dc.search.implementation.LikeAccelerator;
+import com.dc.search.implementation.ResolvedCriteria;
+import com.dc.search.implementation.ResolvedSpecification;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
-import org.springframework.data.jpa.domain.Specification;
 
 
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
-public class PersonSpecification extends BasicSearchSpecification implements Specification<Person> {
-	private SearchCriteria criteria;
+@Getter
+public class PersonSpecification extends BasicSearchSpecification implements ResolvedSpecification<Person> {
+	private ResolvedCriteria criteria;
+	private LikeAccelerator likeAccelerator;
+
+	public PersonSpecification(ResolvedCriteria criteria) {
+		this.criteria = criteria;
+	}
 
 	@Override
 	public Predicate toPredicate(Root<Person> root, CriteriaQuery<?> query, CriteriaBuilder builder) {
-		return super.toPredicateBasic(root, query, builder, criteria);
+		return super.toPredicateBasic(root, query, builder, criteria, likeAccelerator);
 	}
 
 }
@@ -3,13 +3,19 @@ package com.dc.search.implementation.person;
 import com.dc.search.application.entity.Person;
 import com.dc.search.implementation.Providable;
 import com.dc.search.implementation.SearchCriteria;
+import lombok.RequiredArgsConstructor;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Component;
 
 @Component
+@RequiredArgsConstructor
 public class PersonSpecificationProvider implements Providable<Person> {
+
+	private final PersonAttributeIndex attributeIndex;
+	private final PersonTrigramIndex trigramIndex;
+
 	@Override
 	public Specification<Person> getNewInstance(SearchCriteria criteria) {
-		return new PersonSpecification(criteria);
+		return new PersonSpecification(attributeIndex.resolve(criteria), trigramIndex.isEnabled() ? trigramIndex : null);
 	}
 }
@@ -0,0 +1,27 @@
+package com.dc.search.implementation.person;
+
+import com.dc.search.application.config.SearchProperties;
+import com.dc.search.application.entity.Person;
+import com.dc.search.implementation.trigram.EntityTrigramIndex;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+@Component
+public class PersonTrigramIndex extends EntityTrigramIndex<Person> {
+
+	public PersonTrigramIndex(EntityManagerFactory entityManagerFactory, PersonAttributeIndex attributeIndex,
+							  SearchProperties properties) {
+		super(entityManagerFactory, attributeIndex, properties.getTrigram().getFields(),
+				properties.getTrigram().getMaxCandidates(), properties.getTrigram().isEnabled());
+	}
+
+	/**
+	 * Built once the application is ready, after the initial data was loaded.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuildOnStartup() {
+		rebuild();
+	}
+}
@@ -0,0 +1,131 @@
+package com.dc.search.implementation.projection;
+
+import com.dc.search.implementation.InvalidSearchException;
+import com.dc.search.implementation.JoinPlan;
+import com.dc.search.implementation.metamodel.SearchAttribute;
+import com.dc.search.implementation.metamodel.SearchAttributeIndex;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.EntityType;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Loads only the requested fields of the matches of a search, as a tuple query selecting just their columns. No
+ * entities are created or managed by the persistence context and no associations are loaded, which makes sparse
+ * responses much cheaper than loading entities and serializing parts of them.
+ * <p>
+ * Fields are attributes of the entity and its to-one associations, joined with LEFT JOIN so that matches without the
+ * association are returned with null values. Every match becomes a map in the shape of the entity JSON, e.g.
+ * "id,country.name" gives {@code {"id": 1, "country": {"name": "Canada"}}}.
+ */
+public class ProjectionQuery<T> {
+
+	private final EntityManager entityManager;
+	private final SearchAttributeIndex<T> attributeIndex;
+	private final String idAttribute;
+
+	public ProjectionQuery(EntityManager entityManager, SearchAttributeIndex<T> attributeIndex) {
+		this.entityManager = entityManager;
+		this.attributeIndex = attributeIndex;
+		EntityType<T> entityType = entityManager.getMetamodel().entity(attributeIndex.getDomainClass());
+		this.idAttribute = entityType.getId(entityType.getIdType().getJavaType()).getName();
+	}
+
+	/**
+	 * Returns the fields of all matches, or of the first {@code limit} matches by id if the limit is positive.
+	 */
+	public List<Map<String, Object>> findAll(Specification<T> specification, List<String> fields, int limit) {
+		final List<SearchAttribute> attributes = resolve(fields);
+		final CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		final CriteriaQuery<Tuple> query = cb.createTupleQuery();
+		final Root<T> root = query.from(attributeIndex.getDomainClass());
+		if (specification != null) {
+			// built first, so that the selected fields reuse the joins the search already needs
+			Predicate predicate = specification.toPredicate(root, query, cb);
+			if (predicate != null) {
+				query.where(predicate);
+			}
+		}
+		final List<Selection<?>> selections = new ArrayList<>(attributes.size());
+		for (SearchAttribute attribute : attributes) {
+			selections.add(path(attribute, root));
+		}
+		query.multiselect(selections);
+		if (limit > 0) {
+			query.orderBy(cb.asc(root.get(idAttribute)));
+		}
+
+		final TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+		if (limit > 0) {
+			typedQuery.setMaxResults(limit);
+		}
+		final List<Tuple> tuples = typedQuery.getResultList();
+		final List<Map<String, Object>> results = new ArrayList<>(tuples.size());
+		for (Tuple tuple : tuples) {
+			final Map<String, Object> result = new LinkedHashMap<>();
+			for (int i = 0; i < attributes.size(); i++) {
+				put(result, attributes.get(i).getSegments(), tuple.get(i));
+			}
+			results.add(result);
+		}
+		return results;
+	}
+
+	private List<SearchAttribute> resolve(List<String> fields) {
+		final Set<String> paths = new LinkedHashSet<>();
+		for (String field : fields) {
+			paths.add(field.trim());
+		}
+		if (paths.isEmpty()) {
+			throw new InvalidSearchException("At least one field is required.");
+		}
+		final List<SearchAttribute> attributes = new ArrayList<>(paths.size());
+		for (String path : paths) {
+			SearchAttribute attribute = attributeIndex.get(path);
+			if (attribute.isCollectionValued()) {
+				throw new InvalidSearchException("Collection field '" + path + "' can not be selected.");
+			}
+			attributes.add(attribute);
+		}
+		return attributes;
+	}
+
+	private Path<?> path(SearchAttribute attribute, Root<T> root) {
+		final List<SearchAttribute.Segment> segments = attribute.getSegments();
+		final int joins = attribute.getJoinPaths().size();
+		From<?, ?> from = root;
+		for (int i = 0; i < joins; i++) {
+			from = JoinPlan.join(from, segments.get(i).name(), JoinType.LEFT);
+		}
+		Path<?> path = from.get(segments.get(joins).name());
+		for (int i = joins + 1; i < segments.size(); i++) {
+			path = path.get(segments.get(i).name());
+		}
+		return path;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void put(Map<String, Object> result, List<SearchAttribute.Segment> segments, Object value) {
+		Map<String, Object> target = result;
+		for (int i = 0; i < segments.size() - 1; i++) {
+			target = (Map<String, Object>) target.computeIfAbsent(segments.get(i).name(), name -> new LinkedHashMap<>());
+		}
+		target.put(segments.get(segments.size() - 1).name(), value);
+	}
+}
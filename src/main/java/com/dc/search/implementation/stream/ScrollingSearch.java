@@ -0,0 +1,98 @@
+package com.dc.search.implementation.stream;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.query.Query;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Runs a search specification as a forward only scroll, handing every row to a consumer instead of collecting the
+ * result into a list. Rows are read in JDBC batches of {@code fetchSize} and the persistence context is cleared every
+ * {@code clearInterval} rows, so memory use does not grow with the number of matches. Has to be called inside a
+ * transaction.
+ * <p>
+ * Associations are not fetched with the rows unless the specification fetches them, see
+ * {@link com.dc.search.implementation.fetch.FetchPlan#fetching}. Rows are handed over in blocks of
+ * {@code clearInterval}, which are passed to an initializer first, so that lazy associations of a whole block can be
+ * loaded together, e.g. in batches, instead of one row at a time.
+ */
+public class ScrollingSearch<T> {
+
+	private final EntityManager entityManager;
+	private final Class<T> domainClass;
+	private final int fetchSize;
+	private final int clearInterval;
+
+	public ScrollingSearch(EntityManager entityManager, Class<T> domainClass, int fetchSize, int clearInterval) {
+		this.entityManager = entityManager;
+		this.domainClass = domainClass;
+		this.fetchSize = fetchSize;
+		this.clearInterval = clearInterval;
+	}
+
+	/**
+	 * Passes every entity matching the specification to the action and returns the number of matched entities.
+	 */
+	public long forEach(Specification<T> specification, Consumer<? super T> action) {
+		return forEach(specification, block -> {
+		}, action);
+	}
+
+	/**
+	 * Passes every block of entities matching the specification to the initializer and then every entity of the block
+	 * to the action, returns the number of matched entities.
+	 */
+	@SuppressWarnings("unchecked")
+	public long forEach(Specification<T> specification, Consumer<? super List<T>> initializer,
+						Consumer<? super T> action) {
+		final CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		final CriteriaQuery<T> query = cb.createQuery(domainClass);
+		final Root<T> root = query.from(domainClass);
+		query.select(root);
+		if (specification != null) {
+			Predicate predicate = specification.toPredicate(root, query, cb);
+			if (predicate != null) {
+				query.where(predicate);
+			}
+		}
+
+		long count = 0;
+		final List<T> block = new ArrayList<>(Math.min(clearInterval, fetchSize));
+		Query<T> scrollQuery = entityManager.createQuery(query).unwrap(Query.class);
+		try (ScrollableResults<T> results = scrollQuery
+				.setFetchSize(fetchSize)
+				.setReadOnly(true)
+				.setCacheMode(CacheMode.IGNORE)
+				.scroll(ScrollMode.FORWARD_ONLY)) {
+			while (results.next()) {
+				block.add(results.get());
+				count++;
+				if (block.size() == clearInterval) {
+					process(block, initializer, action);
+				}
+			}
+			process(block, initializer, action);
+		}
+		return count;
+	}
+
+	private void process(List<T> block, Consumer<? super List<T>> initializer, Consumer<? super T> action) {
+		if (block.isEmpty()) {
+			return;
+		}
+		initializer.accept(block);
+		block.forEach(action);
+		block.clear();
+		entityManager.clear();
+	}
+}
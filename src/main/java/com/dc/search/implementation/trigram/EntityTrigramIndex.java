@@ -0,0 +1,142 @@
+package com.dc.search.implementation.trigram;
+
+import com.dc.search.implementation.LikeAccelerator;
+import com.dc.search.implementation.change.EntityChange;
+import com.dc.search.implementation.change.EntityChangeObserver;
+import com.dc.search.implementation.metamodel.SearchAttribute;
+import com.dc.search.implementation.metamodel.SearchAttributeIndex;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.metamodel.EntityType;
+import lombok.extern.log4j.Log4j2;
+import org.hibernate.jpa.AvailableHints;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.ConfigurablePropertyAccessor;
+import org.springframework.beans.PropertyAccessorFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Trigram index over string attributes of an entity, used to narrow down LIKE criteria on them to an id filter.
+ * The index is built with {@link #rebuild()}, usually at startup, and kept in sync with committed inserts, updates
+ * and deletes afterwards. Changes that bypass Hibernate, like native SQL, are only picked up by the next rebuild, and
+ * a committed change is visible in the database shortly before it is in the index.
+ * <p>
+ * Candidate sets larger than the maximum are not used, a long id list costs the database more than the LIKE saves.
+ */
+@Log4j2
+public class EntityTrigramIndex<T> implements LikeAccelerator, EntityChangeObserver {
+
+	private static final int SCAN_FETCH_SIZE = 1000;
+
+	private final EntityManagerFactory entityManagerFactory;
+	private final Class<T> domainClass;
+	private final String idAttribute;
+	private final TrigramIndex index;
+	private final int maxCandidates;
+	private final boolean enabled;
+
+	public EntityTrigramIndex(EntityManagerFactory entityManagerFactory, SearchAttributeIndex<T> attributeIndex,
+							  List<String> fields, int maxCandidates, boolean enabled) {
+		this.entityManagerFactory = entityManagerFactory;
+		this.domainClass = attributeIndex.getDomainClass();
+		this.maxCandidates = maxCandidates;
+		this.enabled = enabled;
+		for (String field : fields) {
+			SearchAttribute attribute = attributeIndex.get(field);
+			if (attribute.getSegments().size() != 1 || attribute.getJavaType() != String.class) {
+				throw new IllegalArgumentException("Trigram index field '" + field + "' is not a string attribute of "
+						+ domainClass.getSimpleName() + ".");
+			}
+		}
+		EntityType<T> entityType = entityManagerFactory.getMetamodel().entity(domainClass);
+		Class<?> idType = entityType.getIdType().getJavaType();
+		if (idType != Integer.class && idType != int.class) {
+			throw new IllegalArgumentException("Trigram index needs int ids, " + domainClass.getSimpleName() + " has "
+					+ idType.getSimpleName() + ".");
+		}
+		this.idAttribute = entityType.getId(idType).getName();
+		this.index = new TrigramIndex(fields);
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public boolean covers(String path) {
+		return enabled && index.getFields().contains(path);
+	}
+
+	public TrigramIndex getIndex() {
+		return index;
+	}
+
+	/**
+	 * Builds the index from a scan of all entities, reading only the ids and indexed attributes.
+	 */
+	public void rebuild() {
+		if (!enabled) {
+			return;
+		}
+		final long start = System.nanoTime();
+		final String select = index.getFields().stream()
+				.map(field -> "e." + field)
+				.collect(Collectors.joining(", ", "select e." + idAttribute + ", ", " from " + domainClass.getSimpleName() + " e"));
+		index.rebuild(consumer -> {
+			EntityManager entityManager = entityManagerFactory.createEntityManager();
+			try (Stream<Object[]> rows = entityManager.createQuery(select, Object[].class)
+					.setHint(AvailableHints.HINT_FETCH_SIZE, SCAN_FETCH_SIZE)
+					.setHint(AvailableHints.HINT_READ_ONLY, true)
+					.getResultStream()) {
+				rows.forEach(row -> consumer.accept((Integer) row[0],
+						Arrays.stream(row, 1, row.length).map(value -> (String) value).toList()));
+			} finally {
+				entityManager.close();
+			}
+		});
+		log.info("Built trigram index of {} {} on {} with {} trigrams in {} ms", index.size(),
+				domainClass.getSimpleName(), index.getFields(), index.trigramCount(), (System.nanoTime() - start) / 1_000_000);
+	}
+
+	@Override
+	public Predicate candidates(Root<?> root, CriteriaBuilder cb, SearchAttribute attribute, String value) {
+		if (!covers(attribute.getPath())) {
+			return null;
+		}
+		final RoaringBitmap candidates = index.candidates(attribute.getPath(), value);
+		if (candidates == null || candidates.getCardinality() > maxCandidates) {
+			return null;
+		}
+		if (candidates.isEmpty()) {
+			return cb.disjunction();
+		}
+		final List<Integer> ids = new ArrayList<>(candidates.getCardinality());
+		candidates.forEach((int id) -> ids.add(id));
+		return root.get(idAttribute).in(ids);
+	}
+
+	@Override
+	public void onChange(EntityChange change) {
+		if (!enabled || change.entityClass() != domainClass) {
+			return;
+		}
+		final int id = (Integer) change.id();
+		if (change.kind() == EntityChange.Kind.DELETE) {
+			index.remove(id);
+			return;
+		}
+		final ConfigurablePropertyAccessor accessor = PropertyAccessorFactory.forDirectFieldAccess(change.entity());
+		final List<String> values = new ArrayList<>(index.getFields().size());
+		for (String field : index.getFields()) {
+			values.add((String) accessor.getPropertyValue(field));
+		}
+		index.put(id, values);
+	}
+}
@@ -0,0 +1,106 @@
+package com.dc.search.implementation.trigram;
+
+import com.dc.search.implementation.RebuildableIndex;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Thread safe trigram index over string fields of entities with int ids. Every trigram of a field maps to the bitmap
+ * of ids whose value contains it, the candidates for a LIKE value are the intersection of the bitmaps of its
+ * trigrams. Candidates are a superset of the matches, since trigrams are case insensitive and their positions are not
+ * checked, so the database still has to apply the LIKE.
+ */
+public class TrigramIndex extends RebuildableIndex<String, TrigramIndex.Data> {
+
+	public TrigramIndex(List<String> fields) {
+		super(fields, Data::new);
+	}
+
+	/**
+	 * Returns the ids of all entities whose field may contain the LIKE value, or null if the value has no trigram to
+	 * narrow the search with or the index is not built yet.
+	 */
+	public RoaringBitmap candidates(String field, String likeValue) {
+		final int index = getFields().indexOf(field);
+		final Set<String> trigrams = Trigrams.ofLikeValue(likeValue);
+		if (index < 0 || trigrams.isEmpty() || !isReady()) {
+			return null;
+		}
+		return read(data -> {
+			final Map<String, RoaringBitmap> postings = data.postings.get(index);
+			RoaringBitmap candidates = null;
+			for (String trigram : trigrams) {
+				RoaringBitmap ids = postings.get(trigram);
+				if (ids == null) {
+					return new RoaringBitmap();
+				}
+				candidates = candidates == null ? ids.clone() : RoaringBitmap.and(candidates, ids);
+				if (candidates.isEmpty()) {
+					return candidates;
+				}
+			}
+			return candidates;
+		});
+	}
+
+	public int trigramCount() {
+		return read(data -> data.postings.stream().mapToInt(Map::size).sum());
+	}
+
+	static final class Data implements RebuildableIndex.IndexData<String> {
+
+		/** trigram postings per field */
+		private final List<Map<String, RoaringBitmap>> postings;
+		/** indexed values per id, to remove their trigrams again */
+		private final Map<Integer, List<String>> values = new HashMap<>();
+
+		Data(int fieldCount) {
+			postings = new ArrayList<>(fieldCount);
+			for (int i = 0; i < fieldCount; i++) {
+				postings.add(new HashMap<>());
+			}
+		}
+
+		@Override
+		public void put(int id, List<String> fieldValues) {
+			remove(id);
+			values.put(id, fieldValues.stream().map(value -> value == null ? "" : value).toList());
+			for (int i = 0; i < fieldValues.size(); i++) {
+				Map<String, RoaringBitmap> fieldPostings = postings.get(i);
+				for (String trigram : Trigrams.of(fieldValues.get(i))) {
+					fieldPostings.computeIfAbsent(trigram, key -> new RoaringBitmap()).add(id);
+				}
+			}
+		}
+
+		@Override
+		public void remove(int id) {
+			List<String> old = values.remove(id);
+			if (old == null) {
+				return;
+			}
+			for (int i = 0; i < old.size(); i++) {
+				Map<String, RoaringBitmap> fieldPostings = postings.get(i);
+				for (String trigram : Trigrams.of(old.get(i))) {
+					RoaringBitmap ids = fieldPostings.get(trigram);
+					if (ids != null) {
+						ids.remove(id);
+						if (ids.isEmpty()) {
+							fieldPostings.remove(trigram);
+						}
+					}
+				}
+			}
+		}
+
+		@Override
+		public int size() {
+			return values.size();
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package com.dc.search.implementation.trigram;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Splits text into lower case trigrams, the three character substrings it contains.
+ */
+public final class Trigrams {
+
+	public static final int LENGTH = 3;
+
+	private Trigrams() {
+	}
+
+	/**
+	 * Trigrams of an indexed value.
+	 */
+	public static Set<String> of(String value) {
+		Set<String> trigrams = new LinkedHashSet<>();
+		if (value != null) {
+			add(value.toLowerCase(Locale.ROOT), trigrams);
+		}
+		return trigrams;
+	}
+
+	/**
+	 * Trigrams every value matching the LIKE value has to contain. The value is matched as "%value%", so only the
+	 * literal parts between the SQL wildcards '%' and '_' are used. Returns an empty set if no part is long enough.
+	 */
+	public static Set<String> ofLikeValue(String value) {
+		Set<String> trigrams = new LinkedHashSet<>();
+		String lowerCase = value.toLowerCase(Locale.ROOT);
+		int start = 0;
+		for (int i = 0; i <= lowerCase.length(); i++) {
+			if (i == lowerCase.length() || lowerCase.charAt(i) == '%' || lowerCase.charAt(i) == '_') {
+				add(lowerCase.substring(start, i), trigrams);
+				start = i + 1;
+			}
+		}
+		return trigrams;
+	}
+
+	private static void add(String text, Set<String> trigrams) {
+		for (int i = 0; i + LENGTH <= text.length(); i++) {
+			trigrams.add(text.substring(i, i + LENGTH));
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package com.dc.search.application.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZipfSamplerTest {
+
+	@Test
+	void testSkewFavorsFirstRanks() {
+		int[] counts = sample(new ZipfSampler(100, 1.0), 100_000);
+
+		// with an exponent of 1 rank 0 is drawn twice as often as rank 1 and about 19% of the time
+		assertTrue(counts[0] > 1.8 * counts[1]);
+		assertTrue(counts[0] > 17_000 && counts[0] < 21_000);
+		assertTrue(counts[99] > 0);
+	}
+
+	@Test
+	void testZeroSkewIsUniform() {
+		int[] counts = sample(new ZipfSampler(10, 0), 100_000);
+
+		for (int count : counts) {
+			assertTrue(count > 9_000 && count < 11_000);
+		}
+	}
+
+	@Test
+	void testAddressCountHasConfiguredMean() {
+		SplittableRandom random = new SplittableRandom(1);
+		long total = 0;
+		for (int i = 0; i < 100_000; i++) {
+			int count = DataGenerator.addressCount(random, 1.5);
+			assertTrue(count >= 0 && count <= DataGenerator.MAX_ADDRESSES);
+			total += count;
+		}
+		assertEquals(1.5, total / 100_000.0, 0.05);
+	}
+
+	private static int[] sample(ZipfSampler sampler, int samples) {
+		SplittableRandom random = new SplittableRandom(42);
+		int[] counts = new int[sampler.size()];
+		for (int i = 0; i < samples; i++) {
+			counts[sampler.sample(random)]++;
+		}
+		return counts;
+	}
+}
@@ -0,0 +1,51 @@
+package com.dc.search.implementation;
+
+import com.dc.search.application.entity.Person;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchCompilerTest {
+
+	private SearchCompiler<Person> compiler;
+
+	@BeforeEach
+	void setUp() {
+		compiler = new SearchCompiler<>(criteria -> (root, query, cb) -> cb.conjunction(), 100);
+	}
+
+	@Test
+	void testRepeatedSearchIsCompiledOnce() {
+		CompiledSearch<Person> first = compiler.compile("firstName~eq~John~and~age~gt~20");
+		CompiledSearch<Person> second = compiler.compile("firstName~eq~John~and~age~gt~20");
+
+		assertSame(first, second);
+		assertEquals(1, compiler.stats().missCount());
+		assertEquals(1, compiler.stats().hitCount());
+	}
+
+	@Test
+	void testWhitespaceIsNormalized() {
+		CompiledSearch<Person> first = compiler.compile("(firstName~eq~John) ~ and ~ (age~gt~20)");
+		CompiledSearch<Person> second = compiler.compile("(firstName~eq~John)~and~(age~gt~20)");
+
+		assertSame(first, second);
+		assertEquals("(firstName~eq~John)~and~(age~gt~20)", first.getKey());
+		assertNotNull(first.getSpecification());
+	}
+
+	@Test
+	void testBlankSearchIsUnrestricted() {
+		CompiledSearch<Person> compiled = compiler.compile("");
+
+		assertTrue(compiled.isUnrestricted());
+		assertNull(compiled.getSpecification());
+	}
+
+	@Test
+	void testInvalidSearchIsNotCached() {
+		assertThrows(IllegalArgumentException.class, () -> compiler.compile("(firstName~eq~John"));
+		assertEquals(0, compiler.size());
+	}
+}
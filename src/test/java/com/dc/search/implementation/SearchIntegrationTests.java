@@ -1,25 +1,102 @@
 package com.dc.search.implementation;
 
+import com.dc.search.application.config.SearchProperties;
+import com.dc.search.application.controller.SearchExceptionHandler;
+import com.dc.search.application.controller.ViewController;
+import com.dc.search.application.data.DataGenerator;
 import com.dc.search.application.entity.Address;
 import com.dc.search.application.entity.Country;
 import com.dc.search.application.entity.Person;
 import com.dc.search.application.repository.AddressRepository;
 import com.dc.search.application.repository.CountryRepository;
 import com.dc.search.application.repository.PersonRepository;
+import com.dc.search.implementation.advisor.AdvisorReport;
+import com.dc.search.implementation.advisor.AppliedIndex;
+import com.dc.search.implementation.advisor.FieldUsage;
+import com.dc.search.implementation.advisor.IndexRecommendation;
+import com.dc.search.implementation.batch.BatchResult;
+import com.dc.search.implementation.batch.BatchSearch;
+import com.dc.search.implementation.bitmap.EntityBitmapIndex;
+import com.dc.search.implementation.batch.SearchBatch;
+import com.dc.search.implementation.batch.SearchBatchRejectedException;
+import com.dc.search.implementation.budget.SearchBudget;
+import com.dc.search.implementation.cache.SearchResultCache;
+import com.dc.search.implementation.change.EntityChange;
+import com.dc.search.implementation.facet.FacetValue;
+import com.dc.search.implementation.keyset.KeysetPage;
+import com.dc.search.implementation.keyset.KeysetPageRequest;
+import com.dc.search.implementation.metamodel.SearchAttributeIndex;
+import com.dc.search.implementation.metrics.SearchTrace;
+import com.dc.search.implementation.parser.SearchParser;
+import com.dc.search.implementation.person.PersonAttributeIndex;
+import com.dc.search.implementation.person.PersonBitmapIndex;
+import com.dc.search.implementation.person.PersonColumnarSearchExecutor;
+import com.dc.search.implementation.person.PersonDataVersion;
+import com.dc.search.implementation.person.PersonFetchPlan;
+import com.dc.search.implementation.person.PersonIndexAdvisor;
+import com.dc.search.implementation.person.PersonSearchBatch;
+import com.dc.search.implementation.person.PersonSearchCompiler;
+import com.dc.search.implementation.person.PersonSearchResultCache;
 import com.dc.search.implementation.person.PersonSpecificationProvider;
+import com.dc.search.implementation.person.PersonTrigramIndex;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
+import static org.hamcrest.Matchers.hasSize;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
+@AutoConfigureMockMvc
 public class SearchIntegrationTests {
 
 	@Autowired
@@ -34,6 +111,51 @@ public class SearchIntegrationTests {
 	@Autowired
 	private AddressRepository addressRepository;
 
+	@Autowired
+	private PersonSearchCompiler searchCompiler;
+
+	@Autowired
+	private PersonSearchResultCache resultCache;
+
+	@Autowired
+	private PersonTrigramIndex trigramIndex;
+
+	@Autowired
+	private PersonColumnarSearchExecutor columnarExecutor;
+
+	@Autowired
+	private PersonBitmapIndex bitmapIndex;
+
+	@Autowired
+	private PersonSearchBatch searchBatch;
+
+	@Autowired
+	private PersonIndexAdvisor indexAdvisor;
+
+	@Autowired
+	private DataGenerator dataGenerator;
+
+	@Autowired
+	private PersonDataVersion dataVersion;
+
+	@Autowired
+	private PersonFetchPlan fetchPlan;
+
+	@Autowired
+	private SearchBudget searchBudget;
+
+	@Autowired
+	private PersonAttributeIndex attributeIndex;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
 	private SpecificationBuilder<Person> builder;
 
 	@BeforeEach
@@ -202,4 +324,734 @@ public class SearchIntegrationTests {
 		assertNotNull(results);
 		assertEquals(2, results.size());
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void testKeysetPagesByAge() {
+		KeysetPage<Person> first = personRepository.findPage(null, new KeysetPageRequest("age", Sort.Direction.ASC, 3, null));
+		assertEquals(List.of("Jane", "Emma", "John"), first.items().stream().map(Person::getFirstName).toList());
+		assertNotNull(first.nextCursor());
+
+		KeysetPage<Person> second = personRepository.findPage(null,
+				new KeysetPageRequest("age", Sort.Direction.ASC, 3, first.nextCursor()));
+		assertEquals(List.of("Antoine", "Alice", "Sophie"), second.items().stream().map(Person::getFirstName).toList());
+
+		KeysetPage<Person> third = personRepository.findPage(null,
+				new KeysetPageRequest("age", Sort.Direction.ASC, 3, second.nextCursor()));
+		assertEquals(List.of("Max", "Bob"), third.items().stream().map(Person::getFirstName).toList());
+		assertNull(third.nextCursor());
+	}
+
+	@Test
+	public void testKeysetPagesWithSearchAndNullKeys() {
+		personRepository.save(new Person(9, "Nora", "Null", "female", null, null, "nora@example.com",
+				"192.168.0.9", null, null));
+		personRepository.save(new Person(10, "Nina", "Null", "female", null, null, "nina@example.com",
+				"192.168.0.10", null, null));
+		Specification<Person> spec = builder.parse("gender~eq~female");
+
+		List<Integer> ids = new ArrayList<>();
+		String cursor = null;
+		do {
+			KeysetPage<Person> page = personRepository.findPage(spec, new KeysetPageRequest("age", Sort.Direction.DESC, 2, cursor));
+			page.items().forEach(person -> ids.add(person.getId()));
+			cursor = page.nextCursor();
+		} while (cursor != null);
+
+		assertEquals(List.of(7, 3, 5, 2, 10, 9), ids);
+	}
+
+	@Test
+	public void testKeysetCursorMustMatchSort() {
+		KeysetPage<Person> first = personRepository.findPage(null, new KeysetPageRequest("age", Sort.Direction.ASC, 3, null));
+		assertThrows(InvalidDataAccessApiUsageException.class, () -> personRepository.findPage(null,
+				new KeysetPageRequest("lastName", Sort.Direction.ASC, 3, first.nextCursor())));
+	}
+
+	@Test
+	public void testStreamAll() {
+		List<String> countries = new ArrayList<>();
+		long count = personRepository.streamAll(builder.parse("gender~eq~male~or~country.name~eq~France"),
+				Set.of("country"), person -> countries.add(person.getCountry().getName()));
+
+		assertEquals(5, count);
+		assertEquals(List.of("Canada", "USA", "Germany", "France", "France"), countries);
+	}
+
+	@Test
+	public void testNumericValuesBoundInAttributeType() {
+		assertEquals(3, personRepository.findAll(builder.parse("age~in~20,25,30")).size());
+		assertEquals("Bob", personRepository.findAll(builder.parse("heightInMeters~eq~1.75")).get(0).getFirstName());
+		assertEquals(5, personRepository.findAll(builder.parse("age~gte~25~and~age~lte~42")).size());
+	}
+
+	@Test
+	public void testInvalidCriteriaRejectedWhenParsed() {
+		assertThrows(IllegalArgumentException.class, () -> builder.parse("unknown~eq~1"));
+		assertThrows(IllegalArgumentException.class, () -> builder.parse("country~eq~1"));
+		assertThrows(IllegalArgumentException.class, () -> builder.parse("age~between~1"));
+		assertThrows(IllegalArgumentException.class, () -> builder.parse("birthdate~gt~1990/01/01"));
+		assertThrows(IllegalArgumentException.class, () -> builder.parse("age~gt~24.5"));
+	}
+
+	@Test
+	public void testTextMatchOperators() {
+		assertEquals(List.of(1, 2, 8), ids(personRepository.findAll(builder.parse("lastName~starts_with~D"))));
+		assertEquals(List.of(5, 6), ids(personRepository.findAll(builder.parse("lastName~ends_with~er"))));
+		assertEquals(List.of(1, 2), ids(personRepository.findAll(builder.parse("lastName~ilike~DO"))));
+		assertEquals(List.of(1, 2), ids(personRepository.findAll(builder.parse("lastName~eq_ignore_case~dOE"))));
+		assertEquals(List.of(1, 2), ids(personRepository.findAll(builder.parse("email~starts_with~j~and~address.line1~ends_with~St"))));
+		// values are literal text, not patterns
+		assertEquals(List.of(), ids(personRepository.findAll(builder.parse("lastName~starts_with~D_e"))));
+		assertEquals(List.of(), ids(personRepository.findAll(builder.parse("lastName~ends_with~%"))));
+		assertThrows(IllegalArgumentException.class, () -> builder.parse("age~starts_with~2"));
+		assertThrows(IllegalArgumentException.class, () -> builder.parse("birthdate~ilike~1990"));
+
+		SearchTrace trace = SearchTrace.start(10);
+		try {
+			personRepository.findAll(builder.parse("lastName~starts_with~Mil"));
+		} finally {
+			SearchTrace.end();
+		}
+		String sql = trace.getStatements().get(0);
+		assertTrue(sql.contains(".last_name like ? escape '\\'"), sql);
+		assertFalse(sql.contains("cast("), sql);
+	}
+
+	@Test
+	public void testDateFormats() {
+		assertEquals(3, personRepository.findAll(builder.parse("birthdate~lt~01/01/1990")).size());
+		assertEquals(3, personRepository.findAll(builder.parse("birthdate~lt~01-01-1990")).size());
+		assertEquals(1, personRepository.findAll(builder.parse("birthdate~eq~1990-02-14")).size());
+	}
+
+	@Test
+	public void testJoinsSharedPerAssociation() {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Person> query = cb.createQuery(Person.class);
+		Root<Person> root = query.from(Person.class);
+		builder.parse("country.name~like~a~or~country.code~eq~HR~and~country.id~gt~3").toPredicate(root, query, cb);
+
+		assertEquals(1, root.getJoins().size());
+		assertEquals(JoinType.INNER, root.getJoins().iterator().next().getJoinType());
+	}
+
+	@Test
+	public void testLeftJoinForAssociationInOrBranch() {
+		personRepository.save(new Person(9, "Otto", "Nowhere", "male", 60, null, "otto@example.com",
+				"192.168.0.9", null, null));
+		Specification<Person> spec = builder.parse("gender~eq~male~or~country.code~eq~FR");
+
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Person> query = cb.createQuery(Person.class);
+		Root<Person> root = query.from(Person.class);
+		spec.toPredicate(root, query, cb);
+		assertEquals(JoinType.LEFT, root.getJoins().iterator().next().getJoinType());
+
+		assertEquals(6, personRepository.findAll(spec).size());
+		assertEquals(3, personRepository.findAll(builder.parse("gender~eq~male~and~country.code~in~CA,US,DE")).size());
+	}
+
+	@Test
+	public void testCollectionCriteriaMatchEachPersonOnce() {
+		Person john = personRepository.findById(1).orElseThrow();
+		addressRepository.save(new Address(9, "777 Harbor St", "", 90, john));
+		personRepository.save(new Person(9, "Otto", "Nowhere", "male", 60, null, "otto@example.com",
+				"192.168.0.9", null, null));
+
+		List<Person> results = personRepository.findAll(builder.parse("address.line1~like~St"));
+		assertEquals(List.of(1, 2, 5, 8), results.stream().map(Person::getId).sorted().toList());
+		assertEquals(1, personRepository.findAll(builder.parse("address.number~gt~80")).size());
+		assertEquals(2, personRepository.findAll(builder.parse("address.line1~like~Harbor~or~country.code~eq~DE~and~gender~eq~male")).size());
+		// John still matches through his second address, Otto has none
+		assertEquals(8, personRepository.findAll(builder.parse("address.number~not_eq~10")).size());
+	}
+
+	@Test
+	public void testCountFacets() {
+		personRepository.save(new Person(9, "Otto", "Nowhere", "male", null, null, "otto@example.com",
+				"192.168.0.9", null, null));
+		Map<String, List<FacetValue>> facets = personRepository.countFacets(builder.parse("gender~eq~male"),
+				List.of("gender", "country.name", "age:10"));
+
+		assertEquals(List.of("gender", "country.name", "age:10"), List.copyOf(facets.keySet()));
+		assertEquals(List.of(new FacetValue("male", 5)), facets.get("gender"));
+		assertEquals(List.of(new FacetValue("Canada", 1), new FacetValue("France", 1), new FacetValue("Germany", 1),
+				new FacetValue("USA", 1), new FacetValue(null, 1)), facets.get("country.name"));
+		assertEquals(List.of(new FacetValue("20-29", 2), new FacetValue("40-49", 1), new FacetValue("50-59", 1),
+				new FacetValue(null, 1)), facets.get("age:10"));
+
+		assertEquals(List.of(new FacetValue("France", 2)),
+				personRepository.countFacets(builder.parse("country.code~eq~FR"), List.of("country.name")).get("country.name"));
+		assertThrows(InvalidDataAccessApiUsageException.class, () -> personRepository.countFacets(null, List.of("address.line1")));
+		assertThrows(InvalidDataAccessApiUsageException.class, () -> personRepository.countFacets(null, List.of("gender:10")));
+	}
+
+	@Test
+	public void testFieldsSelectedWithoutLoadingEntities() throws Exception {
+		personRepository.save(new Person(9, "Otto", "Nowhere", "male", null, null, "otto@example.com",
+				"192.168.0.9", null, null));
+		SearchTrace trace = SearchTrace.start(10);
+		List<Map<String, Object>> results;
+		try {
+			results = personRepository.findFields(builder.parse("gender~eq~male~and~address.number~not_eq~80"),
+					List.of("id", "firstName", "country.name", "firstName"), 0);
+		} finally {
+			SearchTrace.end();
+		}
+		results = new ArrayList<>(results);
+		results.sort(Comparator.comparing(result -> (Integer) result.get("id")));
+		assertEquals(List.of(1, 4, 6), results.stream().map(result -> result.get("id")).toList());
+		assertEquals(List.of("id", "firstName", "country"), List.copyOf(results.get(0).keySet()));
+		assertEquals(Map.of("name", "Canada"), results.get(0).get("country"));
+		// one statement selecting just the requested columns
+		assertEquals(1, trace.getStatements().size());
+		String sql = trace.getStatements().get(0);
+		assertFalse(sql.contains("email"), sql);
+		assertFalse(sql.contains("line1"), sql);
+
+		// Otto has no country, the left join keeps him
+		assertEquals(List.of(Map.of("id", 9)), personRepository.findFields(builder.parse("firstName~eq~Otto"),
+				List.of("id"), 0));
+		assertEquals(2, personRepository.findFields(null, List.of("id"), 2).size());
+		assertThrows(InvalidDataAccessApiUsageException.class, () -> personRepository.findFields(null, List.of("address.line1"), 0));
+		assertThrows(InvalidDataAccessApiUsageException.class, () -> personRepository.findFields(null, List.of("unknown"), 0));
+
+		mockMvc.perform(get("/persons").param("search", "lastName~eq~Smith").param("fields", "id,email"))
+				.andExpect(status().isOk())
+				.andExpect(content().json("[{\"id\": 3, \"email\": \"alice.smith@example.com\"}]", true));
+		mockMvc.perform(get("/persons").param("fields", "address"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	public void testExpandedAssociationsLoadedInConstantStatements() throws Exception {
+		resultCache.invalidateAll();
+		SearchTrace trace = SearchTrace.start(20);
+		List<Person> all;
+		try {
+			all = resultCache.findAll(searchCompiler.compile(null));
+		} finally {
+			SearchTrace.end();
+		}
+		// one statement for the persons with their countries and one for the addresses of all of them
+		assertEquals(8, all.size());
+		assertEquals(2, trace.getStatements().size(), trace.getStatements()::toString);
+		assertTrue(all.stream().allMatch(person -> Hibernate.isInitialized(person.getCountry())
+				&& Hibernate.isInitialized(person.getAddress())));
+
+		// cached results are loaded with the expanded associations only, one entry per expand
+		Set<String> country = fetchPlan.resolve(List.of("country"));
+		trace = SearchTrace.start(20);
+		List<Person> withCountry;
+		try {
+			withCountry = resultCache.findAll(searchCompiler.compile(null), country);
+		} finally {
+			SearchTrace.end();
+		}
+		assertEquals(1, trace.getStatements().size(), trace.getStatements()::toString);
+		assertNotSame(all, withCountry);
+		assertSame(withCountry, resultCache.findAll(searchCompiler.compile(null), Set.of("country")));
+		assertTrue(withCountry.stream().allMatch(person -> Hibernate.isInitialized(person.getCountry())));
+		assertFalse(withCountry.stream().anyMatch(person -> Hibernate.isInitialized(person.getAddress())));
+		assertFalse(resultCache.findAll(searchCompiler.compile(null), Set.of()).stream()
+				.anyMatch(person -> Hibernate.isInitialized(person.getCountry())));
+
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		trace = SearchTrace.start(20);
+		KeysetPage<Person> page;
+		try {
+			page = transaction.execute(status -> {
+				KeysetPage<Person> loaded = personRepository.findPage(fetchPlan.fetching(builder.parse("age~gte~20"), country),
+						new KeysetPageRequest("id", Sort.Direction.ASC, 5, null));
+				fetchPlan.initialize(loaded.items(), country);
+				return loaded;
+			});
+		} finally {
+			SearchTrace.end();
+		}
+		// the countries come with the page and the addresses, which were not expanded, are never loaded
+		assertEquals(1, trace.getStatements().size(), trace.getStatements()::toString);
+		assertTrue(page.items().stream().allMatch(person -> Hibernate.isInitialized(person.getCountry())));
+		assertFalse(page.items().stream().anyMatch(person -> Hibernate.isInitialized(person.getAddress())));
+
+		// streamed rows have the addresses of a whole block loaded together, the tests stream in blocks of 3 rows
+		List<Integer> addressCounts = new ArrayList<>();
+		trace = SearchTrace.start(20);
+		try {
+			personRepository.streamAll(null, Set.of("address"), person -> addressCounts.add(person.getAddress().size()));
+		} finally {
+			SearchTrace.end();
+		}
+		assertEquals(List.of(1, 1, 1, 1, 1, 1, 1, 1), addressCounts);
+		assertEquals(1 + 3, trace.getStatements().size(), trace.getStatements()::toString);
+
+		assertEquals(Set.of("country", "address"), fetchPlan.resolve(null));
+		assertEquals(Set.of(), fetchPlan.resolve(List.of()));
+		assertThrows(IllegalArgumentException.class, () -> fetchPlan.resolve(List.of("persons")));
+
+		mockMvc.perform(get("/persons").param("limit", "2").param("expand", "country"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.items[0].country.name").value("Canada"))
+				.andExpect(jsonPath("$.items[0].address").doesNotExist());
+		mockMvc.perform(get("/persons").param("search", "firstName~eq~John").param("expand", ""))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].firstName").value("John"))
+				.andExpect(jsonPath("$[0].country").doesNotExist())
+				.andExpect(jsonPath("$[0].address").doesNotExist());
+		mockMvc.perform(get("/persons").param("search", "firstName~eq~John"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].country.code").value("CA"))
+				.andExpect(jsonPath("$[0].address[0].line1").value("123 Main St"));
+		mockMvc.perform(get("/persons").param("expand", "persons"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	public void testResultCacheInvalidatedByChanges() {
+		CompiledSearch<Person> females = searchCompiler.compile("gender~eq~female");
+		CompiledSearch<Person> olderThan40 = searchCompiler.compile("age~gt~40");
+		resultCache.invalidateAll();
+
+		List<Person> cachedFemales = resultCache.findAll(females);
+		List<Person> cachedOlder = resultCache.findAll(olderThan40);
+		assertEquals(4, cachedFemales.size());
+		assertSame(cachedFemales, resultCache.findAll(females));
+
+		// Sophie lives in France, nobody older than 40 does
+		Country france = countryRepository.findById(4).orElseThrow();
+		france.setName("République française");
+		countryRepository.save(france);
+		assertNotSame(cachedFemales, resultCache.findAll(females));
+		assertSame(cachedOlder, resultCache.findAll(olderThan40));
+
+		cachedFemales = resultCache.findAll(females);
+		addressRepository.save(new Address(9, "1 Second St", "", 1, personRepository.findById(2).orElseThrow()));
+		List<Person> reloaded = resultCache.findAll(females);
+		assertNotSame(cachedFemales, reloaded);
+		assertEquals(2, reloaded.stream().filter(person -> person.getId() == 2).findFirst().orElseThrow().getAddress().size());
+		assertSame(cachedOlder, resultCache.findAll(olderThan40));
+
+		// a new or updated person only evicts the searches that contain it or that it now matches
+		cachedFemales = resultCache.findAll(females);
+		long invalidated = resultCache.stats().invalidatedEntryCount();
+		personRepository.save(new Person(9, "Otto", "Nowhere", "male", 60, null, "otto@example.com",
+				"192.168.0.9", null, null));
+		assertSame(cachedFemales, resultCache.findAll(females));
+		cachedOlder = resultCache.findAll(olderThan40);
+		assertEquals(3, cachedOlder.size());
+		assertEquals(invalidated + 1, resultCache.stats().invalidatedEntryCount());
+
+		Person otto = personRepository.findById(9).orElseThrow();
+		otto.setEmail("otto@example.org");
+		personRepository.save(otto);
+		assertSame(cachedFemales, resultCache.findAll(females));
+		assertNotSame(cachedOlder, resultCache.findAll(olderThan40));
+
+		cachedOlder = resultCache.findAll(olderThan40);
+		Person jane = personRepository.findById(2).orElseThrow();
+		jane.setAge(45);
+		personRepository.save(jane);
+		assertNotSame(cachedFemales, resultCache.findAll(females));
+		assertEquals(4, resultCache.findAll(olderThan40).size());
+		assertEquals(invalidated + 4, resultCache.stats().invalidatedEntryCount());
+	}
+
+	@Test
+	public void testResultCacheEvictsSearchesNotInTheChangeSnapshot() {
+		CompiledSearch<Person> females = searchCompiler.compile("gender~eq~female");
+		CompiledSearch<Person> males = searchCompiler.compile("gender~eq~male");
+		CompiledSearch<Person> byEmail = searchCompiler.compile("email~eq~otto@example.com");
+		AtomicInteger resolutions = new AtomicInteger();
+		AtomicReference<Runnable> racer = new AtomicReference<>();
+		SearchAttributeIndex<Person> racingIndex = new SearchAttributeIndex<>(entityManager.getMetamodel(), Person.class) {
+			@Override
+			public ResolvedCriteria resolve(SearchCriteria criteria) {
+				// the searches of both entries are resolved to collect the snapshot attributes first
+				if (resolutions.incrementAndGet() == 2) {
+					racer.get().run();
+				}
+				return super.resolve(criteria);
+			}
+		};
+		SearchResultCache<Person> cache = new SearchResultCache<>(entityManager.getEntityManagerFactory(),
+				transactionManager, racingIndex, (specification, expand) -> personRepository.findAll(specification),
+				100, Duration.ofMinutes(1));
+		List<Person> cachedFemales = cache.findAll(females);
+		cache.findAll(males);
+		// an email search is cached after the attributes of the snapshot are collected
+		racer.set(() -> cache.findAll(byEmail));
+
+		Person otto = new Person(9, "Otto", "Nowhere", "male", 60, null, "otto@example.com", "192.168.0.9", null, null);
+		cache.onChange(new EntityChange(EntityChange.Kind.INSERT, Person.class, 9, otto));
+		assertEquals(2, cache.stats().invalidatedEntryCount());
+		assertSame(cachedFemales, cache.findAll(females));
+		assertEquals(1, cache.stats().size());
+	}
+
+	@Test
+	public void testNormalizedSearches() {
+		assertEquals("(age~gt~30~and~age~lte~42)", searchCompiler.compile("age~gt~20~and~age~gt~30~and~age~lte~50~and~age~lte~42")
+				.getCanonicalKey());
+		assertEquals("age~gte~20", searchCompiler.compile("age~gt~30~or~age~gte~20").getCanonicalKey());
+		assertEquals("heightInMeters~eq~1.8", searchCompiler.compile("heightInMeters~eq~1.80~and~heightInMeters~in~1.80,1.6")
+				.getCanonicalKey());
+		assertEquals("(country.code~in~DE,FR~and~gender~eq~male)",
+				searchCompiler.compile("gender~eq~male~and~(country.code~eq~FR~or~country.code~eq~DE)").getCanonicalKey());
+
+		assertEquals("birthdate~lt~1990-01-31", searchCompiler.compile("birthdate~lt~31/01/1990").getCanonicalKey());
+
+		CompiledSearch<Person> range = searchCompiler.compile("age~gt~20~and~age~gt~30~and~age~lte~50~and~age~lte~42");
+		assertEquals(List.of(6, 7), personRepository.findAll(range.getSpecification()).stream().map(Person::getId).sorted().toList());
+	}
+
+	@Test
+	public void testContradictionsMatchNothing() {
+		assertTrue(searchCompiler.compile("age~gt~50~and~age~lt~10").matchesNothing());
+		assertTrue(searchCompiler.compile("age~gt~42~and~age~lte~42").matchesNothing());
+		assertTrue(searchCompiler.compile("gender~eq~male~and~gender~eq~female~and~age~gt~1").matchesNothing());
+		assertTrue(searchCompiler.compile("age~in~20,25~and~age~not_eq~20~and~age~gt~25").matchesNothing());
+		assertFalse(searchCompiler.compile("(age~gt~50~and~age~lt~10)~or~gender~eq~male").matchesNothing());
+		// different addresses can satisfy each criterion
+		assertFalse(searchCompiler.compile("address.number~gt~50~and~address.number~lt~10").matchesNothing());
+
+		CompiledSearch<Person> empty = searchCompiler.compile("age~gt~50~and~age~lt~10");
+		assertEquals(List.of(), resultCache.findAll(empty));
+		assertEquals(0, personRepository.findAll(empty.getSpecification()).size());
+		assertEquals(4, resultCache.findAll(searchCompiler.compile("(age~gt~50~and~age~lt~10)~or~gender~eq~male")).size());
+	}
+
+	@Test
+	public void testConditionalRequestsAnsweredFromDataVersion() throws Exception {
+		String etag = mockMvc.perform(get("/persons").param("search", "gender~eq~female"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertNotNull(etag);
+		// equivalent searches share the tag
+		mockMvc.perform(get("/persons").param("search", "gender~eq~female~and~gender~in~female,male")
+						.header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified())
+				.andExpect(content().string(""));
+		String other = mockMvc.perform(get("/persons").param("search", "gender~eq~male").header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertNotEquals(etag, other);
+		mockMvc.perform(get("/persons").param("search", "gender~eq~female").param("limit", "2")
+						.header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk());
+
+		long addresses = dataVersion.version(Address.class);
+		addressRepository.save(new Address(9, "1 New St", null, 1, personRepository.findById(3).orElseThrow()));
+		assertEquals(addresses + 1, dataVersion.version(Address.class));
+		String changed = mockMvc.perform(get("/persons").param("search", "gender~eq~female").header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertNotEquals(etag, changed);
+	}
+
+	@Test
+	public void testTrigramIndexFollowsChanges() {
+		assertTrue(trigramIndex.isEnabled());
+		assertEquals(8, trigramIndex.getIndex().size());
+		assertEquals(List.of(4), trigramIndex.getIndex().candidates("lastName", "ohns").stream().boxed().toList());
+		assertEquals(List.of(1, 2, 4), ids(personRepository.findAll(builder.parse("email~like~jo~or~lastName~like~Doe"))));
+		assertEquals(List.of(), personRepository.findAll(builder.parse("firstName~like~Zoe")));
+
+		Person renamed = personRepository.findById(3).orElseThrow();
+		renamed.setFirstName("Zoey");
+		personRepository.save(renamed);
+		assertEquals(List.of(3), ids(personRepository.findAll(builder.parse("firstName~like~Zoe"))));
+		assertTrue(trigramIndex.getIndex().candidates("firstName", "Alice").isEmpty());
+
+		addressRepository.deleteById(3);
+		personRepository.deleteById(3);
+		assertEquals(7, trigramIndex.getIndex().size());
+		assertEquals(List.of(), personRepository.findAll(builder.parse("firstName~like~Zoe")));
+	}
+
+	@Test
+	public void testTrigramIndexDoesNotChangeLikeResults() {
+		for (String search : List.of("firstName~like~o", "firstName~like~oh", "firstName~like~ohn", "email~like~example.com",
+				"lastName~like~%e%r", "lastName~like~D_e", "email~like~EXAMPLE")) {
+			Specification<Person> plain = (root, query, cb) -> {
+				String[] parts = search.split("~");
+				return cb.like(root.get(parts[0]), "%" + parts[2] + "%");
+			};
+			assertEquals(ids(personRepository.findAll(plain)), ids(personRepository.findAll(builder.parse(search))), search);
+		}
+	}
+
+	@Test
+	public void testColumnarResultsMatchJpa() {
+		Person unknown = personRepository.save(new Person(9, "Nobody", null, null, null, null, null, null, null, null));
+		for (String search : List.of("", "age~gt~25", "age~lte~25~or~gender~eq~female", "birthdate~lt~1990-01-01",
+				"birthdate~gte~1994-02-23~and~birthdate~lt~2001-01-01", "heightInMeters~eq~1.8", "heightInMeters~gt~1.7",
+				"firstName~like~o", "lastName~like~D_e", "email~like~%.doe@", "age~like~2", "birthdate~like~-02-",
+				"gender~not_eq~male", "age~in~20,25,99", "age~not_in~20,25", "country.code~in~DE,FR~and~gender~eq~male",
+				"country.id~gt~2", "country.name~lt~France", "lastName~gt~M", "address.line1~like~St",
+				"address.number~not_eq~10", "address.line2~like~Apt~or~age~gt~40", "address.number~gt~50~and~address.number~lt~60",
+				"(firstName~like~John~and~age~gt~18)~or~(gender~eq~male~and~heightInMeters~gte~1.8)",
+				"age~gt~50~and~age~lt~10", "lastName~starts_with~D", "lastName~starts_with~Zz", "email~ends_with~doe@example.com",
+				"firstName~ilike~JO", "lastName~eq_ignore_case~doe", "address.line1~starts_with~1")) {
+			CompiledSearch<Person> compiled = searchCompiler.compile(search);
+			List<Integer> expected = compiled.matchesNothing() ? List.of() : ids(personRepository.findAll(compiled.getSpecification()));
+			assertEquals(expected, ids(columnarExecutor.findAll(compiled)), search);
+		}
+
+		unknown.setAge(99);
+		personRepository.save(unknown);
+		assertEquals(List.of(9), ids(columnarExecutor.findAll(searchCompiler.compile("age~eq~99"))));
+		assertEquals(List.of(), ids(columnarExecutor.findAll(searchCompiler.compile("address.line1~like~Zzz"))));
+		assertTrue(columnarExecutor.stats().current());
+	}
+
+	@Test
+	public void testBitmapIndexResultsMatchSql() {
+		personRepository.save(new Person(9, "Nobody", null, null, null, null, null, null, null, null));
+		assertTrue(bitmapIndex.getIndex().isReady());
+		assertEquals(9, bitmapIndex.getIndex().size());
+		for (String search : List.of("gender~eq~male", "gender~in~male,other", "country.id~eq~3~and~gender~eq~male",
+				"gender~not_eq~male~or~country.id~eq~3", "country.id~not_in~1,2", "gender~not_in~male",
+				"(gender~eq~female~or~country.id~eq~4)~and~age~gt~25", "firstName~like~o~and~gender~eq~female~and~country.id~eq~1",
+				"(gender~eq~male~and~country.id~eq~1)~or~(gender~eq~female~and~country.id~eq~4)~or~age~lt~21",
+				"gender~eq~nobody~and~age~gt~1")) {
+			CompiledSearch<Person> compiled = searchCompiler.compile(search);
+			assertEquals(ids(personRepository.findAll(builder.parse(search))), ids(personRepository.findAll(compiled.getSpecification())), search);
+		}
+	}
+
+	@Test
+	public void testBitmapIndexFollowsChanges() {
+		Person john = personRepository.findById(1).orElseThrow();
+		john.setGender("female");
+		john.setCountry(null);
+		personRepository.save(john);
+		assertEquals(List.of(1, 2, 3, 5), ids(personRepository.findAll(searchCompiler.compile("gender~eq~female~and~age~lt~31")
+				.getSpecification())));
+		// no country matches no country criterion, as in SQL
+		assertEquals(List.of(2, 3), ids(personRepository.findAll(searchCompiler.compile("gender~eq~female~and~country.id~not_eq~3~and~age~lt~31")
+				.getSpecification())));
+		assertEquals(List.of(3), ids(personRepository.findAll(searchCompiler.compile("country.id~eq~1").getSpecification())));
+
+		addressRepository.deleteById(1);
+		personRepository.deleteById(1);
+		assertEquals(List.of(2, 3, 5, 7), ids(personRepository.findAll(searchCompiler.compile("gender~eq~female").getSpecification())));
+		assertEquals(7, bitmapIndex.getIndex().size());
+	}
+
+	@Test
+	public void testBitmapIndexReindexesReferencingEntities() {
+		EntityBitmapIndex<Person> codes = new EntityBitmapIndex<>(entityManager.getEntityManagerFactory(), attributeIndex,
+				List.of("gender", "country.code"), 1000, true);
+		codes.rebuild();
+		Country france = countryRepository.findById(4).orElseThrow();
+		france.setCode("FX");
+		countryRepository.save(france);
+
+		SearchTrace trace = SearchTrace.start(10);
+		try {
+			codes.onChange(new EntityChange(EntityChange.Kind.UPDATE, Country.class, 4, france));
+		} finally {
+			SearchTrace.end();
+		}
+		// only the persons living in France are read again
+		assertEquals(1, trace.getStatements().size());
+		assertTrue(trace.getStatements().get(0).contains(" where "), trace.getStatements().get(0));
+		assertEquals(List.of(7, 8), bitmapIds(codes, "country.code~eq~FX"));
+		assertEquals(List.of(), bitmapIds(codes, "country.code~eq~FR"));
+		assertEquals(List.of(5, 6), bitmapIds(codes, "country.code~eq~DE"));
+		assertEquals(8, codes.getIndex().size());
+	}
+
+	private List<Integer> bitmapIds(EntityBitmapIndex<Person> index, String search) {
+		List<Integer> ids = new ArrayList<>();
+		index.getIndex().evaluate(SearchParser.parse(search), criterion -> attributeIndex.resolve(criterion.toSearchCriteria()))
+				.forEach((int id) -> ids.add(id));
+		return ids;
+	}
+
+	@Test
+	public void testViewFlagsDowngradedSearches() throws Exception {
+		SearchProperties properties = new SearchProperties();
+		properties.getBudget().setDowngradeLimit(2);
+		MockMvc view = MockMvcBuilders.standaloneSetup(new ViewController(personRepository, searchCompiler,
+				new SearchBudget(0, SearchBudget.Mode.DOWNGRADE), properties)).build();
+		view.perform(get("/").param("search", "gender~eq~female"))
+				.andExpect(status().isOk())
+				.andExpect(model().attribute("downgradeLimit", 2))
+				.andExpect(model().attribute("persons", hasSize(2)));
+
+		MockMvc admitted = MockMvcBuilders.standaloneSetup(new ViewController(personRepository, searchCompiler,
+				new SearchBudget(Integer.MAX_VALUE, SearchBudget.Mode.DOWNGRADE), properties)).build();
+		admitted.perform(get("/").param("search", "gender~eq~female"))
+				.andExpect(model().attributeDoesNotExist("downgradeLimit"))
+				.andExpect(model().attribute("persons", hasSize(4)));
+	}
+
+	@Test
+	public void testOnlyInvalidSearchesAnsweredWithBadRequest() throws Exception {
+		mockMvc.perform(get("/persons").param("limit", "2").param("direction", "sideways"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.detail").value("Invalid sort direction 'sideways', expected ASC or DESC."));
+		mockMvc.perform(get("/persons").param("limit", "2").param("cursor", "bm90IGEgY3Vyc29y"))
+				.andExpect(status().isBadRequest());
+
+		// other illegal arguments are bugs, not client errors
+		SearchExceptionHandler handler = new SearchExceptionHandler();
+		InvalidDataAccessApiUsageException bug = new InvalidDataAccessApiUsageException("bug", new IllegalArgumentException("bug"));
+		assertSame(bug, assertThrows(InvalidDataAccessApiUsageException.class, () -> handler.handleInvalidQuery(bug)));
+		assertFalse(Arrays.stream(SearchExceptionHandler.class.getMethods())
+				.map(method -> method.getAnnotation(ExceptionHandler.class))
+				.filter(Objects::nonNull)
+				.anyMatch(annotation -> Arrays.asList(annotation.value()).contains(IllegalArgumentException.class)));
+	}
+
+	@Test
+	public void testBatchRunsNamedSearches() {
+		Map<String, BatchResult<Person>> results = searchBatch.run(List.of(
+				new BatchSearch("men", "gender~eq~male", null, true),
+				new BatchSearch("all", null, null, true),
+				new BatchSearch("firstPage", "age~gt~20", 3, false),
+				new BatchSearch("doe", "lastName~eq~Doe", null, false),
+				new BatchSearch("doeAgain", " lastName~eq~Doe ", null, false),
+				new BatchSearch("none", "age~gt~50~and~age~lt~10", null, true)));
+
+		assertEquals(List.of("men", "all", "firstPage", "doe", "doeAgain", "none"), List.copyOf(results.keySet()));
+		assertEquals(4L, results.get("men").count());
+		assertEquals(8L, results.get("all").count());
+		assertNull(results.get("all").items());
+		assertEquals(List.of(1, 3, 4), results.get("firstPage").items().stream().map(Person::getId).toList());
+		assertNotNull(results.get("firstPage").nextCursor());
+		assertTrue(Hibernate.isInitialized(results.get("firstPage").items().get(0).getAddress()));
+		assertEquals(List.of(1, 2), ids(results.get("doe").items()));
+		assertSame(results.get("doe"), results.get("doeAgain"));
+		assertEquals(0L, results.get("none").count());
+	}
+
+	@Test
+	public void testInvalidBatchIsRejected() {
+		IllegalArgumentException invalid = assertThrows(IllegalArgumentException.class, () -> searchBatch.run(List.of(
+				new BatchSearch("ok", "age~gt~1", null, false),
+				new BatchSearch("broken", "unknown~eq~1", null, false))));
+		assertTrue(invalid.getMessage().startsWith("Search 'broken': "));
+		assertThrows(IllegalArgumentException.class, () -> searchBatch.run(List.of(
+				new BatchSearch("same", "age~gt~1", null, false),
+				new BatchSearch("same", "age~gt~2", null, false))));
+		assertThrows(IllegalArgumentException.class, () -> searchBatch.run(List.of(new BatchSearch("zero", null, 0, false))));
+		assertThrows(IllegalArgumentException.class, () -> searchBatch.run(List.of()));
+	}
+
+	@Test
+	public void testSaturatedBatchPoolRejectsBatches() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		SearchExecutor<Person> blocking = search -> {
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return List.of();
+		};
+		// one thread and a queue of one search
+		try (SearchBatch<Person> batch = new SearchBatch<>(entityManager.getEntityManagerFactory(), transactionManager,
+				Person.class, searchCompiler, blocking, personRepository::count, personRepository::findPage, searchBudget,
+				10, 10, 1, 1)) {
+			CompletableFuture<Map<String, BatchResult<Person>>> running = CompletableFuture.supplyAsync(
+					() -> batch.run(List.of(new BatchSearch("first", "age~gt~20", null, false))));
+			assertTrue(started.await(10, TimeUnit.SECONDS));
+			// one of the next two batches waits in the queue, the other is rejected instead of running on its thread
+			CompletableFuture<Map<String, BatchResult<Person>>> second = CompletableFuture.supplyAsync(
+					() -> batch.run(List.of(new BatchSearch("second", "age~gt~30", null, false))));
+			CompletableFuture<Map<String, BatchResult<Person>>> third = CompletableFuture.supplyAsync(
+					() -> batch.run(List.of(new BatchSearch("third", "age~gt~40", null, false))));
+			ExecutionException rejected = assertThrows(ExecutionException.class,
+					() -> CompletableFuture.anyOf(second, third).get(10, TimeUnit.SECONDS));
+			assertTrue(rejected.getCause() instanceof SearchBatchRejectedException, rejected::toString);
+			release.countDown();
+			assertEquals(List.of(), running.get(10, TimeUnit.SECONDS).get("first").items());
+			assertEquals(1, (second.isCompletedExceptionally() ? third : second).get(10, TimeUnit.SECONDS).size());
+		}
+	}
+
+	@Test
+	public void testIndexAdvisorRecommendsIndexesForWorkload() {
+		indexAdvisor.getWorkload().clear();
+		for (int i = 0; i < 3; i++) {
+			searchCompiler.compile("email~eq~john.doe@example.com");
+		}
+		searchCompiler.compile("gender~eq~female~and~age~gt~20");
+		searchCompiler.compile("age~gt~20~and~gender~eq~female");
+		searchCompiler.compile("address.line1~eq~123 Main St");
+		searchCompiler.compile("firstName~like~Jo");
+		searchCompiler.compile("lastName~starts_with~Mi");
+		searchCompiler.compile("lastName~ilike~mi");
+		searchCompiler.compile("gender~eq~male");
+
+		AdvisorReport report = indexAdvisor.advise();
+
+		assertEquals(10, report.searches());
+		Map<List<String>, IndexRecommendation> recommendations = new HashMap<>();
+		report.recommendations().forEach(recommendation -> recommendations.put(
+				List.of(recommendation.table(), String.join(",", recommendation.columns())), recommendation));
+		assertEquals(4, recommendations.size());
+		assertEquals(3, recommendations.get(List.of("person", "email")).searches());
+		// a prefix is a range scan of an index, a case-insensitive match is not
+		assertEquals(1, recommendations.get(List.of("person", "last_name")).searches());
+		assertEquals("create index idx_person_email on person (email)",
+				recommendations.get(List.of("person", "email")).ddl());
+		// equality first, the 2 equivalent searches are counted together
+		assertEquals(2, recommendations.get(List.of("person", "gender,age")).searches());
+		assertNotNull(recommendations.get(List.of("address", "person_id,line1")));
+
+		FieldUsage like = report.fields().stream().filter(field -> field.operation().equals("LIKE")).findFirst().orElseThrow();
+		assertEquals("first_name", like.column());
+		assertNull(like.selectivity());
+		FieldUsage gender = report.fields().stream().filter(field -> field.field().equals("gender")).findFirst().orElseThrow();
+		assertEquals(3, gender.count());
+		assertEquals(0.5, gender.selectivity());
+	}
+
+	@Test
+	public void testIndexAdvisorAppliesIndexes() {
+		indexAdvisor.getWorkload().clear();
+		searchCompiler.compile("lastName~eq~Doe~and~birthdate~lt~2000-01-01");
+
+		List<AppliedIndex> applied = indexAdvisor.apply();
+
+		assertEquals(1, applied.size());
+		assertEquals("idx_person_last_name_birthdate", applied.get(0).name());
+		assertTrue(applied.get(0).beforeMillis() > 0);
+		assertTrue(indexAdvisor.advise().recommendations().isEmpty());
+		assertEquals(List.of(1), ids(personRepository.findAll(
+				searchCompiler.compile("lastName~eq~Doe~and~birthdate~lt~2000-01-01").getSpecification())));
+	}
+
+	@Test
+	public void testDataGeneratorAppendsSkewedData() {
+		SearchProperties.Generator settings = new SearchProperties.Generator();
+		settings.setPersons(300);
+		settings.setCountries(3);
+		settings.setNameCardinality(20);
+		settings.setRowsPerInsert(7);
+		settings.setBatchSize(3);
+
+		DataGenerator.Result result = dataGenerator.generate(settings);
+
+		assertEquals(300, result.persons());
+		assertEquals(308, personRepository.count());
+		assertEquals(7, countryRepository.count());
+		assertEquals(8 + result.addresses(), addressRepository.count());
+		long first = personRepository.count(searchCompiler.compile("country.name~eq~United States of America").getSpecification());
+		long last = personRepository.count(searchCompiler.compile("country.name~eq~China").getSpecification());
+		assertTrue(first > last);
+		// ages are relative to 2024-01-01
+		Person generated = personRepository.findById(9).orElseThrow();
+		int years = 2024 - generated.getBirthdate().getYear();
+		assertTrue(years == generated.getAge() || years == generated.getAge() + 1);
+	}
+
+	private static List<Integer> ids(List<Person> persons) {
+		return persons.stream().map(Person::getId).sorted().toList();
+	}
+}
@@ -0,0 +1,47 @@
+package com.dc.search.implementation;
+
+import com.dc.search.implementation.parser.SearchExpression;
+import com.dc.search.implementation.parser.SearchParser;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchNormalizerTest {
+
+	private final SearchNormalizer normalizer = new SearchNormalizer();
+
+	private String normalize(String search) {
+		return normalizer.normalize(SearchParser.parse(search)).toString();
+	}
+
+	@Test
+	void testNestedGroupsAreFlattened() {
+		assertEquals("(a~eq~1~and~b~eq~2~and~c~eq~3)", normalize("(a~eq~1~and~(b~eq~2~and~(c~eq~3)))"));
+		assertEquals("a~eq~1", normalize("((a~eq~1))"));
+	}
+
+	@Test
+	void testDuplicatesAreRemoved() {
+		assertEquals("(a~eq~1~and~b~like~x)", normalize("a~eq~1~and~b~like~x~and~a~EQ~1"));
+		assertEquals("b~like~x", normalize("b~like~x~or~b~like~x"));
+	}
+
+	@Test
+	void testEqualsInDisjunctionAreMergedIntoIn() {
+		assertEquals("gender~in~Female,Male", normalize("gender~eq~Male~or~gender~eq~Female"));
+		assertEquals("(age~gt~3~or~id~in~1,2,3)", normalize("id~in~3,1~or~age~gt~3~or~id~eq~2"));
+		// a value containing the list separator stays a single value
+		assertEquals("(name~eq~Doe, John~or~name~eq~Smith)", normalize("name~eq~Doe, John~or~name~eq~Smith"));
+	}
+
+	@Test
+	void testEquivalentSearchesHaveOneCanonicalForm() {
+		assertEquals(normalize("(b~eq~2~and~a~eq~1)~or~c~eq~3"), normalize("c~eq~3~or~(a~eq~1~and~b~eq~2)"));
+	}
+
+	@Test
+	void testNullIsKept() {
+		assertNull(normalizer.normalize(null));
+		assertInstanceOf(SearchExpression.MatchNone.class, normalizer.normalize(new SearchExpression.MatchNone()));
+	}
+}
@@ -0,0 +1,47 @@
+package com.dc.search.implementation.budget;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyBulkheadTest {
+
+	private final ConcurrencyBulkhead bulkhead = new ConcurrencyBulkhead(1, Duration.ZERO, new ObjectMapper());
+
+	@Test
+	void testRequestOverLimitIsRejected() throws Exception {
+		MockHttpServletRequest first = new MockHttpServletRequest("GET", "/persons");
+		MockHttpServletRequest second = new MockHttpServletRequest("GET", "/persons");
+		MockHttpServletResponse rejected = new MockHttpServletResponse();
+
+		assertTrue(bulkhead.preHandle(first, new MockHttpServletResponse(), null));
+		assertFalse(bulkhead.preHandle(second, rejected, null));
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), rejected.getStatus());
+		assertEquals("1", rejected.getHeader("Retry-After"));
+		assertTrue(rejected.getContentAsString().contains("Too many concurrent searches"));
+
+		bulkhead.afterCompletion(first, new MockHttpServletResponse(), null, null);
+		assertEquals(1, bulkhead.availablePermits());
+		assertTrue(bulkhead.preHandle(second, new MockHttpServletResponse(), null));
+	}
+
+	@Test
+	void testAsyncRequestKeepsPermitUntilCompleted() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/persons");
+		assertTrue(bulkhead.preHandle(request, new MockHttpServletResponse(), null));
+		bulkhead.afterConcurrentHandlingStarted(request, new MockHttpServletResponse(), null);
+		assertEquals(0, bulkhead.availablePermits());
+
+		request.setDispatcherType(DispatcherType.ASYNC);
+		assertTrue(bulkhead.preHandle(request, new MockHttpServletResponse(), null));
+		bulkhead.afterCompletion(request, new MockHttpServletResponse(), null, null);
+		assertEquals(1, bulkhead.availablePermits());
+	}
+}
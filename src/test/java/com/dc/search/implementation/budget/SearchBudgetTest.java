@@ -0,0 +1,58 @@
+package com.dc.search.implementation.budget;
+
+import com.dc.search.application.entity.Person;
+import com.dc.search.implementation.CompiledSearch;
+import com.dc.search.implementation.SearchCompiler;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchBudgetTest {
+
+	private final SearchCompiler<Person> compiler = SearchCompiler.<Person>builder()
+			.specProvider(criteria -> (root, query, cb) -> cb.conjunction())
+			.costModel(new SearchCostModel(path -> path.startsWith("address."), path -> path.equals("email")))
+			.maximumSize(100)
+			.build();
+
+	@Test
+	void testCostCountsEveryPart() {
+		SearchCost cost = compiler.compile("(firstName~like~a~or~address.line1~eq~x)~and~id~in~1,2,3").getCost();
+
+		assertEquals(new SearchCost(3, 3, 1, 1, 3), cost);
+		assertEquals(3 + 3 * 2 + 10 + 5, cost.total());
+		assertEquals(SearchCost.NONE, compiler.compile("").getCost());
+		assertEquals(0, compiler.compile("email~like~doe").getCost().likes());
+	}
+
+	@Test
+	void testCostIsMeasuredAfterNormalization() {
+		assertEquals(1, compiler.compile("((((age~gt~1))))").getCost().depth());
+		assertEquals(1, compiler.compile("gender~eq~a~or~gender~eq~b~or~gender~eq~a").getCost().criteria());
+	}
+
+	@Test
+	void testOverBudgetSearchIsRejected() {
+		String likes = IntStream.range(0, 10).mapToObj(i -> "field" + i + "~like~x").collect(Collectors.joining("~and~"));
+		CompiledSearch<Person> expensive = compiler.compile(likes);
+		CompiledSearch<Person> cheap = compiler.compile("age~gt~20");
+		SearchBudget budget = new SearchBudget(100, SearchBudget.Mode.REJECT);
+
+		assertEquals(SearchBudget.Admission.ACCEPT, budget.admit(cheap));
+		assertThrows(SearchBudgetExceededException.class, () -> budget.admit(expensive));
+		assertThrows(SearchBudgetExceededException.class, () -> budget.check(expensive));
+	}
+
+	@Test
+	void testOverBudgetSearchIsDowngraded() {
+		CompiledSearch<Person> wideIn = compiler.compile("id~in~" + IntStream.range(0, 6000)
+				.mapToObj(String::valueOf).collect(Collectors.joining(",")));
+		SearchBudget budget = new SearchBudget(100, SearchBudget.Mode.DOWNGRADE);
+
+		assertEquals(SearchBudget.Admission.DOWNGRADE, budget.admit(wideIn));
+		assertThrows(SearchBudgetExceededException.class, () -> budget.check(wideIn));
+	}
+}
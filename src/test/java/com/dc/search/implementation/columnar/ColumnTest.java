@@ -0,0 +1,109 @@
+package com.dc.search.implementation.columnar;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnTest {
+
+	private static final int ROWS = 5000;
+
+	private final ParallelRanges parallel = new ParallelRanges(64);
+
+	@Test
+	void testIntColumnMatchesLikeComparisons() {
+		Random random = new Random(42);
+		List<Integer> values = new ArrayList<>();
+		for (int i = 0; i < ROWS; i++) {
+			values.add(random.nextInt(10) == 0 ? null : random.nextInt(100));
+		}
+		Column column = Column.of(Integer.class, values, null);
+
+		assertMatches(values, column, "GT", 50, value -> value > 50);
+		assertMatches(values, column, "LTE", 10, value -> value <= 10);
+		assertMatches(values, column, "EQ", 7, value -> value == 7);
+		assertMatches(values, column, "NOT_EQ", 7, value -> value != 7);
+		assertMatches(values, column, "IN", List.of(1, 2, 3), value -> value >= 1 && value <= 3);
+		assertMatches(values, column, "NOT_IN", List.of(1, 2, 3), value -> value < 1 || value > 3);
+		assertMatches(values, column, "LIKE", "9", value -> value.toString().contains("9"));
+		assertMatches(values, column, "GT", Integer.MAX_VALUE, value -> false);
+		assertMatches(values, column, "LT", Integer.MIN_VALUE, value -> false);
+	}
+
+	@Test
+	void testDictionaryColumnMatchesLikeComparisons() {
+		Random random = new Random(7);
+		String[] names = {"Anna", "Bob", "Carl", "Dora", "Emil", "b_b", "50%"};
+		List<String> values = new ArrayList<>();
+		for (int i = 0; i < ROWS; i++) {
+			values.add(random.nextInt(10) == 0 ? null : names[random.nextInt(names.length)]);
+		}
+		Column column = Column.of(String.class, values, null);
+
+		assertMatches(values, column, "EQ", "Carl", "Carl"::equals);
+		assertMatches(values, column, "EQ", "Zed", value -> false);
+		assertMatches(values, column, "GT", "Bz", value -> value.compareTo("Bz") > 0);
+		assertMatches(values, column, "GTE", "Carl", value -> value.compareTo("Carl") >= 0);
+		assertMatches(values, column, "LT", "Carl", value -> value.compareTo("Carl") < 0);
+		assertMatches(values, column, "LTE", "Ca", value -> value.compareTo("Ca") <= 0);
+		assertMatches(values, column, "NOT_EQ", "Bob", value -> !value.equals("Bob"));
+		assertMatches(values, column, "IN", List.of("Anna", "Emil", "Zed"), value -> value.equals("Anna") || value.equals("Emil"));
+		assertMatches(values, column, "LIKE", "o", value -> value.contains("o"));
+		assertMatches(values, column, "LIKE", "b_b", value -> value.matches(".*b.b.*"));
+		assertMatches(values, column, "LIKE", "b\\_b", value -> value.contains("b_b"));
+		assertMatches(values, column, "LIKE", "0\\%", value -> value.contains("0%"));
+		assertMatches(values, column, "STARTS_WITH", "B", value -> value.startsWith("B"));
+		assertMatches(values, column, "STARTS_WITH", "Car", value -> value.startsWith("Car"));
+		assertMatches(values, column, "STARTS_WITH", "Ca_", value -> false);
+		assertMatches(values, column, "STARTS_WITH", "Zed", value -> false);
+		assertMatches(values, column, "ENDS_WITH", "a", value -> value.endsWith("a"));
+		assertMatches(values, column, "ILIKE", "B", value -> value.toLowerCase().contains("b"));
+		assertMatches(values, column, "ILIKE", "a_", value -> value.toLowerCase().matches(".*a..*"));
+		assertMatches(values, column, "EQ_IGNORE_CASE", "bob", "Bob"::equals);
+	}
+
+	@Test
+	void testDateColumnComparesEpochDays() {
+		List<LocalDate> values = IntStream.range(0, ROWS).mapToObj(i -> LocalDate.of(1970, 1, 1).plusDays(i * 3L)).toList();
+		Column column = Column.of(LocalDate.class, values, null);
+		LocalDate date = LocalDate.of(1980, 6, 1);
+
+		assertMatches(values, column, "LT", date, value -> value.isBefore(date));
+		assertMatches(values, column, "LIKE", "-06-", value -> value.toString().contains("-06-"));
+	}
+
+	@Test
+	void testMultiValuedColumnMatchesRowsWithAnyMatchingValue() {
+		// row 0: [1, 2], row 1: [], row 2: [null], row 3: [3]
+		List<Integer> values = new ArrayList<>(List.of(1, 2));
+		values.add(null);
+		values.add(3);
+		Column column = Column.of(Integer.class, values, new int[]{0, 2, 2, 3, 4});
+
+		assertEquals(List.of(0, 3), rows(column.match("GTE", 2, 4, ParallelRanges.SEQUENTIAL), 4));
+		assertEquals(List.of(0, 3), rows(column.match("NOT_EQ", 2, 4, ParallelRanges.SEQUENTIAL), 4));
+		assertEquals(List.of(), rows(column.match("IN", List.of(5), 4, ParallelRanges.SEQUENTIAL), 4));
+	}
+
+	private <V> void assertMatches(List<V> values, Column column, String operation, Object value, Predicate<V> expected) {
+		List<Integer> rows = IntStream.range(0, values.size())
+				.filter(i -> values.get(i) != null && expected.test(values.get(i)))
+				.boxed()
+				.toList();
+		assertEquals(rows, rows(column.match(operation, value, values.size(), parallel), values.size()), operation + " " + value);
+		assertEquals(rows, rows(column.match(operation, value, values.size(), ParallelRanges.SEQUENTIAL), values.size()));
+		assertTrue(rows.stream().map(values::get).allMatch(Objects::nonNull));
+	}
+
+	private static List<Integer> rows(long[] bits, int size) {
+		return IntStream.range(0, size).filter(i -> Bits.get(bits, i)).boxed().toList();
+	}
+}
@@ -0,0 +1,95 @@
+package com.dc.search.implementation.metrics;
+
+import com.dc.search.application.entity.Person;
+import com.dc.search.implementation.SearchCompiler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchMetricsTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final SearchCompiler<Person> compiler =
+			new SearchCompiler<>(criteria -> (root, query, cb) -> cb.conjunction(), 100);
+
+	@AfterEach
+	void tearDown() {
+		SearchTrace.end();
+	}
+
+	@Test
+	void testNestedPhaseIsExcludedFromOuterPhase() throws Exception {
+		SearchTrace trace = SearchTrace.start(10);
+		SearchTrace.time(SearchTrace.Phase.EXECUTE, () -> {
+			Thread.sleep(20);
+			return SearchTrace.time(SearchTrace.Phase.PREDICATE, () -> {
+				Thread.sleep(30);
+				return null;
+			});
+		});
+		SearchTrace.end();
+
+		long execute = trace.getPhases().get(SearchTrace.Phase.EXECUTE);
+		long predicate = trace.getPhases().get(SearchTrace.Phase.PREDICATE);
+		assertTrue(predicate >= TimeUnit.MILLISECONDS.toNanos(25));
+		assertTrue(execute >= TimeUnit.MILLISECONDS.toNanos(15));
+		assertTrue(execute < predicate);
+	}
+
+	@Test
+	void testNothingIsRecordedWithoutTrace() {
+		assertFalse(SearchTrace.isActive());
+		assertEquals("done", SearchTrace.time(SearchTrace.Phase.COMPILE, () -> "done"));
+		SearchTrace.statement("select 1");
+		assertNull(SearchTrace.end());
+	}
+
+	@Test
+	void testTraceIsRecordedAsMeters() {
+		SearchMetrics metrics = new SearchMetrics(registry, Duration.ofMinutes(1), 10);
+		SearchTrace trace = SearchTrace.start(10);
+		compiler.compile("firstName~eq~John~and~(age~gt~20~or~age~lt~10)");
+		SearchTrace.rows(3);
+		SearchTrace.end();
+
+		metrics.record("GET /persons", 200, trace);
+
+		assertEquals(1, registry.get("search.request").tag("endpoint", "GET /persons").tag("status", "200").timer().count());
+		assertEquals(1, registry.get("search.phase").tag("phase", "compile").timer().count());
+		assertEquals(3, registry.get("search.criteria").summary().totalAmount());
+		assertEquals(3, registry.get("search.rows").summary().totalAmount());
+		assertEquals(1, registry.get("search.operations").tag("operation", "EQ").counter().count());
+		assertEquals(1, registry.get("search.operations").tag("operation", "GT").counter().count());
+		assertTrue(metrics.getSlowSearches().isEmpty());
+	}
+
+	@Test
+	void testSlowSearchesAreKeptNewestFirst() {
+		SearchMetrics metrics = new SearchMetrics(registry, Duration.ZERO, 2);
+		for (String search : List.of("age~gt~1", "age~gt~2", "age~gt~3")) {
+			SearchTrace trace = SearchTrace.start(1);
+			compiler.compile(search);
+			SearchTrace.statement("select p1_0.id from person p1_0 where p1_0.age>?");
+			SearchTrace.statement("select c1_0.id from country c1_0 where c1_0.id=?");
+			SearchTrace.end();
+			metrics.record("GET /persons", 200, trace);
+		}
+
+		List<SlowSearch> slowSearches = metrics.getSlowSearches();
+		assertEquals(2, slowSearches.size());
+		assertEquals(List.of("age~gt~3"), slowSearches.get(0).searches());
+		assertEquals(List.of("age~gt~2"), slowSearches.get(1).searches());
+		assertEquals(1, slowSearches.get(0).statements().size());
+		assertEquals(1, slowSearches.get(0).droppedStatements());
+		assertEquals(-1, slowSearches.get(0).rows());
+
+		metrics.clearSlowSearches();
+		assertTrue(metrics.getSlowSearches().isEmpty());
+	}
+}
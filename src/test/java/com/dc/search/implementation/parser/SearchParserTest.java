@@ -0,0 +1,163 @@
+package com.dc.search.implementation.parser;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchParserTest {
+
+	@Test
+	void testParseSearch1() {
+		String search = "firstName~equals~John~and~lastName~equals~Doe";
+		SearchExpression result = SearchParser.parse(search);
+
+		assertEquals("(firstName~equals~John~and~lastName~equals~Doe)", result.toString());
+	}
+
+	@Test
+	void testParseSearch2() {
+		String search = "firstName~equals~John~and~lastName~equals~Doe~or~firstName~equals~Mia~and~lastName~equals~Jovo-vic";
+		SearchExpression result = SearchParser.parse(search);
+
+		assertEquals("(((firstName~equals~John~and~lastName~equals~Doe)~or~firstName~equals~Mia)~and~lastName~equals~Jovo-vic)",
+				result.toString());
+	}
+
+	@Test
+	void testParseSearch3() {
+		String search = "(firstName~equals~John~or~lastName~equals~Doe)~and~(firstName~equals~Mia~or~lastName~equals~Jovo-vic)";
+		SearchExpression result = SearchParser.parse(search);
+
+		assertEquals("((firstName~equals~John~or~lastName~equals~Doe)~and~(firstName~equals~Mia~or~lastName~equals~Jovo-vic))",
+				result.toString());
+	}
+
+	@Test
+	void testParseSearch4() {
+		String search = "((firstName~equals~John~or~lastName~equals~Doe)~or~firstName~equals~Mia)~or~lastName~equals~Jovo-vic";
+		SearchExpression result = SearchParser.parse(search);
+
+		assertEquals("(((firstName~equals~John~or~lastName~equals~Doe)~or~firstName~equals~Mia)~or~lastName~equals~Jovo-vic)",
+				result.toString());
+	}
+
+	@Test
+	void testParseSearch5() {
+		String search = "id~in~1,2,3,4,5";
+		SearchExpression result = SearchParser.parse(search);
+
+		assertEquals(new SearchExpression.Criterion("id", "in", "1,2,3,4,5"), result);
+	}
+
+	@Test
+	void testParseSearch6() {
+		String search = "age~greaterThan~25~and~age~lessThan~40";
+		SearchExpression.Group result = (SearchExpression.Group) SearchParser.parse(search);
+
+		assertEquals(LogicalOperator.AND, result.operator());
+		assertEquals(new SearchExpression.Criterion("age", "greaterThan", "25"), result.children().get(0));
+		assertEquals(new SearchExpression.Criterion("age", "lessThan", "40"), result.children().get(1));
+	}
+
+	@Test
+	void testParseSearch7() {
+		String search = "firstName~contains~doe";
+		SearchExpression result = SearchParser.parse(search);
+
+		assertEquals("firstName~contains~doe", result.toString());
+	}
+
+	@Test
+	void testParseSearch8() {
+		String search = "firstName~equals~john~or~lastName~equals~smith~or~age~lessThanOrEqual~30";
+		SearchExpression.Group result = (SearchExpression.Group) SearchParser.parse(search);
+
+		assertEquals(LogicalOperator.OR, result.operator());
+		assertEquals(3, result.children().size());
+		assertEquals("(firstName~equals~john~or~lastName~equals~smith~or~age~lessThanOrEqual~30)", result.toString());
+	}
+
+	@Test
+	void testParseSearch9() {
+		String search = "firstName~equals~john~and~(lastName~equals~smith~or~age~lessThanOrEqual~30)";
+		SearchExpression result = SearchParser.parse(search);
+
+		assertEquals("(firstName~equals~john~and~(lastName~equals~smith~or~age~lessThanOrEqual~30))", result.toString());
+	}
+
+	@Test
+	void testParseSearch10() {
+		String search = "(firstName~equals~john~or~firstName~equals~jane)~and~lastName~equals~smith";
+		SearchExpression result = SearchParser.parse(search);
+
+		assertEquals("((firstName~equals~john~or~firstName~equals~jane)~and~lastName~equals~smith)", result.toString());
+	}
+
+	@Test
+	void testParseSearch11() {
+		String search = "(firstName~startsWith~j~or~firstName~endsWith~n)~and~age~lessThanOrEqual~30";
+		SearchExpression result = SearchParser.parse(search);
+
+		assertEquals("((firstName~startsWith~j~or~firstName~endsWith~n)~and~age~lessThanOrEqual~30)", result.toString());
+	}
+
+	@Test
+	void testParseSearch12() {
+		String search = "(firstName~contains~doe~or~lastName~contains~smith)~or~(age~greaterThanOrEqual~30~and~age~lessThanOrEqual~40)";
+		SearchExpression result = SearchParser.parse(search);
+
+		assertEquals("((firstName~contains~doe~or~lastName~contains~smith)~or~(age~greaterThanOrEqual~30~and~age~lessThanOrEqual~40))",
+				result.toString());
+	}
+
+	@Test
+	void testParseSearch13() {
+		String search = "(firstName~equals~john~and~lastName~equals~doe)~or~(firstName~equals~jane~and~lastName~equals~smith)";
+		SearchExpression result = SearchParser.parse(search);
+
+		assertEquals("((firstName~equals~john~and~lastName~equals~doe)~or~(firstName~equals~jane~and~lastName~equals~smith))",
+				result.toString());
+	}
+
+	@Test
+	void testParseSearch14() {
+		String search = "firstName~contains~n~or~lastName~contains~n~or~(age~greaterThan~40~and~age~lessThan~60)";
+		SearchExpression result = SearchParser.parse(search);
+
+		assertEquals("(firstName~contains~n~or~lastName~contains~n~or~(age~greaterThan~40~and~age~lessThan~60))", result.toString());
+	}
+
+	@Test
+	void testParseSearch15() {
+		String search = "parentFolder~EQ~1~AND~immutable~EQ~false~and~(objectName~LIKE~asd~OR~creator~LIKE~asd~OR~type~LIKE~asd~OR~description~LIKE~asd)";
+		SearchExpression result = SearchParser.parse(search);
+
+		assertEquals("(parentFolder~EQ~1~and~immutable~EQ~false~and~(objectName~LIKE~asd~or~creator~LIKE~asd~or~type~LIKE~asd~or~description~LIKE~asd))",
+				result.toString());
+	}
+
+	@Test
+	void testRedundantParenthesesAndWhitespace() {
+		String search = " ((firstName~like~John)) ~ AND ~ (email~eq~john.doe@example.com) ";
+		SearchExpression result = SearchParser.parse(search);
+
+		assertEquals("(firstName~like~John~and~email~eq~john.doe@example.com)", result.toString());
+	}
+
+	@Test
+	void testBlankSearch() {
+		assertNull(SearchParser.parse(null));
+		assertNull(SearchParser.parse("  "));
+	}
+
+	@Test
+	void testInvalidSearch() {
+		assertThrows(IllegalArgumentException.class, () -> SearchParser.parse("(firstName~eq~John"));
+		assertThrows(IllegalArgumentException.class, () -> SearchParser.parse("firstName~eq~John)"));
+		assertThrows(IllegalArgumentException.class, () -> SearchParser.parse("firstName~eq"));
+		assertThrows(IllegalArgumentException.class, () -> SearchParser.parse("firstName~eq~John~xor~age~gt~3"));
+		assertThrows(IllegalArgumentException.class,
+				() -> SearchParser.parse("(".repeat(SearchParser.MAX_NESTING_DEPTH + 1) + "age~gt~3"
+						+ ")".repeat(SearchParser.MAX_NESTING_DEPTH + 1)));
+	}
+}
@@ -0,0 +1,59 @@
+package com.dc.search.implementation.trigram;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrigramIndexTest {
+
+	@Test
+	void testLikeValueTrigramsSkipWildcards() {
+		assertEquals(Set.of("joh", "ohn"), Trigrams.ofLikeValue("JOHN"));
+		assertEquals(Set.of("doe", "exa"), Trigrams.ofLikeValue("doe%ex_exa"));
+		assertTrue(Trigrams.ofLikeValue("jo%hn").isEmpty());
+	}
+
+	@Test
+	void testCandidatesFollowChanges() {
+		TrigramIndex index = new TrigramIndex(List.of("firstName", "email"));
+		assertNull(index.candidates("firstName", "john"));
+		index.rebuild(loader -> {
+			loader.accept(1, List.of("John", "john.doe@example.com"));
+			loader.accept(2, List.of("Johnny", "johnny@example.com"));
+			loader.accept(3, List.of("Alice", "alice@example.com"));
+		});
+
+		assertEquals(List.of(1, 2), ids(index, "firstName", "john"));
+		assertEquals(List.of(1), ids(index, "email", "doe"));
+		assertEquals(List.of(), ids(index, "firstName", "bob"));
+		assertNull(index.candidates("firstName", "jo"));
+		assertNull(index.candidates("lastName", "doe"));
+
+		index.put(3, List.of("Johanna", "johanna@example.com"));
+		index.remove(1);
+		assertEquals(List.of(2), ids(index, "firstName", "john"));
+		assertEquals(List.of(2, 3), ids(index, "firstName", "joh"));
+		assertEquals(List.of(), ids(index, "firstName", "ali"));
+		assertEquals(2, index.size());
+	}
+
+	@Test
+	void testChangesDuringRebuildAreKept() {
+		TrigramIndex index = new TrigramIndex(List.of("firstName"));
+		index.rebuild(loader -> {
+			loader.accept(1, List.of("John"));
+			index.put(2, List.of("Johnny"));
+			index.remove(1);
+		});
+
+		assertTrue(index.isReady());
+		assertEquals(List.of(2), ids(index, "firstName", "john"));
+	}
+
+	private static List<Integer> ids(TrigramIndex index, String field, String likeValue) {
+		return index.candidates(field, likeValue).stream().boxed().toList();
+	}
+}
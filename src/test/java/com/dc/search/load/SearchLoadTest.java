@@ -0,0 +1,326 @@
+package com.dc.search.load;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.extern.log4j.Log4j2;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.StringJoiner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * End to end load test of the search endpoints. The application runs on a random port against generated data, a
+ * number of concurrent clients send a weighted mix of searches over HTTP, and the run fails if a latency percentile
+ * exceeds its budget or requests fail.
+ * <p>
+ * Clients run closed loop by default, each sends its next request when the previous one completed. With a target
+ * rate, requests are scheduled at fixed intervals and latencies are measured from the scheduled time, so a stalled
+ * server is not hidden by clients that stop sending (coordinated omission).
+ * <p>
+ * Settings are system properties, e.g. {@code mvn -Pload test -Dload.persons=500000 -Dload.clients=32}:
+ * <ul>
+ *     <li>{@code load.persons} generated persons, default 100000</li>
+ *     <li>{@code load.clients} concurrent clients, default 16</li>
+ *     <li>{@code load.rate} target requests per second of all clients, default 0 for closed loop</li>
+ *     <li>{@code load.warmup} and {@code load.duration}, default 10s and 30s</li>
+ *     <li>{@code load.mix} file with weighted requests, default {@code load/search-mix.txt} on the classpath</li>
+ *     <li>{@code load.budget.p50}, {@code .p95}, {@code .p99}, {@code .p999} latency budgets, default 250ms, 1s, 2s
+ *     and 5s</li>
+ *     <li>{@code load.max-error-rate} tolerated fraction of failed requests, default 0</li>
+ * </ul>
+ */
+@Log4j2
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"spring.datasource.url=jdbc:h2:mem:load",
+		"spring.jpa.show-sql=false",
+		"spring.jpa.properties.hibernate.format_sql=false",
+		"search.generator.enabled=true",
+		"search.generator.persons=${load.persons:100000}",
+		"search.bulkhead.max-concurrent=${load.clients:16}"})
+class SearchLoadTest {
+
+	private static final long MAX_LATENCY = TimeUnit.MINUTES.toNanos(1);
+	private static final Map<String, Double> PERCENTILES = Map.of("p50", 50.0, "p95", 95.0, "p99", 99.0, "p999", 99.9);
+	private static final List<String> BUDGET_DEFAULTS = List.of("p50=250ms", "p95=1s", "p99=2s", "p999=5s");
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private DataSource dataSource;
+
+	private record Request(String name, URI uri, int weight) {
+	}
+
+	private static final class ClientResult {
+		final Map<Request, Histogram> latencies = new LinkedHashMap<>();
+		long errors;
+
+		Histogram histogram(Request request) {
+			return latencies.computeIfAbsent(request, key -> new Histogram(MAX_LATENCY, 3));
+		}
+	}
+
+	@Test
+	void searchesStayWithinLatencyBudget() throws Exception {
+		final int clients = Integer.getInteger("load.clients", 16);
+		final double rate = Double.parseDouble(System.getProperty("load.rate", "0"));
+		final Duration warmup = DurationStyle.detectAndParse(System.getProperty("load.warmup", "10s"));
+		final Duration duration = DurationStyle.detectAndParse(System.getProperty("load.duration", "30s"));
+		final double maxErrorRate = Double.parseDouble(System.getProperty("load.max-error-rate", "0"));
+		final List<Request> mix = mix();
+		final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+		run(http, mix, clients, rate, warmup);
+
+		final long[] gcBefore = gc();
+		final long allocatedBefore = serverAllocatedBytes();
+		final PoolSampler pool = new PoolSampler(dataSource);
+		final long start = System.nanoTime();
+		final List<ClientResult> results = run(http, mix, clients, rate, duration);
+		final double seconds = (System.nanoTime() - start) / 1e9;
+		pool.stop();
+		final long allocated = serverAllocatedBytes() - allocatedBefore;
+		final long[] gcAfter = gc();
+
+		final Map<Request, Histogram> byRequest = new LinkedHashMap<>();
+		mix.forEach(request -> byRequest.put(request, new Histogram(MAX_LATENCY, 3)));
+		final Histogram total = new Histogram(MAX_LATENCY, 3);
+		long errors = 0;
+		for (ClientResult result : results) {
+			errors += result.errors;
+			result.latencies.forEach((request, histogram) -> {
+				byRequest.get(request).add(histogram);
+				total.add(histogram);
+			});
+		}
+		final long requests = total.getTotalCount();
+
+		StringBuilder report = new StringBuilder();
+		mix.forEach(request -> report.append(String.format("%n%-4s %s", request.name(), request.uri().getRawPath()
+				+ (request.uri().getRawQuery() == null ? "" : "?" + request.uri().getQuery()))));
+		report.append(String.format("%n%d clients, %.1f s, %d requests, %.1f requests/s, %d errors%n",
+				clients, seconds, requests, requests / seconds, errors));
+		report.append(String.format("%-12s %8s %8s %8s %8s %8s %8s%n", "request", "count", "p50", "p95", "p99", "p999", "max"));
+		byRequest.forEach((request, histogram) -> report.append(row(request.name(), histogram)));
+		report.append(row("all", total));
+		report.append(String.format("server allocation %.1f MB/s, %d GCs taking %d ms, max %d threads waiting for a connection%n",
+				allocated / seconds / (1024 * 1024), gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1],
+				pool.maxWaiting()));
+		log.info("Load test report\n{}", report);
+		Files.writeString(Path.of("target", "load-report.txt"), report);
+
+		List<String> violations = new ArrayList<>();
+		budgets().forEach((percentile, budget) -> {
+			double latency = total.getValueAtPercentile(PERCENTILES.get(percentile));
+			if (latency > budget.toNanos()) {
+				violations.add(String.format("%s %.1f ms > %d ms", percentile, latency / 1e6, budget.toMillis()));
+			}
+		});
+		if (errors > maxErrorRate * requests) {
+			violations.add(errors + " failed requests");
+		}
+		assertTrue(requests > 0, "No requests completed.");
+		assertTrue(violations.isEmpty(), "Latency budget exceeded: " + violations);
+	}
+
+	private List<ClientResult> run(HttpClient http, List<Request> mix, int clients, double rate, Duration duration)
+			throws Exception {
+		final int[] cumulative = new int[mix.size()];
+		int weights = 0;
+		for (int i = 0; i < mix.size(); i++) {
+			weights += mix.get(i).weight();
+			cumulative[i] = weights;
+		}
+		final int totalWeight = weights;
+		final long intervalNanos = rate > 0 ? (long) (clients * 1e9 / rate) : 0;
+		final long end = System.nanoTime() + duration.toNanos();
+		final ExecutorService executor = Executors.newFixedThreadPool(clients);
+		try {
+			List<Future<ClientResult>> futures = new ArrayList<>(clients);
+			for (int client = 0; client < clients; client++) {
+				final SplittableRandom random = new SplittableRandom(client);
+				futures.add(executor.submit(() -> {
+					ClientResult result = new ClientResult();
+					long intended = System.nanoTime();
+					while (intended < end) {
+						int pick = Arrays.binarySearch(cumulative, random.nextInt(totalWeight) + 1);
+						Request request = mix.get(pick >= 0 ? pick : -pick - 1);
+						if (intervalNanos > 0) {
+							LockSupport.parkNanos(intended - System.nanoTime());
+						} else {
+							intended = System.nanoTime();
+						}
+						if (!send(http, request)) {
+							result.errors++;
+						}
+						result.histogram(request).recordValue(Math.min(System.nanoTime() - intended, MAX_LATENCY));
+						intended = intervalNanos > 0 ? intended + intervalNanos : System.nanoTime();
+					}
+					return result;
+				}));
+			}
+			List<ClientResult> results = new ArrayList<>(clients);
+			for (Future<ClientResult> future : futures) {
+				results.add(future.get());
+			}
+			return results;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static boolean send(HttpClient http, Request request) {
+		try {
+			HttpResponse<InputStream> response = http.send(HttpRequest.newBuilder(request.uri()).GET().build(),
+					HttpResponse.BodyHandlers.ofInputStream());
+			// read the whole body, serialization is part of the latency
+			try (InputStream body = response.body()) {
+				body.transferTo(OutputStream.nullOutputStream());
+			}
+			return response.statusCode() / 100 == 2;
+		} catch (IOException e) {
+			return false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	/**
+	 * Reads the mix file, lines are "weight path", with "#" comments. Query parameter values are URL encoded here.
+	 */
+	private List<Request> mix() throws IOException {
+		String location = System.getProperty("load.mix");
+		try (InputStream input = location != null ? Files.newInputStream(Path.of(location))
+				: getClass().getResourceAsStream("/load/search-mix.txt");
+			 BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+			List<Request> mix = new ArrayList<>();
+			String line;
+			while ((line = reader.readLine()) != null) {
+				line = line.strip();
+				if (line.isEmpty() || line.startsWith("#")) {
+					continue;
+				}
+				String[] parts = line.split("\\s+", 2);
+				mix.add(new Request("#" + (mix.size() + 1), uri(parts[1]), Integer.parseInt(parts[0])));
+			}
+			return mix;
+		}
+	}
+
+	private URI uri(String path) {
+		int query = path.indexOf('?');
+		if (query < 0) {
+			return URI.create("http://localhost:" + port + path);
+		}
+		StringJoiner parameters = new StringJoiner("&");
+		for (String parameter : path.substring(query + 1).split("&")) {
+			int equals = parameter.indexOf('=');
+			parameters.add(parameter.substring(0, equals) + "="
+					+ URLEncoder.encode(parameter.substring(equals + 1), StandardCharsets.UTF_8));
+		}
+		return URI.create("http://localhost:" + port + path.substring(0, query) + "?" + parameters);
+	}
+
+	private static Map<String, Duration> budgets() {
+		Map<String, Duration> budgets = new LinkedHashMap<>();
+		for (String budget : BUDGET_DEFAULTS) {
+			String percentile = budget.substring(0, budget.indexOf('='));
+			String value = System.getProperty("load.budget." + percentile, budget.substring(budget.indexOf('=') + 1));
+			budgets.put(percentile, DurationStyle.detectAndParse(value));
+		}
+		return budgets;
+	}
+
+	private static String row(String name, Histogram histogram) {
+		return String.format("%-12s %8d %8.1f %8.1f %8.1f %8.1f %8.1f%n", name, histogram.getTotalCount(),
+				histogram.getValueAtPercentile(50) / 1e6, histogram.getValueAtPercentile(95) / 1e6,
+				histogram.getValueAtPercentile(99) / 1e6, histogram.getValueAtPercentile(99.9) / 1e6,
+				histogram.getMaxValue() / 1e6);
+	}
+
+	/**
+	 * Bytes allocated by the Tomcat request threads, the clients run in the same JVM and are left out.
+	 */
+	private static long serverAllocatedBytes() {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long bytes = 0;
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (thread.getName().startsWith("http-nio-")) {
+				bytes += Math.max(threads.getThreadAllocatedBytes(thread.getId()), 0);
+			}
+		}
+		return bytes;
+	}
+
+	private static long[] gc() {
+		long[] gc = new long[2];
+		for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+			gc[0] += Math.max(collector.getCollectionCount(), 0);
+			gc[1] += Math.max(collector.getCollectionTime(), 0);
+		}
+		return gc;
+	}
+
+	/**
+	 * Samples the threads waiting for a database connection, to show connection pool contention.
+	 */
+	private static final class PoolSampler {
+
+		private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+		private final AtomicInteger maxWaiting = new AtomicInteger();
+
+		PoolSampler(DataSource dataSource) throws Exception {
+			HikariPoolMXBean pool = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+			scheduler.scheduleAtFixedRate(() -> maxWaiting.accumulateAndGet(pool.getThreadsAwaitingConnection(), Math::max),
+					0, 20, TimeUnit.MILLISECONDS);
+		}
+
+		void stop() {
+			scheduler.shutdownNow();
+		}
+
+		int maxWaiting() {
+			return maxWaiting.get();
+		}
+	}
+}